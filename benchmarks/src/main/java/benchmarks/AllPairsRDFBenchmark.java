@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calculations.RadialDF;
+import core.BulkSystem;
+
+/**
+ * Measures <code>RadialDF.symmetricRDFCalculation</code>, which checks every pair of oxygens, for the oxygen-oxygen RDF
+ * of one frame out to 10 angstroms, taking square roots or binning squared distances. The <code>pairs</code> counter
+ * is the number of pairs checked per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AllPairsRDFBenchmark
+{
+	private static final double INCREMENT = 0.05;
+	private static final double CUTOFF = 10.0;
+
+	/**Boxes of 1000 atoms are just over twice the cutoff across*/
+	@Param({"1000", "10000"})
+	public int atoms;
+
+	@Param({"false", "true"})
+	public boolean squaredBinning;
+
+	private RadialDF calc;
+	private int[] distances;
+	/**The number of pairs one call checks*/
+	private long pairsPerCall;
+
+	@Setup
+	public void setup()
+	{
+		BulkSystem bs = new WaterBox(atoms, 1).bulkSystem();
+		calc = new RadialDF(null, null, INCREMENT);
+		calc.selectAtoms("OW", "OW", bs);
+		calc.setSquaredBinning(squaredBinning);
+		distances = new int[(int) (CUTOFF/INCREMENT)];
+		long numOxygens = atoms/3;
+		pairsPerCall = numOxygens*(numOxygens - 1)/2;
+	}
+
+	@Benchmark
+	public int[] symmetricRDFCalculation(Counters.Pairs counters)
+	{
+		Arrays.fill(distances, 0);
+		calc.symmetricRDFCalculation(distances);
+		counters.pairs += pairsPerCall;
+		return distances;
+	}
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the work done by each benchmark call, which JMH reports as a rate next to the calls per second. Each benchmark
+ * takes the counter for the unit it is measured in, so it reports only that rate.
+ */
+public class Counters
+{
+	/**Lines read per second*/
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Lines
+	{
+		public long lines;
+
+		@Setup(Level.Iteration)
+		public void reset()
+		{
+			lines = 0;
+		}
+	}
+
+	/**Atoms read or written per second*/
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Atoms
+	{
+		public long atoms;
+
+		@Setup(Level.Iteration)
+		public void reset()
+		{
+			atoms = 0;
+		}
+	}
+
+	/**Distances between pairs of atoms tallied per second*/
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Pairs
+	{
+		public long pairs;
+
+		@Setup(Level.Iteration)
+		public void reset()
+		{
+			pairs = 0;
+		}
+	}
+}
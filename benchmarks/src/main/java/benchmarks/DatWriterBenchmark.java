@@ -0,0 +1,112 @@
+package benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.Molecule;
+import core.MoleculeSource;
+import lammps.DatWriter;
+
+/**
+ * Measures <code>DatWriter.writeFile</code> writing a water box with its bonds and angles as a lammps .dat file, to a
+ * <code>Writer</code> and to a byte channel. The text is formatted in full but thrown away rather than written to disk,
+ * so only the formatting is measured. The <code>atoms</code> counter is the number of atoms written per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatWriterBenchmark
+{
+	@Param({"1000", "10000", "100000"})
+	public int atoms;
+
+	private ArrayList<Molecule> mols;
+	private HashMap<String, Double> masses, charges;
+	private int numAtoms;
+	/**The number of characters written by the last call*/
+	private long written;
+
+	@Setup
+	public void setup()
+	{
+		WaterBox water = new WaterBox(atoms, 1);
+		numAtoms = water.size();
+		mols = water.molecules();
+		masses = new HashMap<String, Double>();
+		masses.put("OW", 15.9994);
+		masses.put("HW", 1.008);
+		charges = new HashMap<String, Double>();
+		charges.put("OW", -0.8476);
+		charges.put("HW", 0.4238);
+	}
+
+	@Benchmark
+	public long writeFile(Counters.Atoms counters)
+	{
+		written = 0;
+		Writer sink = new Writer() {
+			@Override
+			public void write(char[] cbuf, int off, int len) {
+				written += len;
+			}
+			@Override
+			public void flush() {
+			}
+			@Override
+			public void close() {
+			}
+		};
+		DatWriter.writeFile(mols, new BufferedWriter(sink), masses, charges);
+		counters.atoms += numAtoms;
+		return written;
+	}
+
+	/**
+	 * Writes the same file through the byte channel path, again throwing the bytes away.
+	 */
+	@Benchmark
+	public long writeChannel(Counters.Atoms counters) throws IOException
+	{
+		written = 0;
+		WritableByteChannel sink = new WritableByteChannel() {
+			@Override
+			public int write(ByteBuffer src) {
+				int n = src.remaining();
+				src.position(src.limit());
+				written += n;
+				return n;
+			}
+			@Override
+			public boolean isOpen() {
+				return true;
+			}
+			@Override
+			public void close() {
+			}
+		};
+		DatWriter.writeFile(MoleculeSource.of(mols), sink, masses, charges);
+		counters.atoms += numAtoms;
+		return written;
+	}
+}
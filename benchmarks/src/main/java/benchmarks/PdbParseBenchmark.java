@@ -0,0 +1,91 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.Molecule;
+import pdb.PDB_Parser;
+
+/**
+ * Measures <code>PDB_Parser.parseSystemFile</code> reading a Packmol style water box from a file, building every
+ * molecule with its bonds and angles. The <code>atoms</code> counter is the number of atoms read per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdbParseBenchmark
+{
+	@Param({"1000", "10000", "100000"})
+	public int atoms;
+
+	private File systemFile, blueprintFile;
+	private ReusableParser parser;
+	private int numAtoms;
+
+	/**
+	 * Keeps the loaded blueprint between calls but starts each call with no molecules.
+	 */
+	static class ReusableParser extends PDB_Parser
+	{
+		ArrayList<Molecule> parse(String fileName)
+		{
+			molecules = new ArrayList<Molecule>();
+			parseSystemFile(fileName);
+			return molecules;
+		}
+	}
+
+	@Setup
+	public void setup() throws IOException
+	{
+		WaterBox water = new WaterBox(atoms, 1);
+		numAtoms = water.size();
+		systemFile = write("system", water.pdbSystem());
+		blueprintFile = write("water", WaterBox.pdbBlueprint());
+		parser = new ReusableParser();
+		parser.parseBlueprintFile(blueprintFile.getPath());
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		systemFile.delete();
+		blueprintFile.delete();
+	}
+
+	@Benchmark
+	public ArrayList<Molecule> parseSystemFile(Counters.Atoms counters)
+	{
+		ArrayList<Molecule> mols = parser.parse(systemFile.getPath());
+		counters.atoms += numAtoms;
+		return mols;
+	}
+
+	private static File write(String prefix, String contents) throws IOException
+	{
+		File file = File.createTempFile(prefix, ".pdb");
+		FileWriter fw = new FileWriter(file);
+		fw.write(contents);
+		fw.close();
+		return file;
+	}
+}
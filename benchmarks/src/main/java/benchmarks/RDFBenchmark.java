@@ -0,0 +1,70 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import calculations.RadialDF;
+import core.PackedSystem;
+
+/**
+ * Measures <code>RadialDF.systemRDFCalculation</code> for the oxygen-oxygen and oxygen-hydrogen RDFs of one frame out
+ * to 10 angstroms. The <code>pairs</code> counter is the number of distances tallied into a shell per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RDFBenchmark
+{
+	private static final double INCREMENT = 0.05;
+	private static final double CUTOFF = 10.0;
+
+	/**Boxes of 1000 atoms are just over twice the cutoff across*/
+	@Param({"1000", "10000", "100000"})
+	public int atoms;
+
+	@Param({"OW", "HW"})
+	public String otherAtom;
+
+	private PackedSystem ps;
+	private RadialDF calc;
+	private int[] distances;
+	/**The number of distances one call tallies*/
+	private long pairsPerCall;
+
+	@Setup
+	public void setup()
+	{
+		ps = new WaterBox(atoms, 1).packedSystem();
+		calc = new RadialDF(null, null, INCREMENT);
+		distances = new int[(int) (CUTOFF/INCREMENT)];
+		calc.systemRDFCalculation("OW", otherAtom, ps, distances, CUTOFF);
+		for(int count : distances)
+		{
+			pairsPerCall += count;
+		}
+	}
+
+	@Benchmark
+	public int[] systemRDFCalculation(Counters.Pairs counters)
+	{
+		Arrays.fill(distances, 0);
+		calc.systemRDFCalculation("OW", otherAtom, ps, distances, CUTOFF);
+		counters.pairs += pairsPerCall;
+		return distances;
+	}
+}
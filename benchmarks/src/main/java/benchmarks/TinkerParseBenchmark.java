@@ -0,0 +1,93 @@
+package benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.PackedSystem;
+import tinker.BadAtomFormat;
+import tinker.ByteAtomParser;
+import tinker.Tinker_Parser;
+
+/**
+ * Measures <code>Tinker_Parser.parseAtom</code> on every atom line of a frame, and <code>ByteAtomParser</code> on the
+ * same lines as bytes in a direct buffer, as <code>MappedArcReader</code> hands them over. The <code>lines</code>
+ * counter is the number of lines parsed per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TinkerParseBenchmark
+{
+	@Param({"1000", "10000", "100000"})
+	public int atoms;
+
+	private String[] lines;
+	private PackedSystem ps;
+
+	/**The lines one after another, each ending in a newline*/
+	private ByteBuffer bytes;
+	/**The start of each line in <code>bytes</code>, and the end of the last*/
+	private int[] lineStarts;
+	private ByteAtomParser parser;
+
+	@Setup
+	public void setup()
+	{
+		lines = new WaterBox(atoms, 1).tinkerLines();
+		ps = new PackedSystem(lines.length);
+
+		StringBuilder text = new StringBuilder();
+		lineStarts = new int[lines.length + 1];
+		for(int i = 0; i < lines.length; i++)
+		{
+			lineStarts[i] = text.length();
+			text.append(lines[i]).append('\n');
+		}
+		lineStarts[lines.length] = text.length();
+		byte[] encoded = text.toString().getBytes(StandardCharsets.US_ASCII);
+		bytes = ByteBuffer.allocateDirect(encoded.length);
+		bytes.put(encoded);
+		parser = new ByteAtomParser();
+	}
+
+	@Benchmark
+	public PackedSystem parseAtom(Counters.Lines counters) throws BadAtomFormat
+	{
+		ps.clear();
+		for(String line : lines)
+		{
+			Tinker_Parser.parseAtom(line, ps);
+		}
+		counters.lines += lines.length;
+		return ps;
+	}
+
+	@Benchmark
+	public PackedSystem parseAtomBytes(Counters.Lines counters) throws BadAtomFormat
+	{
+		ps.clear();
+		for(int i = 0; i < lines.length; i++)
+		{
+			//Leave out the newline
+			parser.parseAtom(bytes, lineStarts[i], lineStarts[i + 1] - 1, ps);
+		}
+		counters.lines += lines.length;
+		return ps;
+	}
+}
@@ -0,0 +1,213 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import core.Atom;
+import core.BulkSystem;
+import core.MolBlueprint;
+import core.Molecule;
+import core.PackedSystem;
+
+/**
+ * Builds a synthetic box of rigid water molecules at the density of liquid water, about 0.0334 molecules per cubic
+ * angstrom, for the benchmarks. The oxygens sit on a jittered cubic lattice and each molecule is turned randomly, so the
+ * same size and seed always give the same box. Each molecule has the atom types <code>OW</code>, <code>HW</code>,
+ * <code>HW</code> in that order.
+ */
+public class WaterBox
+{
+	/**Molecules per cubic angstrom in liquid water*/
+	public static final double DENSITY = 0.0334;
+	/**The length of an O-H bond in angstroms*/
+	private static final double BOND = 0.9572;
+	/**The H-O-H angle in degrees*/
+	private static final double ANGLE = 104.52;
+	private static final String[] TYPES = {"OW", "HW", "HW"};
+	/**The Tinker atom type numbers of the atom types*/
+	private static final int[] TYPE_NUMBERS = {1, 2, 2};
+
+	private int numMolecules;
+	private double box;
+	private double[] x, y, z;
+
+	/**
+	 * @param numAtoms		The number of atoms to build, rounded down to a whole number of molecules
+	 * @param seed			Seeds the placement and orientation of the molecules
+	 */
+	public WaterBox(int numAtoms, long seed)
+	{
+		numMolecules = numAtoms/3;
+		box = Math.cbrt(numMolecules/DENSITY);
+		x = new double[numMolecules*3];
+		y = new double[numMolecules*3];
+		z = new double[numMolecules*3];
+
+		Random rand = new Random(seed);
+		int side = (int) Math.ceil(Math.cbrt(numMolecules));
+		double spacing = box/side;
+		double theta = Math.toRadians(ANGLE);
+		for(int m = 0; m < numMolecules; m++)
+		{
+			int o = 3*m;
+			x[o] = ((m % side) + 0.5 + 0.2*(rand.nextDouble() - 0.5))*spacing;
+			y[o] = ((m/side % side) + 0.5 + 0.2*(rand.nextDouble() - 0.5))*spacing;
+			z[o] = ((m/(side*side)) + 0.5 + 0.2*(rand.nextDouble() - 0.5))*spacing;
+
+			//Two perpendicular unit vectors span the plane of the molecule
+			double[] u = randomUnit(rand);
+			double[] w = randomUnit(rand);
+			double dot = u[0]*w[0] + u[1]*w[1] + u[2]*w[2];
+			for(int k = 0; k < 3; k++)
+				w[k] -= dot*u[k];
+			double norm = Math.sqrt(w[0]*w[0] + w[1]*w[1] + w[2]*w[2]);
+			for(int k = 0; k < 3; k++)
+				w[k] /= norm;
+
+			x[o+1] = x[o] + BOND*u[0];
+			y[o+1] = y[o] + BOND*u[1];
+			z[o+1] = z[o] + BOND*u[2];
+			x[o+2] = x[o] + BOND*(Math.cos(theta)*u[0] + Math.sin(theta)*w[0]);
+			y[o+2] = y[o] + BOND*(Math.cos(theta)*u[1] + Math.sin(theta)*w[1]);
+			z[o+2] = z[o] + BOND*(Math.cos(theta)*u[2] + Math.sin(theta)*w[2]);
+		}
+	}
+
+	/**
+	 * @return	The atom lines of a Tinker .arc or .xyz frame holding the box
+	 */
+	public String[] tinkerLines()
+	{
+		String[] lines = new String[size()];
+		for(int i = 0; i < lines.length; i++)
+		{
+			int m = i/3;
+			//Each oxygen is bonded to the two hydrogens after it, and each hydrogen to the oxygen before it
+			String bonded = (i % 3 == 0) ? String.format("%6d%6d", i+2, i+3) : String.format("%6d", 3*m + 1);
+			lines[i] = String.format("%6d  %-3s%12.6f%12.6f%12.6f%6d", i+1, TYPES[i % 3], x[i], y[i], z[i],
+					TYPE_NUMBERS[i % 3]) + bonded;
+		}
+		return lines;
+	}
+
+	/**
+	 * @return	The box as a <code>PackedSystem</code>
+	 */
+	public PackedSystem packedSystem()
+	{
+		PackedSystem ps = new PackedSystem(size());
+		ps.setXBox(box);
+		ps.setYBox(box);
+		ps.setZBox(box);
+		for(int i = 0; i < size(); i++)
+		{
+			ps.add(i+1, TYPES[i % 3], x[i], y[i], z[i]);
+		}
+		return ps;
+	}
+
+	/**
+	 * @return	The box as a <code>BulkSystem</code>
+	 */
+	public BulkSystem bulkSystem()
+	{
+		BulkSystem bs = new BulkSystem();
+		bs.setXBox(box);
+		bs.setYBox(box);
+		bs.setZBox(box);
+		for(int i = 0; i < size(); i++)
+		{
+			bs.add(new Atom(TYPES[i % 3], x[i], y[i], z[i]));
+		}
+		return bs;
+	}
+
+	/**
+	 * @return	The box as a Packmol style .pdb file, ending with an <code>END</code> line
+	 */
+	public String pdbSystem()
+	{
+		StringBuilder sb = new StringBuilder(size()*60);
+		for(int i = 0; i < size(); i++)
+		{
+			sb.append(String.format("HETATM%5d  %-3s WAT A%4d    %8.3f%8.3f%8.3f\n", (i % 99999) + 1, TYPES[i % 3],
+					(i/3 % 9999) + 1, x[i], y[i], z[i]));
+		}
+		sb.append("END\n");
+		return sb.toString();
+	}
+
+	/**
+	 * @return	A .pdb file describing one water molecule, with its bonds and angle, for
+	 * 			<code>PDB_Parser.parseBlueprintFile</code>
+	 */
+	public static String pdbBlueprint()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("HETATM    1  OW  WAT A   1       0.000   0.000   0.000\n");
+		sb.append("HETATM    2  HW  WAT A   1       0.957   0.000   0.000\n");
+		sb.append("HETATM    3  HW  WAT A   1      -0.240   0.927   0.000\n");
+		sb.append("CONECT    2    1\n");
+		sb.append("CONECT    3    1\n");
+		sb.append("CONECT    2    1    3\n");
+		sb.append("END\n");
+		return sb.toString();
+	}
+
+	/**
+	 * @return	The box as molecules with their bonds and angles built, as <code>PDB_Parser</code> returns them
+	 */
+	public ArrayList<Molecule> molecules()
+	{
+		MolBlueprint blueprint = new MolBlueprint();
+		for(String type : TYPES)
+		{
+			blueprint.addToKey(type);
+		}
+		blueprint.addBondIndex("1", "2");
+		blueprint.addBondIndex("1", "3");
+		blueprint.addAngleIndex("1", "2", "3");
+
+		ArrayList<Molecule> mols = new ArrayList<Molecule>(numMolecules);
+		for(int m = 0; m < numMolecules; m++)
+		{
+			Molecule mol = new Molecule(blueprint);
+			for(int i = 3*m; i < 3*m + 3; i++)
+			{
+				mol.addAtom(new Atom(i+1, TYPES[i % 3], x[i], y[i], z[i]));
+			}
+			mol.buildBondsAndAngles();
+			mols.add(mol);
+		}
+		return mols;
+	}
+
+	/**
+	 * @return	The number of atoms in the box
+	 */
+	public int size()
+	{
+		return 3*numMolecules;
+	}
+
+	/**
+	 * @return	The length of each side of the cubic box
+	 */
+	public double getBox()
+	{
+		return box;
+	}
+
+	private static double[] randomUnit(Random rand)
+	{
+		double u, v, s;
+		do
+		{
+			u = 2*rand.nextDouble() - 1;
+			v = 2*rand.nextDouble() - 1;
+			s = u*u + v*v;
+		} while(s >= 1);
+		double f = 2*Math.sqrt(1 - s);
+		return new double[] {u*f, v*f, 1 - 2*s};
+	}
+}
@@ -0,0 +1,205 @@
+package calculations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import core.FrameSource;
+import core.PackedSystem;
+import core.RunMetrics;
+
+/**
+ * Runs every registered <code>FrameAnalysis</code> on each configuration of a trajectory in a single pass over the
+ * file. Each configuration goes through the analyses in the order they were added.
+ * <p>
+ * With more than one thread, configurations are read on the calling thread and handed to a pool of workers, and at
+ * most two configurations per thread are queued at a time. A pipeline is itself a <code>FrameAnalysis</code>, so a
+ * caller that already reads configurations on several threads can call <code>accept</code> and <code>finish</code>
+ * directly instead of <code>run</code>.
+ * <p>
+ * Given a <code>RunMetrics</code>, the pipeline records the time spent reading configurations and in each analysis,
+ * the configurations and atoms analyzed, the bytes read and the pair distances measured by any
+ * <code>PairCounting</code> analysis.
+ * @see FrameAnalysis
+ * @see core.FrameSource
+ */
+public class AnalysisPipeline implements FrameAnalysis
+{
+	private List<FrameAnalysis> analyses;
+	/**The name each analysis is timed under*/
+	private List<String> stages;
+	private int numThreads = 1;
+	private RunMetrics metrics;
+
+	public AnalysisPipeline()
+	{
+		analyses = new ArrayList<FrameAnalysis>();
+		stages = new ArrayList<String>();
+	}
+
+	/**
+	 * Registers an analysis to run on every configuration.
+	 * @param analysis	The analysis
+	 * @return			This pipeline
+	 */
+	public AnalysisPipeline add(FrameAnalysis analysis)
+	{
+		analyses.add(analysis);
+		//Analyses of the same class are told apart by number
+		String name = analysis.getClass().getSimpleName();
+		if(name.isEmpty())
+			name = analysis.getClass().getName();
+		String stage = name;
+		for(int n = 2; stages.contains(stage); n++)
+		{
+			stage = name + " " + n;
+		}
+		stages.add(stage);
+		return this;
+	}
+
+	/**
+	 * @param metrics	Records the work and time of the pipeline, or null to record nothing. The caller starts and
+	 * 					finishes it.
+	 */
+	public void setMetrics(RunMetrics metrics)
+	{
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @param numThreads	The number of worker threads used by <code>run</code>
+	 */
+	public void setNumThreads(int numThreads)
+	{
+		this.numThreads = Math.max(1, numThreads);
+	}
+
+	/**
+	 * Reads every configuration from <code>source</code>, hands each one to every analysis, then finishes the analyses.
+	 * The source is not closed.
+	 * @param source	The configurations to analyze
+	 * @return			The number of configurations analyzed
+	 */
+	public int run(FrameSource source)
+	{
+		int numFrames = 0;
+		if(numThreads == 1)
+		{
+			//A configuration is finished with before the next one is read
+			source.setReuseFrames(true);
+			while(true)
+			{
+				long begin = System.nanoTime();
+				PackedSystem ps = source.hasNext() ? source.next() : null;
+				if(metrics != null)
+					metrics.endStage("read", begin);
+				if(ps == null)
+					break;
+				accept(source.getFrameIndex(), ps);
+				numFrames++;
+			}
+		}
+		else
+		{
+			source.setReuseFrames(false);
+			numFrames = runParallel(source);
+		}
+		if(metrics != null && source.getBytesRead() > 0)
+			metrics.addBytes(source.getBytesRead());
+		finish();
+		return numFrames;
+	}
+
+	@Override
+	public void accept(int frame, PackedSystem ps)
+	{
+		if(metrics == null)
+		{
+			for(int i = 0; i < analyses.size(); i++)
+			{
+				analyses.get(i).accept(frame, ps);
+			}
+			return;
+		}
+		metrics.addFrame(ps.size());
+		for(int i = 0; i < analyses.size(); i++)
+		{
+			long begin = System.nanoTime();
+			analyses.get(i).accept(frame, ps);
+			metrics.endStage(stages.get(i), begin);
+		}
+	}
+
+	@Override
+	public void finish()
+	{
+		long begin = System.nanoTime();
+		for(FrameAnalysis analysis : analyses)
+		{
+			analysis.finish();
+		}
+		if(metrics != null)
+		{
+			metrics.endStage("finish", begin);
+			for(FrameAnalysis analysis : analyses)
+			{
+				if(analysis instanceof PairCounting)
+					metrics.addPairs(((PairCounting) analysis).getNumMeasured());
+			}
+		}
+	}
+
+	private int runParallel(FrameSource source)
+	{
+		ExecutorService workers = Executors.newFixedThreadPool(numThreads);
+		final Semaphore queued = new Semaphore(2*numThreads);
+		final AtomicReference<RuntimeException> failure = new AtomicReference<RuntimeException>();
+		int numFrames = 0;
+		try {
+			while(failure.get() == null)
+			{
+				long begin = System.nanoTime();
+				final PackedSystem ps = source.hasNext() ? source.next() : null;
+				if(metrics != null)
+					metrics.endStage("read", begin);
+				if(ps == null)
+					break;
+				final int frame = source.getFrameIndex();
+				queued.acquireUninterruptibly();
+				workers.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							accept(frame, ps);
+						} catch(RuntimeException e) {
+							failure.compareAndSet(null, e);
+						} finally {
+							queued.release();
+						}
+					}
+				});
+				numFrames++;
+			}
+		} finally {
+			workers.shutdown();
+			try {
+				while(!workers.awaitTermination(1, TimeUnit.MINUTES))
+				{
+					//Keep waiting on long trajectories
+				}
+			} catch (InterruptedException e) {
+				workers.shutdownNow();
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for analysis workers", e);
+			}
+		}
+		if(failure.get() != null)
+			throw failure.get();
+		return numFrames;
+	}
+}
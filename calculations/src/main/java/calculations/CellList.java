@@ -0,0 +1,656 @@
+package calculations;
+
+import java.util.Arrays;
+
+import core.Atom;
+import core.BoxMatrix;
+import core.BulkSystem;
+
+/**
+ * A linked-cell neighbor search for periodic simulation boxes. Atoms are binned into
+ * cells whose edges are at least as long as the cutoff, so every neighbor of an atom within the cutoff
+ * lies in its own cell or one of the 26 cells surrounding it. This makes finding all pairs within the
+ * cutoff O(N) instead of O(N^2).
+ * <p>
+ * Triclinic boxes are split into cells along their fractional coordinates, so each cell has the same skewed shape as
+ * the box and is at least as wide as the cutoff between opposite faces. The search is the same as for an orthorhombic
+ * box, using the triclinic <code>DistanceKernel</code>.
+ * <p>
+ * Coordinates are copied into cell order when the atoms are binned, so the atoms of each cell form one contiguous
+ * block that <code>DistanceKernel</code> can process at once.
+ * <p>
+ * If the box is too small to hold three cells along every side, the list falls back to checking every
+ * atom, which gives the same results as the cell search.
+ * @see RadialDF
+ */
+public class CellList
+{
+	/**
+	 * Receives the atoms found within the cutoff of a position.
+	 */
+	public interface NeighborVisitor
+	{
+		/**
+		 * @param other		The index of the neighboring atom in the system the list was built from
+		 * @param rSquared	The squared minimum-image distance to the neighboring atom
+		 */
+		void visit(int other, double rSquared);
+	}
+
+	/**
+	 * Receives every pair of atoms within the cutoff of each other.
+	 */
+	public interface PairVisitor
+	{
+		/**
+		 * @param atom1		The index of the first atom of the pair
+		 * @param atom2		The index of the second atom of the pair, always greater than <code>atom1</code>
+		 * @param rSquared	The squared minimum-image distance between the two atoms
+		 */
+		void visit(int atom1, int atom2, double rSquared);
+	}
+
+	/**
+	 * The 13 cell offsets that, together with the cell itself, cover each pair of neighboring cells exactly once.
+	 * Every other offset is the negative of one of these.
+	 */
+	private static final int[][] HALF_SHELL = {
+		{0, 0, 1},
+		{0, 1, -1}, {0, 1, 0}, {0, 1, 1},
+		{1, -1, -1}, {1, -1, 0}, {1, -1, 1},
+		{1, 0, -1}, {1, 0, 0}, {1, 0, 1},
+		{1, 1, -1}, {1, 1, 0}, {1, 1, 1}
+	};
+
+	/**The dimensions of the periodic box, and their inverses*/
+	private double xBox, yBox, zBox;
+	private double xInverse, yInverse, zInverse;
+	/**The shape of the box, and its cell matrices if it is triclinic*/
+	private BoxMatrix box;
+	private boolean triclinic;
+	private double[] matrix, inverse;
+	/**The largest distance that will be reported to a visitor*/
+	private double cutoff;
+	/**The number of cells along each side of the box*/
+	private int nx, ny, nz;
+	/**True if the box is too small for at least three cells on a side*/
+	private boolean allPairs;
+
+	/**The coordinates of the binned atoms*/
+	private double[] xCords, yCords, zCords;
+	private int numAtoms;
+
+	/**Atom indexes sorted by cell. Cell c holds the atoms from cellStart[c] up to cellStart[c+1].*/
+	private int[] cellAtoms;
+	private int[] cellStart;
+	/**The coordinates in cell order, so each cell is a contiguous block for <code>DistanceKernel</code>*/
+	private double[] sortedX, sortedY, sortedZ;
+	/**The position of each atom in cell order*/
+	private int[] sortedPosition;
+	/**Holds the distances to one cell*/
+	private double[] r2;
+	/**Holds the shell of each distance in <code>r2</code>*/
+	private long[] shells;
+	/**The number of distances measured since the last call to <code>takeNumMeasured</code>*/
+	private long numMeasured;
+
+	/**
+	 * Sets up the cell grid for a box. No atoms are binned until <code>build</code> is called.
+	 * @param xBox		The length of the box along x
+	 * @param yBox		The length of the box along y
+	 * @param zBox		The length of the box along z
+	 * @param cutoff	The largest pair distance of interest. Should be at most half of the smallest box side.
+	 */
+	public CellList(double xBox, double yBox, double zBox, double cutoff)
+	{
+		this(BoxMatrix.orthorhombic(xBox, yBox, zBox), cutoff);
+	}
+
+	/**
+	 * Sets up the cell grid for a box that may be triclinic. No atoms are binned until <code>build</code> is called.
+	 * @param box		The shape of the box
+	 * @param cutoff	The largest pair distance of interest. Should be at most half of the smallest box width.
+	 */
+	public CellList(BoxMatrix box, double cutoff)
+	{
+		this.cutoff = cutoff;
+		setBox(box);
+		ensureCapacity(0);
+	}
+
+	/**
+	 * Changes the box, as happens between configurations of a constant pressure simulation, while keeping the arrays
+	 * already allocated. Any binned atoms are dropped, so <code>build</code> must be called again.
+	 * @param xBox		The length of the box along x
+	 * @param yBox		The length of the box along y
+	 * @param zBox		The length of the box along z
+	 */
+	public void setBox(double xBox, double yBox, double zBox)
+	{
+		setBox(BoxMatrix.orthorhombic(xBox, yBox, zBox));
+	}
+
+	/**
+	 * Changes the box, which may be triclinic, while keeping the arrays already allocated. Any binned atoms are dropped,
+	 * so <code>build</code> must be called again.
+	 * @param box	The shape of the box
+	 */
+	public void setBox(BoxMatrix box)
+	{
+		this.box = box;
+		xBox = box.getA();
+		yBox = box.getB();
+		zBox = box.getC();
+		xInverse = 1.0/xBox;
+		yInverse = 1.0/yBox;
+		zInverse = 1.0/zBox;
+		triclinic = !box.isOrthorhombic();
+		matrix = box.getMatrix();
+		inverse = box.getInverse();
+
+		//Cells are split along the fractional coordinates, so they must be as wide as the cutoff between opposite faces
+		nx = (int) Math.floor(box.getWidth(0)/cutoff);
+		ny = (int) Math.floor(box.getWidth(1)/cutoff);
+		nz = (int) Math.floor(box.getWidth(2)/cutoff);
+		allPairs = nx < 3 || ny < 3 || nz < 3;
+		if(allPairs)
+		{
+			nx = ny = nz = 1;
+		}
+		if(cellStart == null || cellStart.length != nx*ny*nz + 1)
+			cellStart = new int[nx*ny*nz + 1];
+		else
+			Arrays.fill(cellStart, 0);
+		numAtoms = 0;
+	}
+
+	/**
+	 * Matches the list to the box of a configuration, only changing it if the box is different.
+	 * @return	True if the box changed
+	 */
+	public boolean fitBox(double xBox, double yBox, double zBox)
+	{
+		if(!triclinic && xBox == this.xBox && yBox == this.yBox && zBox == this.zBox)
+			return false;
+		setBox(xBox, yBox, zBox);
+		return true;
+	}
+
+	/**
+	 * Matches the list to the box of a configuration, which may be triclinic, only changing it if the box is different.
+	 * @return	True if the box changed
+	 */
+	public boolean fitBox(BoxMatrix box)
+	{
+		if(box.equals(this.box))
+			return false;
+		setBox(box);
+		return true;
+	}
+
+	/**
+	 * Bins the atoms of <code>system</code>. Neighbor indexes reported afterwards are indexes into <code>system</code>.
+	 * @param system	The atoms to bin
+	 */
+	public void build(BulkSystem system)
+	{
+		ensureCapacity(system.size());
+		int i = 0;
+		for(Atom atom : system)
+		{
+			xCords[i] = atom.getXCord();
+			yCords[i] = atom.getYCord();
+			zCords[i] = atom.getZCord();
+			i++;
+		}
+		bin(system.size());
+	}
+
+	/**
+	 * Bins the first <code>numAtoms</code> coordinates of the given arrays.
+	 * Neighbor indexes reported afterwards are indexes into these arrays.
+	 * @param x			The x-coordinates of the atoms
+	 * @param y			The y-coordinates of the atoms
+	 * @param z			The z-coordinates of the atoms
+	 * @param numAtoms	The number of atoms to bin
+	 */
+	public void build(double[] x, double[] y, double[] z, int numAtoms)
+	{
+		ensureCapacity(numAtoms);
+		System.arraycopy(x, 0, xCords, 0, numAtoms);
+		System.arraycopy(y, 0, yCords, 0, numAtoms);
+		System.arraycopy(z, 0, zCords, 0, numAtoms);
+		bin(numAtoms);
+	}
+
+	/**
+	 * Calls <code>visitor</code> for every binned atom whose minimum-image distance from the given position
+	 * is less than the cutoff. An atom sitting exactly on the position is reported with a distance of zero.
+	 * @param x			The x-coordinate of the position
+	 * @param y			The y-coordinate of the position
+	 * @param z			The z-coordinate of the position
+	 * @param visitor	Receives each neighbor
+	 */
+	public void forEachNeighbor(double x, double y, double z, NeighborVisitor visitor)
+	{
+		double cutoffSq = cutoff*cutoff;
+		if(allPairs)
+		{
+			visitCell(x, y, z, 0, cutoffSq, visitor);
+			return;
+		}
+
+		int cx = cellAlong(0, x, y, z);
+		int cy = cellAlong(1, x, y, z);
+		int cz = cellAlong(2, x, y, z);
+		for(int dx = -1; dx <= 1; dx++)
+		{
+			int ix = wrap(cx + dx, nx);
+			for(int dy = -1; dy <= 1; dy++)
+			{
+				int iy = wrap(cy + dy, ny);
+				for(int dz = -1; dz <= 1; dz++)
+				{
+					visitCell(x, y, z, (ix*ny + iy)*nz + wrap(cz + dz, nz), cutoffSq, visitor);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the distance from the given position to every binned atom closer than the cutoff to its RDF shell, without
+	 * calling a visitor for each one. Gives the same tallies as counting the neighbors reported by
+	 * <code>forEachNeighbor</code>.
+	 * @param x				The x-coordinate of the position
+	 * @param y				The y-coordinate of the position
+	 * @param z				The z-coordinate of the position
+	 * @param self			The index of a binned atom to leave out, usually the atom at the position, or -1
+	 * @param increment		The radius of each shell
+	 * @param distances		Keeps track of the number of distances that falls within each shell.
+	 */
+	public void tallyNeighbors(double x, double y, double z, int self, double increment, int[] distances)
+	{
+		double cutoffSq = cutoff*cutoff;
+		int selfPosition = (self >= 0 && self < numAtoms) ? sortedPosition[self] : -1;
+		if(allPairs)
+		{
+			tallyCell(x, y, z, 0, selfPosition, cutoffSq, increment, distances);
+			return;
+		}
+
+		int cx = cellAlong(0, x, y, z);
+		int cy = cellAlong(1, x, y, z);
+		int cz = cellAlong(2, x, y, z);
+		for(int dx = -1; dx <= 1; dx++)
+		{
+			int ix = wrap(cx + dx, nx);
+			for(int dy = -1; dy <= 1; dy++)
+			{
+				int iy = wrap(cy + dy, ny);
+				for(int dz = -1; dz <= 1; dz++)
+				{
+					tallyCell(x, y, z, (ix*ny + iy)*nz + wrap(cz + dz, nz), selfPosition, cutoffSq, increment, distances);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the distance between every pair of binned atoms closer than the cutoff to its RDF shell. Each unordered pair
+	 * is only measured once, from the atom in the lower cell, but is counted twice, once for each atom of the pair.
+	 * This gives the same tallies as calling <code>tallyNeighbors</code> for every binned atom, leaving the atom itself
+	 * out, with half as many distances.
+	 * @param increment		The radius of each shell
+	 * @param distances		Keeps track of the number of distances that falls within each shell.
+	 */
+	public void tallyPairs(double increment, int[] distances)
+	{
+		double cutoffSq = cutoff*cutoff;
+		int[] forward = new int[HALF_SHELL.length];
+		int numCells = cellStart.length - 1;
+		for(int cell = 0; cell < numCells; cell++)
+		{
+			int numForward = forwardCells(cell, forward);
+			for(int k = cellStart[cell]; k < cellStart[cell+1]; k++)
+			{
+				double x = sortedX[k];
+				double y = sortedY[k];
+				double z = sortedZ[k];
+				//Atoms later in the same cell
+				tallyBlock(x, y, z, k + 1, cellStart[cell+1], cutoffSq, increment, distances);
+				for(int h = 0; h < numForward; h++)
+				{
+					tallyBlock(x, y, z, cellStart[forward[h]], cellStart[forward[h]+1], cutoffSq, increment, distances);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the distance between every pair of binned atoms closer than the cutoff to the RDF shells of each partial RDF
+	 * the pair belongs to, measuring each unordered pair once. A pair of atoms with types a and b is counted in the
+	 * histogram <code>pairTable[a*numTypes + b]</code> for the first atom and <code>pairTable[b*numTypes + a]</code> for the
+	 * second, so a partial RDF between two types gets the same tallies as <code>tallyNeighbors</code> would give it.
+	 * <p>
+	 * Atoms of one type that sit next to each other in a cell are measured together, and types that no partial RDF
+	 * needs are never measured, so binning the atoms sorted by type makes this much faster.
+	 * @param types			The type of each binned atom, from 0 up to <code>numTypes</code>
+	 * @param numTypes		The number of types
+	 * @param pairTable		The histogram for each pair of central and other types, or -1 if it is not needed
+	 * @param increment		The radius of each shell
+	 * @param numShells		The number of shells in each histogram
+	 * @param histograms	Keeps track of the number of distances that falls within each shell of each partial RDF.
+	 * 						Histogram p holds shell i at <code>p*numShells + i</code>.
+	 */
+	public void tallyTypedPairs(int[] types, int numTypes, int[] pairTable, double increment, int numShells,
+			int[] histograms)
+	{
+		//The offset of the histogram for each pair of types, seen from the first and the second atom
+		int[] firstOffset = new int[numTypes*numTypes];
+		int[] secondOffset = new int[numTypes*numTypes];
+		for(int a = 0; a < numTypes; a++)
+		{
+			for(int b = 0; b < numTypes; b++)
+			{
+				int first = pairTable[a*numTypes + b];
+				int second = pairTable[b*numTypes + a];
+				firstOffset[a*numTypes + b] = first < 0 ? -1 : first*numShells;
+				secondOffset[a*numTypes + b] = second < 0 ? -1 : second*numShells;
+			}
+		}
+
+		//The types in cell order
+		int[] sortedTypes = new int[numAtoms];
+		for(int k = 0; k < numAtoms; k++)
+		{
+			sortedTypes[k] = types[cellAtoms[k]];
+		}
+
+		double cutoffSq = cutoff*cutoff;
+		int[] forward = new int[HALF_SHELL.length];
+		int numCells = cellStart.length - 1;
+		for(int cell = 0; cell < numCells; cell++)
+		{
+			int numForward = forwardCells(cell, forward);
+			for(int k = cellStart[cell]; k < cellStart[cell+1]; k++)
+			{
+				double x = sortedX[k];
+				double y = sortedY[k];
+				double z = sortedZ[k];
+				int typeRow = sortedTypes[k]*numTypes;
+				for(int h = -1; h < numForward; h++)
+				{
+					//Atoms later in the same cell, then the forward cells
+					int start = (h < 0) ? k + 1 : cellStart[forward[h]];
+					int end = (h < 0) ? cellStart[cell+1] : cellStart[forward[h]+1];
+					//Measure each run of atoms of one type together, skipping types no partial RDF needs
+					while(start < end)
+					{
+						int otherType = sortedTypes[start];
+						int runEnd = start + 1;
+						while(runEnd < end && sortedTypes[runEnd] == otherType)
+						{
+							runEnd++;
+						}
+						int first = firstOffset[typeRow + otherType];
+						int second = secondOffset[typeRow + otherType];
+						if(first >= 0 || second >= 0)
+						{
+							int n = runEnd - start;
+							measure(x, y, z, start, runEnd);
+							if(first == second)
+							{
+								DistanceKernel.tally(r2, n, cutoffSq, increment, histograms, first, numShells, 2, shells);
+							}
+							else
+							{
+								if(first >= 0)
+									DistanceKernel.tally(r2, n, cutoffSq, increment, histograms, first, numShells, 1, shells);
+								if(second >= 0)
+									DistanceKernel.tally(r2, n, cutoffSq, increment, histograms, second, numShells, 1, shells);
+							}
+						}
+						start = runEnd;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calls <code>visitor</code> once for every pair of binned atoms that are closer than the cutoff.
+	 * @param visitor	Receives each pair
+	 */
+	public void forEachPair(final PairVisitor visitor)
+	{
+		for(int i = 0; i < numAtoms; i++)
+		{
+			final int atom1 = i;
+			forEachNeighbor(xCords[i], yCords[i], zCords[i], new NeighborVisitor() {
+				@Override
+				public void visit(int other, double rSquared) {
+					if(other > atom1)
+						visitor.visit(atom1, other, rSquared);
+				}
+			});
+		}
+	}
+
+	public double getCutoff()
+	{
+		return cutoff;
+	}
+
+	public BoxMatrix getBox()
+	{
+		return box;
+	}
+
+	public double getXBox()
+	{
+		return xBox;
+	}
+	public double getYBox()
+	{
+		return yBox;
+	}
+	public double getZBox()
+	{
+		return zBox;
+	}
+
+	public int getNumAtoms()
+	{
+		return numAtoms;
+	}
+
+	/**
+	 * @return	The number of distances measured between pairs of atoms since the last call, including those beyond the
+	 * 			cutoff. The count is reset to 0.
+	 */
+	public long takeNumMeasured()
+	{
+		long n = numMeasured;
+		numMeasured = 0;
+		return n;
+	}
+
+	/**
+	 * Sorts the stored coordinates into cells with a counting sort.
+	 */
+	private void bin(int numAtoms)
+	{
+		this.numAtoms = numAtoms;
+		int[] atomCell = new int[numAtoms];
+		Arrays.fill(cellStart, 0);
+		for(int i = 0; i < numAtoms; i++)
+		{
+			int cell = allPairs ? 0 : (cellAlong(0, xCords[i], yCords[i], zCords[i])*ny
+					+ cellAlong(1, xCords[i], yCords[i], zCords[i]))*nz + cellAlong(2, xCords[i], yCords[i], zCords[i]);
+			atomCell[i] = cell;
+			cellStart[cell+1]++;
+		}
+		for(int c = 0; c < cellStart.length - 1; c++)
+		{
+			cellStart[c+1] += cellStart[c];
+		}
+		int[] fill = new int[cellStart.length];
+		for(int i = 0; i < numAtoms; i++)
+		{
+			int cell = atomCell[i];
+			cellAtoms[cellStart[cell] + fill[cell]] = i;
+			fill[cell]++;
+		}
+		for(int k = 0; k < numAtoms; k++)
+		{
+			int i = cellAtoms[k];
+			sortedX[k] = xCords[i];
+			sortedY[k] = yCords[i];
+			sortedZ[k] = zCords[i];
+			sortedPosition[i] = k;
+		}
+	}
+
+	private void visitCell(double x, double y, double z, int cell, double cutoffSq, NeighborVisitor visitor)
+	{
+		int start = cellStart[cell];
+		int end = cellStart[cell+1];
+		measure(x, y, z, start, end);
+		for(int k = 0; k < end - start; k++)
+		{
+			if(r2[k] < cutoffSq)
+				visitor.visit(cellAtoms[start + k], r2[k]);
+		}
+	}
+
+	/**
+	 * Stores the squared minimum-image distances from the position to the atoms in cell order from <code>start</code> up
+	 * to <code>end</code> in <code>r2</code>.
+	 */
+	private void measure(double x, double y, double z, int start, int end)
+	{
+		numMeasured += end - start;
+		if(triclinic)
+			DistanceKernel.squaredDistances(x, y, z, sortedX, sortedY, sortedZ, start, end, matrix, inverse, r2);
+		else
+			DistanceKernel.squaredDistances(x, y, z, sortedX, sortedY, sortedZ, start, end, xBox, yBox, zBox,
+					xInverse, yInverse, zInverse, r2);
+	}
+
+	/**
+	 * Finds the cells that pair with <code>cell</code> from its side of the half shell.
+	 * @return	The number of cells stored in <code>forward</code>, which is 0 when every atom is in a single cell
+	 */
+	private int forwardCells(int cell, int[] forward)
+	{
+		if(allPairs)
+			return 0;
+		int cx = cell/(ny*nz);
+		int cy = (cell/nz) % ny;
+		int cz = cell % nz;
+		for(int h = 0; h < HALF_SHELL.length; h++)
+		{
+			forward[h] = (wrap(cx + HALF_SHELL[h][0], nx)*ny + wrap(cy + HALF_SHELL[h][1], ny))*nz
+					+ wrap(cz + HALF_SHELL[h][2], nz);
+		}
+		return HALF_SHELL.length;
+	}
+
+	/**
+	 * Adds two to the shell of each distance from the position to the atoms in cell order from <code>start</code> up to
+	 * <code>end</code>, once for each atom of the pair.
+	 */
+	private void tallyBlock(double x, double y, double z, int start, int end, double cutoffSq, double increment,
+			int[] distances)
+	{
+		measure(x, y, z, start, end);
+		DistanceKernel.tally(r2, end - start, cutoffSq, increment, distances, 0, distances.length, 2, shells);
+	}
+
+	private void tallyCell(double x, double y, double z, int cell, int selfPosition, double cutoffSq, double increment,
+			int[] distances)
+	{
+		int start = cellStart[cell];
+		int end = cellStart[cell+1];
+		measure(x, y, z, start, end);
+		if(selfPosition >= start && selfPosition < end)
+			r2[selfPosition - start] = Double.POSITIVE_INFINITY;
+		DistanceKernel.tally(r2, end - start, cutoffSq, increment, distances, 0, distances.length, 1, shells);
+	}
+
+	private void ensureCapacity(int size)
+	{
+		if(xCords == null || xCords.length < size)
+		{
+			xCords = new double[size];
+			yCords = new double[size];
+			zCords = new double[size];
+			cellAtoms = new int[size];
+			sortedX = new double[size];
+			sortedY = new double[size];
+			sortedZ = new double[size];
+			sortedPosition = new int[size];
+			r2 = new double[size];
+			shells = new long[size];
+		}
+	}
+
+	/**
+	 * @param axis	0, 1 or 2 for the cells along x, y and z, or along the fractional coordinates of a triclinic box
+	 * @return		The cell along one side holding the position, after wrapping it into the box
+	 */
+	private int cellAlong(int axis, double x, double y, double z)
+	{
+		if(triclinic)
+		{
+			double fraction;
+			if(axis == 0)
+				fraction = inverse[0]*x + inverse[1]*y + inverse[2]*z;
+			else if(axis == 1)
+				fraction = inverse[3]*y + inverse[4]*z;
+			else
+				fraction = inverse[5]*z;
+			return clampCell((int) ((fraction - Math.floor(fraction)) * cellsAlong(axis)), cellsAlong(axis));
+		}
+		if(axis == 0)
+			return cellOf(x, xBox, xInverse, nx);
+		if(axis == 1)
+			return cellOf(y, yBox, yInverse, ny);
+		return cellOf(z, zBox, zInverse, nz);
+	}
+
+	private int cellsAlong(int axis)
+	{
+		return (axis == 0) ? nx : (axis == 1) ? ny : nz;
+	}
+
+	/**
+	 * @return	The cell along one side holding the coordinate, after wrapping it into the box
+	 */
+	private static int cellOf(double cord, double box, double inverse, int numCells)
+	{
+		double wrapped = cord - Math.floor(cord*inverse) * box;
+		return clampCell((int) (wrapped*inverse * numCells), numCells);
+	}
+
+	/**
+	 * Keeps a cell computed from a rounded coordinate inside the grid.
+	 */
+	private static int clampCell(int cell, int numCells)
+	{
+		if(cell >= numCells)
+			return numCells - 1;
+		if(cell < 0)
+			return 0;
+		return cell;
+	}
+
+	private static int wrap(int cell, int numCells)
+	{
+		if(cell < 0)
+			return cell + numCells;
+		if(cell >= numCells)
+			return cell - numCells;
+		return cell;
+	}
+}
@@ -0,0 +1,206 @@
+package calculations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import core.PackedSystem;
+
+/**
+ * Counts how many atoms of one type lie within a fixed radius of each atom of another type, and tallies the
+ * distribution of these coordination numbers over every configuration of a trajectory. Neighbors are found with a
+ * <code>CellList</code>, using the same minimum-image convention as <code>RadialDF</code>.
+ * <p>
+ * Each thread tallies into its own histogram, which are summed in <code>finish</code>.
+ * @see CellList
+ */
+public class CoordinationAnalysis implements FrameAnalysis, PairCounting
+{
+	private String centerAtom;
+	private String otherAtom;
+	private double radius;
+
+	/**The histogram of every thread that has accepted a configuration*/
+	private List<Counter> shards;
+	private ThreadLocal<Counter> counter;
+
+	/**The number of central atoms with each coordination number, summed over every configuration*/
+	private long[] histogram;
+	/**The number of distances measured by every thread*/
+	private LongAdder numMeasured;
+
+	/**
+	 * @param centerAtom	The type of the atoms whose neighbors are counted
+	 * @param otherAtom		The type of the neighboring atoms
+	 * @param radius		The distance within which an atom counts as a neighbor, usually the first minimum of the RDF
+	 */
+	public CoordinationAnalysis(String centerAtom, String otherAtom, double radius)
+	{
+		this.centerAtom = centerAtom;
+		this.otherAtom = otherAtom;
+		this.radius = radius;
+		shards = new ArrayList<Counter>();
+		counter = new ThreadLocal<Counter>();
+		histogram = new long[0];
+		numMeasured = new LongAdder();
+	}
+
+	@Override
+	public void accept(int frame, PackedSystem ps)
+	{
+		Counter c = counter.get();
+		if(c == null)
+		{
+			c = new Counter();
+			counter.set(c);
+			synchronized(shards)
+			{
+				shards.add(c);
+			}
+		}
+		c.count(ps);
+	}
+
+	@Override
+	public void finish()
+	{
+		synchronized(shards)
+		{
+			int size = 0;
+			for(Counter c : shards)
+			{
+				size = Math.max(size, c.histogram.length);
+			}
+			long[] sum = new long[size];
+			for(Counter c : shards)
+			{
+				for(int n = 0; n < c.histogram.length; n++)
+				{
+					sum[n] += c.histogram[n];
+				}
+			}
+			//Leave out coordination numbers above the highest one seen
+			while(size > 0 && sum[size-1] == 0)
+			{
+				size--;
+			}
+			histogram = Arrays.copyOf(sum, size);
+		}
+	}
+
+	/**
+	 * @return	The number of central atoms with each coordination number, summed over every configuration.
+	 * 			Only available after <code>finish</code>.
+	 */
+	public long[] getHistogram()
+	{
+		return histogram;
+	}
+
+	/**
+	 * @return	The average number of neighbors of a central atom. Only available after <code>finish</code>.
+	 */
+	public double getMeanCoordination()
+	{
+		long numCenters = 0;
+		long numNeighbors = 0;
+		for(int n = 0; n < histogram.length; n++)
+		{
+			numCenters += histogram[n];
+			numNeighbors += n*histogram[n];
+		}
+		return numCenters == 0 ? 0 : (double) numNeighbors/numCenters;
+	}
+
+	@Override
+	public long getNumMeasured()
+	{
+		return numMeasured.sum();
+	}
+
+	public double getRadius()
+	{
+		return radius;
+	}
+
+	/**
+	 * Counts the neighbors of every central atom in the configurations accepted by one thread.
+	 */
+	private class Counter implements CellList.NeighborVisitor
+	{
+		long[] histogram = new long[16];
+		CellList cells;
+		double[] otherX = new double[0], otherY = new double[0], otherZ = new double[0];
+		/**The index of the central atom among the other atoms, or -1 if the types differ*/
+		int self;
+		int numNeighbors;
+
+		void count(PackedSystem ps)
+		{
+			int centerType = ps.findType(centerAtom);
+			int otherType = ps.findType(otherAtom);
+			if(centerType < 0 || otherType < 0)
+				return;
+
+			int size = ps.size();
+			if(otherX.length < size)
+			{
+				otherX = new double[size];
+				otherY = new double[size];
+				otherZ = new double[size];
+			}
+			double[] x = ps.getXCords();
+			double[] y = ps.getYCords();
+			double[] z = ps.getZCords();
+			int[] types = ps.getTypeIndexes();
+			int numOthers = 0;
+			for(int i = 0; i < size; i++)
+			{
+				if(types[i] == otherType)
+				{
+					otherX[numOthers] = x[i];
+					otherY[numOthers] = y[i];
+					otherZ[numOthers] = z[i];
+					numOthers++;
+				}
+			}
+
+			//The box can change between configurations of a constant pressure simulation
+			if(cells == null)
+				cells = new CellList(ps.getBoxMatrix(), radius);
+			else
+				cells.fitBox(ps.getBoxMatrix());
+			cells.build(otherX, otherY, otherZ, numOthers);
+
+			int other = 0;
+			for(int i = 0; i < size; i++)
+			{
+				if(types[i] != centerType)
+				{
+					if(types[i] == otherType)
+						other++;
+					continue;
+				}
+				//An atom is not its own neighbor
+				self = (centerType == otherType) ? other++ : -1;
+				numNeighbors = 0;
+				cells.forEachNeighbor(x[i], y[i], z[i], this);
+				if(numNeighbors >= histogram.length)
+				{
+					long[] grown = new long[Math.max(2*histogram.length, numNeighbors + 1)];
+					System.arraycopy(histogram, 0, grown, 0, histogram.length);
+					histogram = grown;
+				}
+				histogram[numNeighbors]++;
+			}
+			numMeasured.add(cells.takeNumMeasured());
+		}
+
+		@Override
+		public void visit(int other, double rSquared) {
+			if(other != self)
+				numNeighbors++;
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package calculations;
+
+/**
+ * Computes minimum-image distances from one position to a contiguous block of packed coordinates. The kernel is
+ * written as straight-line loops over primitive arrays, without branches, calls or object access, so the JIT can
+ * compile the distance loop to SIMD instructions. Tallying the results is left to a second loop, so the distance
+ * loop is not held back by scattered histogram updates.
+ * <p>
+ * Uses the same minimum-image convention as <code>RadialDF</code>, except that <code>Math.rint</code> replaces
+ * <code>Math.round</code>, which the JIT cannot vectorize. The two only choose different images for a separation of
+ * exactly half a box, where both images are the same distance away. Multiplying by an inverse box length instead of
+ * dividing by the box length can likewise only change the image chosen within one rounding error of half a box.
+ * <p>
+ * When the JVM is started with <code>--add-modules jdk.incubator.vector</code>, the distance loops and the shells of the
+ * tally run on <code>VectorDistanceKernel</code>, which gives identical results using explicit vector instructions. Otherwise the
+ * scalar loops are used, which the JIT may still vectorize itself.
+ * @see CellList
+ */
+public final class DistanceKernel
+{
+	/**True if the incubating Vector API is available to this JVM*/
+	static final boolean VECTOR_API = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+	private DistanceKernel()
+	{
+	}
+
+	/**
+	 * Stores the squared minimum-image distance from (x, y, z) to every atom from <code>from</code> up to but not
+	 * including <code>to</code> in <code>r2[0]</code> to <code>r2[to - from - 1]</code>.
+	 * @param x			The x-coordinate of the position
+	 * @param y			The y-coordinate of the position
+	 * @param z			The z-coordinate of the position
+	 * @param xs		The x-coordinates of the atoms
+	 * @param ys		The y-coordinates of the atoms
+	 * @param zs		The z-coordinates of the atoms
+	 * @param from		The first atom of the block
+	 * @param to		The atom to stop before
+	 * @param xBox		The length of the box along x
+	 * @param yBox		The length of the box along y
+	 * @param zBox		The length of the box along z
+	 * @param r2		Receives the squared distances. Must hold at least <code>to - from</code> values.
+	 */
+	public static void squaredDistances(double x, double y, double z, double[] xs, double[] ys, double[] zs,
+			int from, int to, double xBox, double yBox, double zBox, double[] r2)
+	{
+		squaredDistances(x, y, z, xs, ys, zs, from, to, xBox, yBox, zBox, 1.0/xBox, 1.0/yBox, 1.0/zBox, r2);
+	}
+
+	/**
+	 * Stores the squared minimum-image distance from (x, y, z) to every atom from <code>from</code> up to but not
+	 * including <code>to</code> in <code>r2[0]</code> to <code>r2[to - from - 1]</code>, using inverse box lengths that
+	 * were computed once for the configuration, so no distance needs a division.
+	 * @param xInverse	One over the length of the box along x
+	 * @param yInverse	One over the length of the box along y
+	 * @param zInverse	One over the length of the box along z
+	 * @see #squaredDistances(double, double, double, double[], double[], double[], int, int, double, double, double, double[])
+	 */
+	public static void squaredDistances(double x, double y, double z, double[] xs, double[] ys, double[] zs,
+			int from, int to, double xBox, double yBox, double zBox, double xInverse, double yInverse, double zInverse,
+			double[] r2)
+	{
+		int k = VECTOR_API ? VectorDistanceKernel.squaredDistances(x, y, z, xs, ys, zs, from, to, xBox, yBox, zBox,
+				xInverse, yInverse, zInverse, r2) : 0;
+		scalarSquaredDistances(k, x, y, z, xs, ys, zs, from, to, xBox, yBox, zBox, xInverse, yInverse, zInverse, r2);
+	}
+
+	/**
+	 * The scalar loop for an orthorhombic box, starting at the <code>k</code>th atom of the block.
+	 */
+	static void scalarSquaredDistances(int k, double x, double y, double z, double[] xs, double[] ys, double[] zs,
+			int from, int to, double xBox, double yBox, double zBox, double xInverse, double yInverse, double zInverse,
+			double[] r2)
+	{
+		int n = to - from;
+		for(; k < n; k++)
+		{
+			double xDist = xs[from + k] - x;
+			double yDist = ys[from + k] - y;
+			double zDist = zs[from + k] - z;
+			xDist = Math.rint(xDist*xInverse) * xBox - xDist;
+			yDist = Math.rint(yDist*yInverse) * yBox - yDist;
+			zDist = Math.rint(zDist*zInverse) * zBox - zDist;
+			r2[k] = xDist*xDist + yDist*yDist + zDist*zDist;
+		}
+	}
+
+	/**
+	 * Stores the squared minimum-image distance from (x, y, z) to every atom from <code>from</code> up to but not
+	 * including <code>to</code> in <code>r2[0]</code> to <code>r2[to - from - 1]</code>, for a triclinic box. Each
+	 * separation is turned into fractional coordinates, the nearest whole box is removed along each edge, and the result is
+	 * turned back into Cartesian coordinates, as in <code>BoxMatrix.squaredDistance</code>.
+	 * @param matrix	The cell matrix of the box, from <code>BoxMatrix.getMatrix</code>
+	 * @param inverse	The inverse cell matrix of the box, from <code>BoxMatrix.getInverse</code>
+	 * @see core.BoxMatrix
+	 */
+	public static void squaredDistances(double x, double y, double z, double[] xs, double[] ys, double[] zs,
+			int from, int to, double[] matrix, double[] inverse, double[] r2)
+	{
+		int k = VECTOR_API ? VectorDistanceKernel.squaredDistances(x, y, z, xs, ys, zs, from, to, matrix, inverse, r2) : 0;
+		scalarSquaredDistances(k, x, y, z, xs, ys, zs, from, to, matrix, inverse, r2);
+	}
+
+	/**
+	 * The scalar loop for a triclinic box, starting at the <code>k</code>th atom of the block.
+	 */
+	static void scalarSquaredDistances(int k, double x, double y, double z, double[] xs, double[] ys, double[] zs,
+			int from, int to, double[] matrix, double[] inverse, double[] r2)
+	{
+		double ax = matrix[0], bx = matrix[1], cx = matrix[2], by = matrix[3], cy = matrix[4], cz = matrix[5];
+		double ixx = inverse[0], ixy = inverse[1], ixz = inverse[2], iyy = inverse[3], iyz = inverse[4], izz = inverse[5];
+		int n = to - from;
+		for(; k < n; k++)
+		{
+			double xDist = xs[from + k] - x;
+			double yDist = ys[from + k] - y;
+			double zDist = zs[from + k] - z;
+			double sx = ixx*xDist + ixy*yDist + ixz*zDist;
+			double sy = iyy*yDist + iyz*zDist;
+			double sz = izz*zDist;
+			sx -= Math.rint(sx);
+			sy -= Math.rint(sy);
+			sz -= Math.rint(sz);
+			xDist = ax*sx + bx*sy + cx*sz;
+			yDist = by*sy + cy*sz;
+			zDist = cz*sz;
+			r2[k] = xDist*xDist + yDist*yDist + zDist*zDist;
+		}
+	}
+
+	/**
+	 * Adds <code>weight</code> to the shell of each distance closer than the cutoff, in a histogram stored inside a
+	 * larger array. Shells are <code>increment</code> wide, and distances past the last shell are ignored.
+	 * <p>
+	 * With the Vector API, the cutoff test and the shell of each distance are found for whole vectors of distances at
+	 * once and stored in <code>shells</code>, leaving only the tail of the block to the scalar loop. The additions stay
+	 * scalar, since several distances may fall in the same shell.
+	 * @param r2			Squared distances from <code>squaredDistances</code>
+	 * @param n				The number of distances
+	 * @param cutoffSq		The squared cutoff
+	 * @param increment		The radius of each shell
+	 * @param histograms	Holds the histogram
+	 * @param offset		The index of the histogram's first shell
+	 * @param numShells		The number of shells in the histogram
+	 * @param weight		The amount to add for each distance
+	 * @param shells		Scratch space for the shells. Must hold at least <code>n</code> values.
+	 */
+	public static void tally(double[] r2, int n, double cutoffSq, double increment, int[] histograms, int offset,
+			int numShells, int weight, long[] shells)
+	{
+		int k = 0;
+		if(VECTOR_API)
+		{
+			k = VectorDistanceKernel.shells(r2, n, cutoffSq, increment, numShells, shells);
+			for(int i = 0; i < k; i++)
+			{
+				if(shells[i] >= 0)
+					histograms[offset + (int) shells[i]] += weight;
+			}
+		}
+		for(; k < n; k++)
+		{
+			if(r2[k] < cutoffSq)
+			{
+				int radiusLayer = (int)(Math.sqrt(r2[k])/increment);
+				if(radiusLayer < numShells)
+					histograms[offset + radiusLayer] += weight;
+			}
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package calculations;
+
+import core.PackedSystem;
+
+/**
+ * An analysis done on every configuration of a trajectory, followed by post-analysis over the entire set of
+ * configurations. Analyses are registered with an <code>AnalysisPipeline</code>, which hands each configuration to
+ * every analysis, so several analyses share a single pass over the file.
+ * <p>
+ * A parallel pipeline calls <code>accept</code> from several threads at once, with configurations in no particular
+ * order, so an analysis should keep per-thread state and merge it in <code>finish</code>, the way
+ * <code>ParallelRDF</code> does.
+ * @see AnalysisPipeline
+ */
+public interface FrameAnalysis
+{
+	/**
+	 * Analyzes one configuration. The configuration must not be modified, and must not be kept after returning, since
+	 * the source may reuse it for a later configuration.
+	 * @param frame		The index of the configuration in the trajectory, starting at 0
+	 * @param ps		The configuration
+	 */
+	void accept(int frame, PackedSystem ps);
+
+	/**
+	 * Does the post-analysis once every configuration has been accepted.
+	 */
+	void finish();
+}
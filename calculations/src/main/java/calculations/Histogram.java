@@ -0,0 +1,124 @@
+package calculations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A histogram of <code>long</code> counts that many threads can add to at once without contending. Each thread adds
+ * to its own shard, created the first time the thread touches the histogram, and the shards are added together by
+ * <code>sum</code>. Since the counts are integers, the sum is identical however the additions were split between
+ * threads.
+ * <p>
+ * Tight loops should add to the array returned by <code>local</code>, or tally a configuration into a plain
+ * <code>int[]</code> and hand it to <code>drain</code> once the configuration is done. The per-configuration counts
+ * then stay small, while the <code>long</code> totals do not overflow on long trajectories of large systems.
+ * @see WeightedHistogram
+ */
+public class Histogram
+{
+	private int numBins;
+
+	/**The shard of every thread that has added to the histogram*/
+	private List<long[]> shards;
+	private ThreadLocal<long[]> shard;
+
+	/**
+	 * @param numBins	The number of bins
+	 */
+	public Histogram(int numBins)
+	{
+		this.numBins = numBins;
+		shards = new ArrayList<long[]>();
+		shard = new ThreadLocal<long[]>();
+	}
+
+	/**
+	 * @return	The counts of the current thread, which only the current thread may change
+	 */
+	public long[] local()
+	{
+		long[] counts = shard.get();
+		if(counts == null)
+		{
+			counts = new long[numBins];
+			shard.set(counts);
+			synchronized(shards)
+			{
+				shards.add(counts);
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Adds one to a bin.
+	 * @param bin	The bin
+	 */
+	public void add(int bin)
+	{
+		local()[bin]++;
+	}
+
+	/**
+	 * @param bin		The bin
+	 * @param count		The amount to add to the bin
+	 */
+	public void add(int bin, long count)
+	{
+		local()[bin] += count;
+	}
+
+	/**
+	 * Adds every count to the bin with the same index, then sets the counts back to zero so they can be reused.
+	 * @param counts	Holds no more than <code>getNumBins</code> counts
+	 */
+	public void drain(int[] counts)
+	{
+		long[] local = local();
+		for(int i = 0; i < counts.length; i++)
+		{
+			local[i] += counts[i];
+			counts[i] = 0;
+		}
+	}
+
+	/**
+	 * Should only be called once every thread has finished adding to the histogram.
+	 * @return	The counts of every thread added together
+	 */
+	public long[] sum()
+	{
+		long[] total = new long[numBins];
+		synchronized(shards)
+		{
+			for(long[] counts : shards)
+			{
+				for(int i = 0; i < numBins; i++)
+				{
+					total[i] += counts[i];
+				}
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Sets every bin of every thread back to zero. Should not be called while threads are adding to the histogram.
+	 */
+	public void clear()
+	{
+		synchronized(shards)
+		{
+			for(long[] counts : shards)
+			{
+				Arrays.fill(counts, 0);
+			}
+		}
+	}
+
+	public int getNumBins()
+	{
+		return numBins;
+	}
+}
@@ -0,0 +1,15 @@
+package calculations;
+
+/**
+ * An analysis that measures distances between pairs of atoms and counts how many it has measured, so a run can report
+ * pair distances per second. The count includes distances beyond the cutoff that were measured and then left out, since
+ * those cost as much as the rest.
+ * @see core.RunMetrics
+ */
+public interface PairCounting
+{
+	/**
+	 * @return	The number of distances measured so far, by every thread
+	 */
+	long getNumMeasured();
+}
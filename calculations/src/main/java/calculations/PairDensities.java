@@ -0,0 +1,108 @@
+package calculations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keeps the number of central atoms times the density of the other atoms for every configuration of a trajectory,
+ * which is the number of distances an RDF shell of unit volume would hold if the atoms were spread evenly. Summing it
+ * over the configurations normalizes an RDF correctly even when the box and its volume change between configurations,
+ * as in a constant pressure (NPT) simulation. For a constant volume simulation the result is the same as normalizing
+ * with the density of any single configuration.
+ * <p>
+ * Configurations may be added from several threads in any order. They are summed in order of their frame index, so the
+ * result does not depend on how the configurations were split between threads.
+ * @see RDFAnalysis
+ */
+public class PairDensities
+{
+	/**The frame index, pair density and volume of each configuration*/
+	private List<double[]> frames;
+
+	public PairDensities()
+	{
+		frames = new ArrayList<double[]>();
+	}
+
+	/**
+	 * @param frame			The index of the configuration
+	 * @param numCenters	The number of central atoms
+	 * @param numOthers		The number of other atoms
+	 * @param volume		The volume of the box
+	 */
+	public synchronized void add(int frame, int numCenters, int numOthers, double volume)
+	{
+		frames.add(new double[] {frame, (double) numCenters*numOthers/volume, volume});
+	}
+
+	/**
+	 * @return	The pair density of every configuration added together, in order of their frame index
+	 */
+	public synchronized double getSum()
+	{
+		sortFrames();
+		double sum = 0;
+		for(double[] f : frames)
+		{
+			sum += f[1];
+		}
+		return sum;
+	}
+
+	/**
+	 * @return	The average volume of the box over every configuration, or 0 if there are none
+	 */
+	public synchronized double getMeanVolume()
+	{
+		if(frames.isEmpty())
+			return 0;
+		sortFrames();
+		double sum = 0;
+		for(double[] f : frames)
+		{
+			sum += f[2];
+		}
+		return sum/frames.size();
+	}
+
+	/**
+	 * Normalizes the relative density for each RDF shell to the density of every configuration that was added.
+	 * @param distances		The number of distances tallied in each RDF shell over the same configurations
+	 * @param increment		The radius of each shell
+	 * @return				An array containing the relative density for each RDF shell, all 0 if no configurations
+	 * 						were added
+	 */
+	public double[] normalize(long[] distances, double increment)
+	{
+		double[] normalDistances = new double[distances.length];
+		double sum = getSum();
+		if(sum == 0)
+			return normalDistances;
+		for(int i = 0; i < normalDistances.length; i++)
+		{
+			double volume = RadialDF.getShellVolume(i+1, increment);
+			normalDistances[i] = distances[i]/volume/sum;
+		}
+		return normalDistances;
+	}
+
+	/**
+	 * @return	The number of configurations added
+	 */
+	public synchronized int size()
+	{
+		return frames.size();
+	}
+
+	private void sortFrames()
+	{
+		Collections.sort(frames, new Comparator<double[]>() {
+			@Override
+			public int compare(double[] a, double[] b) {
+				return Double.compare(a[0], b[0]);
+			}
+		});
+	}
+}
@@ -0,0 +1,117 @@
+package calculations;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import core.PackedSystem;
+
+/**
+ * Tallies RDF shells for configurations given on any number of threads. Each thread keeps its own
+ * <code>RadialDF</code> and tallies into its own shard of a shared <code>Histogram</code>, so configurations never
+ * contend for a shared array. The shards are added together in <code>finish</code>. Since the tallies are integer
+ * counts, the merged result is identical to tallying every configuration on a single thread, regardless of the order
+ * the configurations were processed in.
+ * @see RadialDF
+ */
+public class ParallelRDF
+{
+	/**The pair of atom types to tally*/
+	private String centerAtom, otherAtom;
+	private double increment;
+	private double cutoff;
+	private int numShells;
+
+	/**The shell counts of every configuration, with a shard for each thread that has tallied one*/
+	private Histogram histogram;
+	private ThreadLocal<Worker> worker;
+	/**The number of distances measured by every thread*/
+	private LongAdder numMeasured;
+
+	/**
+	 * @param centerAtom	The central atom type for a RDF calculation
+	 * @param otherAtom		The type of atom that will be measured for the distance from the centerAtom
+	 * @param increment		The radius of each shell used in the RDF
+	 * @param cutoff		The maximum distance that the RDF function will calculate.
+	 * @param numShells		The number of shells in each histogram
+	 */
+	public ParallelRDF(String centerAtom, String otherAtom, double increment, double cutoff, int numShells)
+	{
+		this.centerAtom = centerAtom;
+		this.otherAtom = otherAtom;
+		this.increment = increment;
+		this.cutoff = cutoff;
+		this.numShells = numShells;
+
+		histogram = new Histogram(numShells);
+		worker = new ThreadLocal<Worker>();
+		numMeasured = new LongAdder();
+	}
+
+	/**
+	 * Tallies a packed configuration on the calling thread, into the histogram kept for that thread. May be called from
+	 * several threads at once.
+	 * @param currentSystem		The configuration to tally
+	 */
+	public void tally(PackedSystem currentSystem)
+	{
+		Worker w = getWorker();
+		w.tally(currentSystem);
+	}
+
+	/**
+	 * @return	The number of distances measured so far by every thread
+	 */
+	public long getNumMeasured()
+	{
+		return numMeasured.sum();
+	}
+	
+	/**
+	 * Adds the histograms of every thread into <code>distances</code>. Every call to <code>tally</code> must have
+	 * returned first.
+	 * @param distances		Keeps track of the number of distance calculations that falls within each RDF shell.
+	 */
+	public void finish(long[] distances)
+	{
+		long[] sum = histogram.sum();
+		for(int i = 0; i < sum.length && i < distances.length; i++)
+		{
+			distances[i] += sum[i];
+		}
+	}
+
+	/**
+	 * @return	The worker of the current thread, created the first time the thread tallies a configuration
+	 */
+	private Worker getWorker()
+	{
+		Worker w = worker.get();
+		if(w == null)
+		{
+			w = new Worker();
+			worker.set(w);
+		}
+		return w;
+	}
+	
+	/**
+	 * The calculator owned by one thread, and the shell counts of the configuration it is tallying.
+	 */
+	private class Worker
+	{
+		RadialDF calc;
+		/**Only holds one configuration at a time, so the counts stay small*/
+		int[] distances;
+
+		public Worker(){
+			calc = new RadialDF(null, null, increment);
+			distances = new int[numShells];
+		}
+
+		void tally(PackedSystem currentSystem)
+		{
+			calc.systemRDFCalculation(centerAtom, otherAtom, currentSystem, distances, cutoff);
+			histogram.drain(distances);
+			numMeasured.add(calc.takeNumMeasured());
+		}
+	}
+}
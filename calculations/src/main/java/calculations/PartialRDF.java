@@ -0,0 +1,335 @@
+package calculations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import core.PackedSystem;
+
+/**
+ * Tallies several partial radial distribution functions, one per pair of atom types, from a single neighbor search
+ * over each configuration. The atoms of every requested type are sorted into one <code>CellList</code>, and each pair
+ * of atoms within the cutoff is measured once and counted in every partial RDF it belongs to. Computing OW-OW, OW-HW
+ * and HW-HW this way costs about as much as the largest of them alone.
+ * <p>
+ * Each partial RDF is normalized with the atom counts and box volume of every configuration through
+ * <code>PairDensities</code>, the same way as <code>RDFAnalysis</code>, so a partial RDF between the types a and b matches
+ * the RDF <code>RDFAnalysis</code> gives with a as the central atom and b as the other atom.
+ * Each thread tallies into its own shard of a <code>Histogram</code>, which are summed in <code>finish</code>.
+ * <p>
+ * Each configuration's partial RDFs are also normalized by that configuration alone and summed, with their squares, in
+ * a <code>WeightedHistogram</code>. The spread of these RDFs between configurations gives the standard error of each
+ * shell.
+ * @see RadialDF
+ * @see CellList
+ */
+public class PartialRDF implements FrameAnalysis, PairCounting
+{
+	private double increment;
+	private double cutoff;
+	private int numShells;
+
+	/**The types of atoms used by any partial RDF, and the two types of each partial RDF as indexes into it*/
+	private List<String> typeNames;
+	private List<int[]> pairs;
+
+	/**Every partial RDF's shells, one after another, with a shard for each thread that has accepted a configuration*/
+	private Histogram histogram;
+	private ThreadLocal<Worker> worker;
+	/**Each configuration's own RDFs and their squares, summed in the same layout as the histogram*/
+	private WeightedHistogram frameRDFs, frameSquares;
+	/**The volume of each shell*/
+	private double[] shellVolumes;
+	/**Guards the creation of the histograms and the densities*/
+	private Object lock;
+
+	/**The atom counts and volume of every configuration for each partial RDF, used for normalizing*/
+	private PairDensities[] densities;
+	private AtomicInteger numGoodIterations;
+	/**The number of distances measured by every thread*/
+	private LongAdder numMeasured;
+
+	private long[][] distances;
+	private double[][] standardErrors;
+
+	/**
+	 * @param increment		The radius of each shell used in the RDF
+	 * @param cutoff		The maximum distance that the RDF function will calculate.
+	 */
+	public PartialRDF(double increment, double cutoff)
+	{
+		this.increment = increment;
+		this.cutoff = cutoff;
+		numShells = (int) Math.floor(cutoff/increment);
+		shellVolumes = new double[numShells];
+		for(int i = 0; i < numShells; i++)
+		{
+			shellVolumes[i] = RadialDF.getShellVolume(i+1, increment);
+		}
+		typeNames = new ArrayList<String>();
+		pairs = new ArrayList<int[]>();
+		lock = new Object();
+		worker = new ThreadLocal<Worker>();
+		numGoodIterations = new AtomicInteger();
+		numMeasured = new LongAdder();
+	}
+
+	/**
+	 * Requests a partial RDF. Must be called before any configuration is accepted.
+	 * @param centerAtom	The central atom type
+	 * @param otherAtom		The type of atom that will be measured for the distance from the centerAtom
+	 * @return				The index of the partial RDF
+	 */
+	public int addPair(String centerAtom, String otherAtom)
+	{
+		int[] pair = {typeSlot(centerAtom), typeSlot(otherAtom)};
+		for(int p = 0; p < pairs.size(); p++)
+		{
+			if(pairs.get(p)[0] == pair[0] && pairs.get(p)[1] == pair[1])
+				return p;
+		}
+		pairs.add(pair);
+		return pairs.size() - 1;
+	}
+
+	@Override
+	public void accept(int frame, PackedSystem ps)
+	{
+		Worker w = worker.get();
+		if(w == null)
+		{
+			synchronized(lock)
+			{
+				//The number of partial RDFs is fixed once the first configuration arrives
+				if(histogram == null)
+					newHistograms();
+				w = new Worker();
+			}
+			worker.set(w);
+		}
+		w.tally(ps);
+
+		numGoodIterations.incrementAndGet();
+		double volume = ps.getVolume();
+		for(int p = 0; p < pairs.size(); p++)
+		{
+			densities[p].add(frame, w.counts[pairs.get(p)[0]], w.counts[pairs.get(p)[1]], volume);
+		}
+	}
+
+	@Override
+	public void finish()
+	{
+		if(histogram == null)
+			newHistograms();
+		long[] sum = histogram.sum();
+		double[] rdfSum = frameRDFs.sum();
+		double[] squareSum = frameSquares.sum();
+		int n = numGoodIterations.get();
+		distances = new long[pairs.size()][];
+		standardErrors = new double[pairs.size()][numShells];
+		for(int p = 0; p < pairs.size(); p++)
+		{
+			distances[p] = Arrays.copyOfRange(sum, p*numShells, (p + 1)*numShells);
+			//The sample variance of the configurations' RDFs, over the number of configurations
+			for(int i = 0; n > 1 && i < numShells; i++)
+			{
+				double mean = rdfSum[p*numShells + i]/n;
+				double variance = (squareSum[p*numShells + i] - n*mean*mean)/(n - 1);
+				standardErrors[p][i] = Math.sqrt(Math.max(variance, 0)/n);
+			}
+		}
+	}
+
+	/**
+	 * @param pair	The index of a partial RDF
+	 * @return		The relative density for each RDF shell. Only available after <code>finish</code>.
+	 */
+	public double[] getRDF(int pair)
+	{
+		return densities[pair].normalize(distances[pair], increment);
+	}
+
+	/**
+	 * @param pair	The index of a partial RDF
+	 * @return		The standard error of each RDF shell, from the spread of the RDFs of single configurations, or all
+	 * 				0 with fewer than two configurations. Only available after <code>finish</code>.
+	 */
+	public double[] getStandardError(int pair)
+	{
+		return standardErrors[pair];
+	}
+
+	/**
+	 * @param pair	The index of a partial RDF
+	 * @return		The number of distances tallied in each RDF shell. Only available after <code>finish</code>.
+	 */
+	public long[] getDistances(int pair)
+	{
+		return distances[pair];
+	}
+
+	public int getNumPairs()
+	{
+		return pairs.size();
+	}
+
+	public String getCenterAtom(int pair)
+	{
+		return typeNames.get(pairs.get(pair)[0]);
+	}
+
+	public String getOtherAtom(int pair)
+	{
+		return typeNames.get(pairs.get(pair)[1]);
+	}
+
+	public int getNumGoodIterations()
+	{
+		return numGoodIterations.get();
+	}
+
+	@Override
+	public long getNumMeasured()
+	{
+		return numMeasured.sum();
+	}
+
+	/**
+	 * Creates the histograms and densities once the number of partial RDFs is fixed.
+	 */
+	private void newHistograms()
+	{
+		histogram = new Histogram(pairs.size()*numShells);
+		frameRDFs = new WeightedHistogram(pairs.size()*numShells);
+		frameSquares = new WeightedHistogram(pairs.size()*numShells);
+		densities = new PairDensities[pairs.size()];
+		for(int p = 0; p < densities.length; p++)
+		{
+			densities[p] = new PairDensities();
+		}
+	}
+
+	private int typeSlot(String type)
+	{
+		int slot = typeNames.indexOf(type);
+		if(slot < 0)
+		{
+			typeNames.add(type);
+			slot = typeNames.size() - 1;
+		}
+		return slot;
+	}
+
+	/**
+	 * Sorts out the atoms of the requested types and tallies the configurations accepted by one thread.
+	 */
+	private class Worker
+	{
+		int numTypes = typeNames.size();
+		/**Every partial RDF's shells for the configuration being tallied, one after another*/
+		int[] histograms = new int[pairs.size()*numShells];
+		int[] pairTable;
+		int[] counts = new int[numTypes];
+
+		double[] x = new double[0], y = new double[0], z = new double[0];
+		int[] types = new int[0];
+		CellList cells;
+
+		Worker()
+		{
+			pairTable = new int[numTypes*numTypes];
+			Arrays.fill(pairTable, -1);
+			for(int p = 0; p < pairs.size(); p++)
+			{
+				pairTable[pairs.get(p)[0]*numTypes + pairs.get(p)[1]] = p;
+			}
+		}
+
+		void tally(PackedSystem ps)
+		{
+			//Look up which of the requested types each of the system's types is
+			int[] slots = new int[ps.getNumTypes()];
+			for(int t = 0; t < slots.length; t++)
+			{
+				slots[t] = typeNames.indexOf(ps.getTypeName(t));
+			}
+
+			int size = ps.size();
+			if(x.length < size)
+			{
+				x = new double[size];
+				y = new double[size];
+				z = new double[size];
+				types = new int[size];
+			}
+			double[] xCords = ps.getXCords();
+			double[] yCords = ps.getYCords();
+			double[] zCords = ps.getZCords();
+			int[] typeIndexes = ps.getTypeIndexes();
+			//Sort the atoms by type, which keeps each type together within every cell
+			Arrays.fill(counts, 0);
+			for(int i = 0; i < size; i++)
+			{
+				int slot = slots[typeIndexes[i]];
+				if(slot >= 0)
+					counts[slot]++;
+			}
+			int[] next = new int[numTypes];
+			int numAtoms = 0;
+			for(int t = 0; t < numTypes; t++)
+			{
+				next[t] = numAtoms;
+				numAtoms += counts[t];
+			}
+			for(int i = 0; i < size; i++)
+			{
+				int slot = slots[typeIndexes[i]];
+				if(slot < 0)
+					continue;
+				int k = next[slot]++;
+				x[k] = xCords[i];
+				y[k] = yCords[i];
+				z[k] = zCords[i];
+				types[k] = slot;
+			}
+
+			//Only atoms in neighboring cells can fall within the outermost shell
+			double radius = Math.max(cutoff, numShells*increment);
+			//The box can change between configurations of a constant pressure simulation
+			if(cells == null)
+				cells = new CellList(ps.getBoxMatrix(), radius);
+			else
+				cells.fitBox(ps.getBoxMatrix());
+			cells.build(x, y, z, numAtoms);
+			cells.tallyTypedPairs(types, numTypes, pairTable, increment, numShells, histograms);
+			numMeasured.add(cells.takeNumMeasured());
+			addFrameRDFs(ps.getVolume());
+			histogram.drain(histograms);
+		}
+
+		/**
+		 * Adds the partial RDFs of the configuration just tallied, normalized by its own atom counts and volume, and
+		 * their squares.
+		 */
+		void addFrameRDFs(double volume)
+		{
+			double[] sums = frameRDFs.local();
+			double[] squares = frameSquares.local();
+			for(int p = 0; p < pairs.size(); p++)
+			{
+				double pairDensity = (double) counts[pairs.get(p)[0]]*counts[pairs.get(p)[1]]/volume;
+				if(pairDensity == 0)
+					continue;
+				for(int i = 0; i < numShells; i++)
+				{
+					double g = histograms[p*numShells + i]/shellVolumes[i]/pairDensity;
+					sums[p*numShells + i] += g;
+					squares[p*numShells + i] += g*g;
+				}
+			}
+		}
+	}
+}
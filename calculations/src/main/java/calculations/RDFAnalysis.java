@@ -0,0 +1,108 @@
+package calculations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import core.PackedSystem;
+
+/**
+ * Tallies the radial distribution function between two atom types over every configuration of a trajectory.
+ * Each thread tallies into its own histogram through <code>ParallelRDF</code>, so the result is identical however
+ * many threads accepted configurations.
+ * <p>
+ * The RDF is normalized with the atom counts and box volume of every configuration through <code>PairDensities</code>,
+ * so trajectories whose box changes between configurations, such as constant pressure runs, are normalized correctly.
+ * @see RadialDF
+ * @see ParallelRDF
+ */
+public class RDFAnalysis implements FrameAnalysis, PairCounting
+{
+	private String centerAtom;
+	private String otherAtom;
+	private double increment;
+
+	private ParallelRDF calc;
+	private long[] distances;
+	private AtomicInteger numGoodIterations;
+
+	/**The atom counts and volume of every configuration, used for normalizing*/
+	private PairDensities densities;
+
+	private double[] normalizedDistances;
+
+	/**
+	 * @param centerAtom	The central atom type for a RDF calculation
+	 * @param otherAtom		The type of atom that will be measured for the distance from the centerAtom
+	 * @param increment		The radius of each shell used in the RDF
+	 * @param cutoff		The maximum distance that the RDF function will calculate.
+	 */
+	public RDFAnalysis(String centerAtom, String otherAtom, double increment, double cutoff)
+	{
+		this.centerAtom = centerAtom;
+		this.otherAtom = otherAtom;
+		this.increment = increment;
+		distances = new long[(int) Math.floor(cutoff/increment)];
+		calc = new ParallelRDF(centerAtom, otherAtom, increment, cutoff, distances.length);
+		numGoodIterations = new AtomicInteger();
+		densities = new PairDensities();
+	}
+
+	@Override
+	public void accept(int frame, PackedSystem ps)
+	{
+		calc.tally(ps);
+		numGoodIterations.incrementAndGet();
+		int numCenters = ps.countType(ps.findType(centerAtom));
+		int numOthers = ps.countType(ps.findType(otherAtom));
+		densities.add(frame, numCenters, numOthers, ps.getVolume());
+	}
+
+	@Override
+	public void finish()
+	{
+		calc.finish(distances);
+		normalizedDistances = densities.normalize(distances, increment);
+	}
+
+	/**
+	 * @return	The relative density for each RDF shell. Only available after <code>finish</code>.
+	 */
+	public double[] getRDF()
+	{
+		return normalizedDistances;
+	}
+
+	/**
+	 * @return	The number of distances tallied in each RDF shell. Only complete after <code>finish</code>.
+	 */
+	public long[] getDistances()
+	{
+		return distances;
+	}
+
+	/**
+	 * @return	The number of configurations tallied
+	 */
+	public int getNumGoodIterations()
+	{
+		return numGoodIterations.get();
+	}
+
+	/**
+	 * @return	The average volume of the box over every configuration tallied
+	 */
+	public double getMeanVolume()
+	{
+		return densities.getMeanVolume();
+	}
+
+	@Override
+	public long getNumMeasured()
+	{
+		return calc.getNumMeasured();
+	}
+
+	public double getIncrement()
+	{
+		return increment;
+	}
+}
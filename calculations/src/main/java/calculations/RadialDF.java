@@ -0,0 +1,422 @@
+package calculations;
+
+import core.Atom;
+import core.BoxMatrix;
+import core.BulkSystem;
+import core.PackedSystem;
+/**
+ * Calculates a radial distribution function for a system, and has support
+ * for averaging over many different configurations. Version 1.1 fixes a major bug in the calculation of the distances between atoms
+ * where it would only use the 0 indexed central atom after the current atom index reached the current atom size.
+ * Configurations can be given either as a <code>BulkSystem</code> or as a <code>PackedSystem</code>, which is read
+ * straight from its coordinate arrays.
+ * @author Trevor Fisher
+ * @version 1.1
+ *
+ */
+public class RadialDF 
+{
+	/**Used to determine number of RDF functions calculated*/
+	private BulkSystem centerAtoms;
+	/**Used for determining atomic density*/
+	private BulkSystem otherAtoms;
+	/**The radius of each shell used in the RDF*/
+	private double increment;
+	
+	/**The atom counts and box of the last selected configuration, used for normalizing*/
+	private int numCenters, numOthers;
+	private double xBox, yBox, zBox;
+	/**The inverse box lengths used by <code>periodicSquaredDistance</code>, computed once per configuration*/
+	private double xInverse, yInverse, zInverse;
+	/**The shape of the box, which may be triclinic*/
+	private BoxMatrix box;
+	
+	/**Coordinates of the selected atoms of a <code>PackedSystem</code>, reused between configurations*/
+	private double[] centerX = new double[0], centerY = new double[0], centerZ = new double[0];
+	private double[] otherX = new double[0], otherY = new double[0], otherZ = new double[0];
+	
+	/**Reused between configurations while the search radius stays the same*/
+	private CellList cells;
+	/**Whether the all-pairs calculations bin squared distances instead of taking square roots*/
+	private boolean squaredBinning;
+	/**The shell boundaries used for squared binning, rebuilt when the number of shells changes*/
+	private ShellBins bins;
+	
+	public RadialDF(BulkSystem centr, BulkSystem other, double increment)
+	{
+		this.centerAtoms = centr;
+		this.otherAtoms = other;
+		this.increment = increment;
+		if(centr != null)
+			setCenterAtomSystem(centr);
+		if(other != null)
+			numOthers = other.size();
+	}
+	
+	/**
+	 * Adds to an array of radial shells extending from <code>atomIndex</code> by checking every other atom.
+	 * <code>systemRDFCalculation</code> uses a <code>CellList</code> instead, which only checks nearby atoms.
+	 * @param atomIndex		The atom treated as r1
+	 * @param distances		Iterates each section by 1 if a distance falls within that shell radius
+	 */
+	public void rDFCalculation(int atomIndex, int[] distances)
+	{
+		ShellBins bins = getShellBins(distances.length);
+		//Ensure that the distance between itself is not calculated
+		for(int i = 0; i < atomIndex; i++)
+		{
+			int radiusLayer = shell(centerAtoms.get(atomIndex), otherAtoms.get(i), bins, distances.length);
+			if(radiusLayer >= 0)
+				distances[radiusLayer]++;
+		}
+		for(int i = atomIndex+1; i < otherAtoms.size(); i++)
+		{
+			int radiusLayer = shell(centerAtoms.get(atomIndex), otherAtoms.get(i), bins, distances.length);
+			if(radiusLayer >= 0)
+				distances[radiusLayer]++;
+		}
+	}
+	
+	/**
+	 * Adds every pair of atoms in the central system to an array of radial shells by checking every pair once and counting
+	 * it for both atoms. Gives the same tallies as calling <code>rDFCalculation</code> for every atom when the central
+	 * and other systems are the same, with half as many distance calculations.
+	 * @param distances		Iterates each section by 2 if a distance falls within that shell radius
+	 */
+	public void symmetricRDFCalculation(int[] distances)
+	{
+		ShellBins bins = getShellBins(distances.length);
+		for(int i = 0; i < centerAtoms.size(); i++)
+		{
+			Atom center = centerAtoms.get(i);
+			for(int j = i+1; j < centerAtoms.size(); j++)
+			{
+				int radiusLayer = shell(center, centerAtoms.get(j), bins, distances.length);
+				if(radiusLayer >= 0)
+					distances[radiusLayer] += 2;
+			}
+		}
+	}
+	
+	/**
+	 * Chooses how <code>rDFCalculation</code> and <code>symmetricRDFCalculation</code> find the shell of each distance.
+	 * Squared binning compares each squared distance with the precomputed boundaries of a <code>ShellBins</code>, so
+	 * pairs past the last shell are rejected without a square root or a division. Since most pairs of a large box are
+	 * past the last shell, this is faster for the all-pairs calculations. Both modes give identical shells.
+	 * <code>systemRDFCalculation</code> only measures nearby atoms, where a square root is faster than the table.
+	 * @param squaredBinning	True to bin squared distances, false to take square roots (the default)
+	 */
+	public void setSquaredBinning(boolean squaredBinning)
+	{
+		this.squaredBinning = squaredBinning;
+	}
+	
+	/**
+	 * @return	The shell boundaries for <code>numShells</code> shells, or null if square roots are taken
+	 */
+	private ShellBins getShellBins(int numShells)
+	{
+		if(!squaredBinning)
+			return null;
+		if(bins == null || bins.getNumShells() != numShells || bins.getIncrement() != increment)
+			bins = new ShellBins(increment, numShells, Double.POSITIVE_INFINITY);
+		return bins;
+	}
+	
+	/**
+	 * @param bins		The shell boundaries, or null to take the square root of the distance
+	 * @return			The shell holding the distance between two atoms, or -1 if it is past the last shell
+	 */
+	private int shell(Atom a, Atom b, ShellBins bins, int numShells)
+	{
+		if(bins != null)
+			return bins.bin(periodicSquaredDistance(a, b));
+		int radiusLayer = (int)(periodicDistance(a, b)/increment);
+		return (radiusLayer < numShells) ? radiusLayer : -1;
+	}
+	
+	/**
+	 * Calculates the RDF for each atom in the system. Neighbors are found with a <code>CellList</code>, so only
+	 * atoms in the cells surrounding each central atom are compared.
+	 * @param centerAtom		The central atom type for a RDF calculation
+	 * @param otherAtom			The type of atom that will be measured for the distance from the centerAtom
+	 * @param currentSystem		The current configuration holding all the atoms within it.
+	 * @param distances			Keeps track of the number of distance calculations that falls within each RDF shell.
+	 * @param cutoff			The maximum distance that the RDF function will calculate.
+	 * 							Note that this should be half the length of the smallest system box side at most.
+	 * @see CellList
+	 */
+	public void systemRDFCalculation(String centerAtom, String otherAtom, BulkSystem currentSystem, int[] distances, double cutoff)
+	{
+		selectAtoms(centerAtom, otherAtom, currentSystem);
+		
+		//Only atoms in neighboring cells can fall within the outermost shell
+		CellList cells = getCellList(Math.max(cutoff, distances.length*increment));
+		cells.build(otherAtoms);
+		
+		//When both types are the same, each pair only needs to be measured once
+		if(centerAtom.equals(otherAtom))
+		{
+			cells.tallyPairs(increment, distances);
+			return;
+		}
+		for(int i = 0; i < centerAtoms.size(); i++)
+		{
+			//Increments number in each distance shell
+			Atom center = centerAtoms.get(i);
+			cells.tallyNeighbors(center.getXCord(), center.getYCord(), center.getZCord(), -1, increment, distances);
+		}
+	}
+	
+	/**
+	 * Calculates the RDF for each atom in a packed system, reading coordinates directly from its arrays.
+	 * Gives the same tallies as the <code>BulkSystem</code> version for the same atoms.
+	 * @param centerAtom		The central atom type for a RDF calculation
+	 * @param otherAtom			The type of atom that will be measured for the distance from the centerAtom
+	 * @param currentSystem		The current configuration holding all the atoms within it.
+	 * @param distances			Keeps track of the number of distance calculations that falls within each RDF shell.
+	 * @param cutoff			The maximum distance that the RDF function will calculate.
+	 * 							Note that this should be half the length of the smallest system box side at most.
+	 */
+	public void systemRDFCalculation(String centerAtom, String otherAtom, PackedSystem currentSystem, int[] distances, double cutoff)
+	{
+		selectAtoms(centerAtom, otherAtom, currentSystem);
+		
+		CellList cells = getCellList(Math.max(cutoff, distances.length*increment));
+		cells.build(otherX, otherY, otherZ, numOthers);
+		
+		if(centerAtom.equals(otherAtom))
+		{
+			cells.tallyPairs(increment, distances);
+			return;
+		}
+		for(int i = 0; i < numCenters; i++)
+		{
+			cells.tallyNeighbors(centerX[i], centerY[i], centerZ[i], -1, increment, distances);
+		}
+	}
+	
+	/**
+	 * Splits the atoms of the two types out of <code>currentSystem</code> without tallying any distances. The atom counts
+	 * and box of the last selected system are the ones used by <code>normalizeRDF</code>.
+	 * @param centerAtom		The central atom type for a RDF calculation
+	 * @param otherAtom			The type of atom that will be measured for the distance from the centerAtom
+	 * @param currentSystem		The current configuration holding all the atoms within it.
+	 */
+	public void selectAtoms(String centerAtom, String otherAtom, BulkSystem currentSystem)
+	{
+		//Clone the system and remove all atoms except for the two to compare
+		BulkSystem centerAtoms = (BulkSystem) currentSystem.clone();
+		centerAtoms.clear();
+		BulkSystem otherAtoms = new BulkSystem();
+		
+		for(Atom atom : currentSystem)
+		{
+			if(atom.getType().equals(centerAtom))
+					centerAtoms.add(atom);
+			if(atom.getType().equals(otherAtom))
+					otherAtoms.add(atom);
+		}
+		
+		this.centerAtoms = centerAtoms;
+		this.otherAtoms = otherAtoms;
+		setCenterAtomSystem(centerAtoms);
+		numOthers = otherAtoms.size();
+	}
+	
+	/**
+	 * Copies the coordinates of the atoms of the two types out of a packed system without tallying any distances.
+	 * The atom counts and box of the last selected system are the ones used by <code>normalizeRDF</code>.
+	 * @param centerAtom		The central atom type for a RDF calculation
+	 * @param otherAtom			The type of atom that will be measured for the distance from the centerAtom
+	 * @param currentSystem		The current configuration holding all the atoms within it.
+	 */
+	public void selectAtoms(String centerAtom, String otherAtom, PackedSystem currentSystem)
+	{
+		int centerType = currentSystem.findType(centerAtom);
+		int otherType = currentSystem.findType(otherAtom);
+		int size = currentSystem.size();
+		if(centerX.length < size)
+		{
+			centerX = new double[size];
+			centerY = new double[size];
+			centerZ = new double[size];
+			otherX = new double[size];
+			otherY = new double[size];
+			otherZ = new double[size];
+		}
+		
+		double[] x = currentSystem.getXCords();
+		double[] y = currentSystem.getYCords();
+		double[] z = currentSystem.getZCords();
+		int[] types = currentSystem.getTypeIndexes();
+		numCenters = 0;
+		numOthers = 0;
+		for(int i = 0; i < size; i++)
+		{
+			if(types[i] == centerType)
+			{
+				centerX[numCenters] = x[i];
+				centerY[numCenters] = y[i];
+				centerZ[numCenters] = z[i];
+				numCenters++;
+			}
+			if(types[i] == otherType)
+			{
+				otherX[numOthers] = x[i];
+				otherY[numOthers] = y[i];
+				otherZ[numOthers] = z[i];
+				numOthers++;
+			}
+		}
+		setBox(currentSystem.getBoxMatrix());
+	}
+	
+	/**
+	 * @param radius	The search radius
+	 * @return			A cell list for the box of the last selected configuration
+	 */
+	private CellList getCellList(double radius)
+	{
+		if(cells == null || cells.getCutoff() != radius)
+			cells = new CellList(box, radius);
+		else
+			cells.fitBox(box);
+		return cells;
+	}
+	
+	/**
+	 * Normalizes the relative density for each RDF shell to the system density.
+	 * Should be used after all configurations have been tallied in <code>distances</code>. Pairs of like atoms that were
+	 * measured once are tallied twice, once per central atom, so they are normalized the same way as every other pair.
+	 * @param distances				Keeps track of the number of distance calculations that falls within each RDF shell.
+	 * @param numGoodIterations		The number of configurations that were tallied using <code>systemRDFCalculation</code>.
+	 * @return						An array containing the relative density for each RDF shell.
+	 */
+	public double[] normalizeRDF(int[] distances, int numGoodIterations)
+	{
+		long[] counts = new long[distances.length];
+		for(int i = 0; i < counts.length; i++)
+		{
+			counts[i] = distances[i];
+		}
+		return normalizeRDF(counts, numGoodIterations);
+	}
+	
+	/**
+	 * Normalizes the relative density for each RDF shell to the system density, from counts that were summed in a
+	 * <code>Histogram</code> or otherwise kept as <code>long</code> values so they do not overflow on long trajectories.
+	 * @param distances				Keeps track of the number of distance calculations that falls within each RDF shell.
+	 * @param numGoodIterations		The number of configurations that were tallied using <code>systemRDFCalculation</code>.
+	 * @return						An array containing the relative density for each RDF shell.
+	 */
+	public double[] normalizeRDF(long[] distances, int numGoodIterations)
+	{
+		double[] normalDistances = new double[distances.length];
+		double aDensity = getAtomDensity();
+		for(int i = 0; i < normalDistances.length; i++)
+		{
+			double volume = getShellVolume(i+1, increment);
+			normalDistances[i] = distances[i]/volume/aDensity/numCenters/numGoodIterations;
+		}
+		
+		return normalDistances;
+	}
+	
+	/**
+	 * Normalizes the relative density for each RDF shell to the system density. Assumes only one configuration was tallied.
+	 * @param distances		Keeps track of the number of distance calculations that falls within each RDF shell.
+	 * @return				An array containing the relative density for each RDF shell.
+	 */
+	public double[] normalizeRDF(int[] distances)
+	{
+		return normalizeRDF(distances, 1);
+	}
+	
+	/**
+	 * Calculates the distance between two atoms, accounting for periodic
+	 * conditions in an orthorhombic or triclinic box.
+	 * @param a		Atom a
+	 * @param b		Atom b
+	 * @return		The radial distance between the two atoms
+	 */
+	private double periodicDistance(Atom a, Atom b)
+	{
+		return Math.sqrt(periodicSquaredDistance(a, b));
+	}
+	
+	/**
+	 * Calculates the squared distance between two atoms, accounting for periodic
+	 * conditions in an orthorhombic or triclinic box.
+	 * @param a		Atom a
+	 * @param b		Atom b
+	 * @return		The squared radial distance between the two atoms
+	 */
+	private double periodicSquaredDistance(Atom a, Atom b)
+	{
+		double xDist = b.getXCord() - a.getXCord();
+		double yDist = b.getYCord() - a.getYCord();
+		double zDist = b.getZCord() - a.getZCord();
+		if(!box.isOrthorhombic())
+			return box.squaredDistance(xDist, yDist, zDist);
+		
+		xDist = Math.round(xDist*xInverse) * xBox - xDist;
+		yDist = Math.round(yDist*yInverse) * yBox - yDist;
+		zDist = Math.round(zDist*zInverse) * zBox - zDist;
+		return xDist*xDist + yDist*yDist + zDist*zDist;
+	}
+	
+	/**
+	 * @return	The volume of the simulation box.
+	 */
+	private double getSimulationVolume()
+	{
+		return box.getVolume();
+	}
+	
+	/**
+	 * Calculates the volume of a specific RDF shell.
+	 * @param count			The shell ordered in increased distance from the central atom.
+	 * @param increment		The radius of each shell.
+	 * @return				The volume of an RDF shell.
+	 */
+	static double getShellVolume(int count, double increment)
+	{
+		return (4.0/3 * 3.14159 * (Math.pow(count*increment, 3) - Math.pow(((count-1)*increment), 3)));
+	}
+	
+	/**
+	 * @return	The atomic density of a simulation box.
+	 */
+	private double getAtomDensity()
+	{
+		return (numOthers/getSimulationVolume());
+	}
+
+	/**
+	 * @return	The number of distances measured by <code>systemRDFCalculation</code> since the last call
+	 * @see CellList#takeNumMeasured()
+	 */
+	public long takeNumMeasured()
+	{
+		return (cells == null) ? 0 : cells.takeNumMeasured();
+	}
+	
+	public void setCenterAtomSystem(BulkSystem system)
+	{
+		centerAtoms = system;
+		numCenters = system.size();
+		setBox(system.getBoxMatrix());
+	}
+	
+	private void setBox(BoxMatrix box)
+	{
+		this.box = box;
+		xBox = box.getA();
+		yBox = box.getB();
+		zBox = box.getC();
+		xInverse = 1.0/xBox;
+		yInverse = 1.0/yBox;
+		zInverse = 1.0/zBox;
+	}
+}
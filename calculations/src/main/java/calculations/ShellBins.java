@@ -0,0 +1,123 @@
+package calculations;
+
+/**
+ * Finds the RDF shell of a squared distance without taking its square root. The boundaries of every shell are
+ * precomputed as squared distances, chosen so each squared distance lands in exactly the shell
+ * <code>(int)(Math.sqrt(r2)/increment)</code> would give it, bit for bit. A coarse table over the squared distances
+ * gives a starting shell, which is almost always the right shell or the one below it.
+ * <p>
+ * Squared distances past the last shell or at or past the cutoff are rejected with a single comparison.
+ * @see RadialDF#setSquaredBinning(boolean)
+ */
+public class ShellBins
+{
+	private double increment;
+	private int numShells;
+	private double cutoff;
+
+	/**The smallest squared distance in each shell. The entry past the last shell is where distances are rejected.*/
+	private double[] lower;
+	/**Squared distances below this are kept*/
+	private double limit;
+
+	/**The lowest shell each slot of the coarse table can hold, and the number of slots per squared distance*/
+	private int[] start;
+	private double scale;
+
+	/**
+	 * @param increment		The radius of each shell
+	 * @param numShells		The number of shells
+	 * @param cutoff		Distances at or past the cutoff are rejected
+	 */
+	public ShellBins(double increment, int numShells, double cutoff)
+	{
+		this.increment = increment;
+		this.numShells = numShells;
+		this.cutoff = cutoff;
+
+		lower = new double[numShells + 1];
+		for(int b = 1; b <= numShells; b++)
+		{
+			lower[b] = firstOfShell(b);
+		}
+		limit = Math.min(cutoff*cutoff, lower[numShells]);
+
+		//Shells get wider in squared distance further out. With eight slots per shell, a slot is narrower than every
+		//shell past the first sixteenth of them, so almost every squared distance needs at most one step.
+		int numSlots = Math.max(1, 8*numShells);
+		scale = (limit > 0) ? numSlots/limit : 0;
+		start = new int[numSlots + 1];
+		for(int s = 1; s <= numSlots; s++)
+		{
+			//Anything rounded into slot s is at least this large
+			double r2 = (s - 1)/scale;
+			start[s] = Math.min(sqrtShell(r2), Math.max(numShells - 1, 0));
+		}
+	}
+
+	/**
+	 * @param r2	A squared distance
+	 * @return		The shell holding the distance, or -1 if it is past the last shell or not within the cutoff
+	 */
+	public int bin(double r2)
+	{
+		if(!(r2 < limit))
+			return -1;
+		int b = start[(int) (r2*scale)];
+		b += (r2 >= lower[b + 1]) ? 1 : 0;
+		while(r2 >= lower[b + 1])
+		{
+			b++;
+		}
+		return b;
+	}
+
+	/**
+	 * @return	Squared distances below this are kept by <code>bin</code>
+	 */
+	public double getLimit()
+	{
+		return limit;
+	}
+
+	public double getIncrement()
+	{
+		return increment;
+	}
+
+	public int getNumShells()
+	{
+		return numShells;
+	}
+
+	public double getCutoff()
+	{
+		return cutoff;
+	}
+
+	/**
+	 * The shell a squared distance falls in when binned with a square root, which <code>bin</code> reproduces.
+	 */
+	private int sqrtShell(double r2)
+	{
+		return (int) (Math.sqrt(r2)/increment);
+	}
+
+	/**
+	 * @return	The smallest squared distance that falls in shell <code>b</code> or a later one
+	 */
+	private double firstOfShell(int b)
+	{
+		double r2 = (b*increment) * (b*increment);
+		//Rounding can put the estimate a few values off on either side
+		while(r2 > 0 && sqrtShell(r2) >= b)
+		{
+			r2 = Math.nextDown(r2);
+		}
+		while(sqrtShell(r2) < b)
+		{
+			r2 = Math.nextUp(r2);
+		}
+		return r2;
+	}
+}
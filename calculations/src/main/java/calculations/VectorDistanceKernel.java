@@ -0,0 +1,135 @@
+package calculations;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The distance and shell loops of <code>DistanceKernel</code> written with the incubating Vector API, which processes as
+ * many atoms at once as the widest vector the processor supports. Each method handles whole vectors only and returns how
+ * many atoms it handled, leaving the rest of the block to the scalar loop.
+ * <p>
+ * The API has no vector <code>rint</code>, so the nearest whole number is found by adding and subtracting 2^52, which
+ * rounds half to even exactly as <code>Math.rint</code> does. Adding 1.5*2^52 likewise turns shells into longs, since
+ * the conversions from doubles to ints are not compiled to vector instructions by Java 17. Every operation is done in the same order as the scalar
+ * loops, so the distances are identical to the last bit. Square roots and division are correctly rounded in both, and
+ * whole shells are found by truncating as a cast does, so the shells are identical too.
+ * <p>
+ * This class is only loaded when the <code>jdk.incubator.vector</code> module was added with
+ * <code>--add-modules jdk.incubator.vector</code>.
+ * @see DistanceKernel
+ */
+final class VectorDistanceKernel
+{
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+	/**Every double of at least 2^52 is a whole number*/
+	private static final double TWO_52 = 0x1p52;
+	/**Adding 1.5*2^52 to a whole number of magnitude below 2^51 adds the number to the bits of 1.5*2^52*/
+	private static final double SHIFT = 0x1.8p52;
+	private static final long SHIFT_BITS = Double.doubleToRawLongBits(SHIFT);
+	/**A shell of -1 for every distance of a vector*/
+	private static final LongVector NONE = LongVector.broadcast(SPECIES.withLanes(long.class), -1L);
+
+	private VectorDistanceKernel()
+	{
+	}
+
+	/**
+	 * @return	The number of atoms measured, always a multiple of the vector length
+	 * @see DistanceKernel#squaredDistances(double, double, double, double[], double[], double[], int, int, double, double, double, double, double, double, double[])
+	 */
+	static int squaredDistances(double x, double y, double z, double[] xs, double[] ys, double[] zs,
+			int from, int to, double xBox, double yBox, double zBox, double xInverse, double yInverse, double zInverse,
+			double[] r2)
+	{
+		int bound = SPECIES.loopBound(to - from);
+		for(int k = 0; k < bound; k += SPECIES.length())
+		{
+			DoubleVector xDist = DoubleVector.fromArray(SPECIES, xs, from + k).sub(x);
+			DoubleVector yDist = DoubleVector.fromArray(SPECIES, ys, from + k).sub(y);
+			DoubleVector zDist = DoubleVector.fromArray(SPECIES, zs, from + k).sub(z);
+			xDist = rint(xDist.mul(xInverse)).mul(xBox).sub(xDist);
+			yDist = rint(yDist.mul(yInverse)).mul(yBox).sub(yDist);
+			zDist = rint(zDist.mul(zInverse)).mul(zBox).sub(zDist);
+			xDist.mul(xDist).add(yDist.mul(yDist)).add(zDist.mul(zDist)).intoArray(r2, k);
+		}
+		return bound;
+	}
+
+	/**
+	 * @return	The number of atoms measured, always a multiple of the vector length
+	 * @see DistanceKernel#squaredDistances(double, double, double, double[], double[], double[], int, int, double[], double[], double[])
+	 */
+	static int squaredDistances(double x, double y, double z, double[] xs, double[] ys, double[] zs,
+			int from, int to, double[] matrix, double[] inverse, double[] r2)
+	{
+		double ax = matrix[0], bx = matrix[1], cx = matrix[2], by = matrix[3], cy = matrix[4], cz = matrix[5];
+		double ixx = inverse[0], ixy = inverse[1], ixz = inverse[2], iyy = inverse[3], iyz = inverse[4], izz = inverse[5];
+		int bound = SPECIES.loopBound(to - from);
+		for(int k = 0; k < bound; k += SPECIES.length())
+		{
+			DoubleVector xDist = DoubleVector.fromArray(SPECIES, xs, from + k).sub(x);
+			DoubleVector yDist = DoubleVector.fromArray(SPECIES, ys, from + k).sub(y);
+			DoubleVector zDist = DoubleVector.fromArray(SPECIES, zs, from + k).sub(z);
+			DoubleVector sx = xDist.mul(ixx).add(yDist.mul(ixy)).add(zDist.mul(ixz));
+			DoubleVector sy = yDist.mul(iyy).add(zDist.mul(iyz));
+			DoubleVector sz = zDist.mul(izz);
+			sx = sx.sub(rint(sx));
+			sy = sy.sub(rint(sy));
+			sz = sz.sub(rint(sz));
+			xDist = sx.mul(ax).add(sy.mul(bx)).add(sz.mul(cx));
+			yDist = sy.mul(by).add(sz.mul(cy));
+			zDist = sz.mul(cz);
+			xDist.mul(xDist).add(yDist.mul(yDist)).add(zDist.mul(zDist)).intoArray(r2, k);
+		}
+		return bound;
+	}
+
+	/**
+	 * @return	The number of distances handled, always a multiple of the vector length
+	 * @see DistanceKernel#tally(double[], int, double, double, int[], int, int, int, long[])
+	 */
+	static int shells(double[] r2, int n, double cutoffSq, double increment, int numShells, long[] shells)
+	{
+		DoubleVector outside = DoubleVector.broadcast(SPECIES, -1.0);
+		int bound = SPECIES.loopBound(n);
+		for(int k = 0; k < bound; k += SPECIES.length())
+		{
+			DoubleVector squared = DoubleVector.fromArray(SPECIES, r2, k);
+			VectorMask<Double> inside = squared.compare(VectorOperators.LT, cutoffSq);
+			//Most blocks of a cell list are mostly past the cutoff, so skip the square roots when none is needed
+			if(!inside.anyTrue())
+			{
+				NONE.intoArray(shells, k);
+				continue;
+			}
+			DoubleVector layer = squared.lanewise(VectorOperators.SQRT).div(increment);
+			//A layer truncates to a shell below numShells exactly when it is below numShells
+			inside = inside.and(layer.compare(VectorOperators.LT, numShells));
+			//Truncate the layers that are kept, which are positive and far below 2^51
+			DoubleVector shell = layer.add(SHIFT).sub(SHIFT);
+			shell = shell.sub(1.0, shell.compare(VectorOperators.GT, layer));
+			outside.blend(shell, inside).add(SHIFT).reinterpretAsLongs().sub(SHIFT_BITS).intoArray(shells, k);
+		}
+		return bound;
+	}
+
+	/**
+	 * @return	Each value rounded to the nearest whole number, with ties going to the even one, as
+	 * 			<code>Math.rint</code> does
+	 */
+	private static DoubleVector rint(DoubleVector v)
+	{
+		DoubleVector magnitude = v.abs();
+		//Adding 2^52 leaves no room for a fraction, so the sum is rounded to a whole number
+		DoubleVector rounded = magnitude.add(TWO_52).sub(TWO_52);
+		//Larger values, infinities and NaN are kept as they are
+		VectorMask<Double> small = magnitude.compare(VectorOperators.LT, TWO_52);
+		rounded = magnitude.blend(rounded, small);
+		//Copy the sign bit back, so small negative values round to -0.0
+		LongVector sign = v.reinterpretAsLongs().and(Long.MIN_VALUE);
+		return rounded.reinterpretAsLongs().or(sign).reinterpretAsDoubles();
+	}
+}
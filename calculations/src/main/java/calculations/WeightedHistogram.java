@@ -0,0 +1,99 @@
+package calculations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A histogram of <code>double</code> weights that many threads can add to at once without contending, for
+ * distributions where each sample carries a weight rather than a count. Each thread adds to its own shard, and the
+ * shards are added together by <code>sum</code>.
+ * <p>
+ * Unlike the counts of a <code>Histogram</code>, floating point sums depend on the order they are added in, so the
+ * last digits of a bin can differ between runs that split the samples between threads differently.
+ * @see Histogram
+ */
+public class WeightedHistogram
+{
+	private int numBins;
+
+	/**The shard of every thread that has added to the histogram*/
+	private List<double[]> shards;
+	private ThreadLocal<double[]> shard;
+
+	/**
+	 * @param numBins	The number of bins
+	 */
+	public WeightedHistogram(int numBins)
+	{
+		this.numBins = numBins;
+		shards = new ArrayList<double[]>();
+		shard = new ThreadLocal<double[]>();
+	}
+
+	/**
+	 * @return	The weights of the current thread, which only the current thread may change
+	 */
+	public double[] local()
+	{
+		double[] weights = shard.get();
+		if(weights == null)
+		{
+			weights = new double[numBins];
+			shard.set(weights);
+			synchronized(shards)
+			{
+				shards.add(weights);
+			}
+		}
+		return weights;
+	}
+
+	/**
+	 * @param bin		The bin
+	 * @param weight	The amount to add to the bin
+	 */
+	public void add(int bin, double weight)
+	{
+		local()[bin] += weight;
+	}
+
+	/**
+	 * Should only be called once every thread has finished adding to the histogram.
+	 * @return	The weights of every thread added together
+	 */
+	public double[] sum()
+	{
+		double[] total = new double[numBins];
+		synchronized(shards)
+		{
+			for(double[] weights : shards)
+			{
+				for(int i = 0; i < numBins; i++)
+				{
+					total[i] += weights[i];
+				}
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Sets every bin of every thread back to zero. Should not be called while threads are adding to the histogram.
+	 */
+	public void clear()
+	{
+		synchronized(shards)
+		{
+			for(double[] weights : shards)
+			{
+				Arrays.fill(weights, 0);
+			}
+		}
+	}
+
+	public int getNumBins()
+	{
+		return numBins;
+	}
+}
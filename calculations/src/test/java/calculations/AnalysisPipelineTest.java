@@ -0,0 +1,149 @@
+package calculations;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import core.FrameSource;
+import core.PackedSystem;
+import core.RunMetrics;
+
+public class AnalysisPipelineTest {
+
+	/**
+	 * Generates random configurations of two atom types in a 15 A box.
+	 */
+	private static class RandomFrames extends FrameSource
+	{
+		private Random rand = new Random(7);
+		private int numFrames;
+
+		RandomFrames(int numFrames)
+		{
+			this.numFrames = numFrames;
+		}
+
+		@Override
+		protected int readFrame(PackedSystem ps) throws IOException {
+			if(numFrames-- == 0)
+				return END;
+			ps.clear();
+			ps.setXBox(15);
+			ps.setYBox(15);
+			ps.setZBox(15);
+			for(int i = 0; i < 300; i++)
+			{
+				ps.add(i + 1, (i % 3 == 0) ? "OW" : "HW", 15*rand.nextDouble(), 15*rand.nextDouble(),
+						15*rand.nextDouble());
+			}
+			return GOOD;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	@Test
+	public void testSerialAndParallelMatch() {
+		RDFAnalysis[] rdfs = new RDFAnalysis[2];
+		CoordinationAnalysis[] coordinations = new CoordinationAnalysis[2];
+		for(int run = 0; run < 2; run++)
+		{
+			rdfs[run] = new RDFAnalysis("OW", "HW", 0.1, 6.0);
+			coordinations[run] = new CoordinationAnalysis("OW", "OW", 3.5);
+			AnalysisPipeline pipeline = new AnalysisPipeline().add(rdfs[run]).add(coordinations[run]);
+			pipeline.setNumThreads(1 + 2*run);
+			assertEquals(12, pipeline.run(new RandomFrames(12)));
+		}
+		assertEquals(12, rdfs[1].getNumGoodIterations());
+		assertArrayEquals(rdfs[0].getDistances(), rdfs[1].getDistances());
+		assertArrayEquals(rdfs[0].getRDF(), rdfs[1].getRDF(), 0.0);
+		assertArrayEquals(coordinations[0].getHistogram(), coordinations[1].getHistogram());
+	}
+
+	@Test
+	public void testParallelFailure() {
+		AnalysisPipeline pipeline = new AnalysisPipeline().add(new FrameAnalysis() {
+			@Override
+			public void accept(int frame, PackedSystem ps) {
+				if(frame == 3)
+					throw new IllegalStateException("Bad frame");
+			}
+
+			@Override
+			public void finish() {
+			}
+		});
+		pipeline.setNumThreads(2);
+		RandomFrames frames = new RandomFrames(1000);
+		try {
+			pipeline.run(frames);
+			fail();
+		} catch(IllegalStateException e) {
+			assertEquals("Bad frame", e.getMessage());
+		}
+		//Reading stops soon after the failure is seen
+		assertTrue(frames.getFrameIndex() < 100);
+	}
+
+	@Test
+	public void testMetrics() {
+		long[] pairs = new long[2];
+		for(int run = 0; run < 2; run++)
+		{
+			RunMetrics metrics = new RunMetrics();
+			metrics.start();
+			RDFAnalysis rdf = new RDFAnalysis("OW", "OW", 0.1, 7.0);
+			AnalysisPipeline pipeline = new AnalysisPipeline().add(rdf).add(new RDFAnalysis("OW", "HW", 0.1, 7.0));
+			pipeline.setMetrics(metrics);
+			pipeline.setNumThreads(1 + 2*run);
+			pipeline.run(new RandomFrames(5));
+			metrics.finish();
+
+			assertEquals(5, metrics.getFrames());
+			assertEquals(1500, metrics.getAtoms());
+			assertTrue(metrics.getStages().containsAll(java.util.Arrays.asList("read", "RDFAnalysis", "RDFAnalysis 2",
+					"finish")));
+			//The box is too small for more than two cells along each side, so every pair of oxygens is measured once
+			assertEquals(5*100*99/2, rdf.getNumMeasured());
+			pairs[run] = metrics.getPairs();
+		}
+		assertEquals(pairs[0], pairs[1]);
+	}
+
+	@Test
+	public void testCoordinationMatchesBruteForce() {
+		RandomFrames frames = new RandomFrames(1);
+		PackedSystem ps = frames.next();
+		CoordinationAnalysis coordination = new CoordinationAnalysis("OW", "OW", 3.5);
+		coordination.accept(0, ps);
+		coordination.finish();
+
+		long numNeighbors = 0;
+		long numCenters = 0;
+		for(int i = 0; i < ps.size(); i++)
+		{
+			if(!ps.getType(i).equals("OW"))
+				continue;
+			numCenters++;
+			for(int j = 0; j < ps.size(); j++)
+			{
+				if(j == i || !ps.getType(j).equals("OW"))
+					continue;
+				double dx = ps.getXCords()[j] - ps.getXCords()[i];
+				double dy = ps.getYCords()[j] - ps.getYCords()[i];
+				double dz = ps.getZCords()[j] - ps.getZCords()[i];
+				dx = Math.round(dx/15) * 15 - dx;
+				dy = Math.round(dy/15) * 15 - dy;
+				dz = Math.round(dz/15) * 15 - dz;
+				if(dx*dx + dy*dy + dz*dz < 3.5*3.5)
+					numNeighbors++;
+			}
+		}
+		assertEquals((double) numNeighbors/numCenters, coordination.getMeanCoordination(), 1e-12);
+	}
+}
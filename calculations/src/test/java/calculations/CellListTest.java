@@ -0,0 +1,236 @@
+package calculations;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import core.Atom;
+import core.BoxMatrix;
+import core.BulkSystem;
+import core.PackedSystem;
+
+public class CellListTest {
+
+	private static BulkSystem randomSystem(int numAtoms, double box, long seed)
+	{
+		Random rand = new Random(seed);
+		BulkSystem bs = new BulkSystem();
+		bs.setXBox(box);
+		bs.setYBox(box);
+		bs.setZBox(box);
+		for(int i = 0; i < numAtoms; i++)
+		{
+			//Tinker coordinates are centered on the origin and may drift outside the box
+			bs.add(new Atom("OW", (rand.nextDouble()-0.5)*box*1.2, (rand.nextDouble()-0.5)*box*1.2, (rand.nextDouble()-0.5)*box*1.2));
+		}
+		return bs;
+	}
+
+	@Test
+	public void testPairsMatchAllPairs() {
+		BulkSystem bs = randomSystem(500, 30.0, 1);
+		double cutoff = 7.5;
+		CellList cells = new CellList(30.0, 30.0, 30.0, cutoff);
+		cells.build(bs);
+
+		final int[] found = new int[1];
+		cells.forEachPair(new CellList.PairVisitor() {
+			@Override
+			public void visit(int atom1, int atom2, double rSquared) {
+				found[0]++;
+			}
+		});
+
+		int expected = 0;
+		for(int i = 0; i < bs.size(); i++)
+		{
+			for(int j = i+1; j < bs.size(); j++)
+			{
+				Atom a = bs.get(i);
+				Atom b = bs.get(j);
+				double x = b.getXCord() - a.getXCord();
+				double y = b.getYCord() - a.getYCord();
+				double z = b.getZCord() - a.getZCord();
+				x -= Math.round(x/30.0) * 30.0;
+				y -= Math.round(y/30.0) * 30.0;
+				z -= Math.round(z/30.0) * 30.0;
+				if(x*x + y*y + z*z < cutoff*cutoff)
+					expected++;
+			}
+		}
+		assertTrue(expected > 0);
+		assertEquals(expected, found[0]);
+	}
+
+	@Test
+	public void testRDFMatchesAllPairs() {
+		BulkSystem bs = randomSystem(400, 25.0, 2);
+		double interval = 0.25;
+		double cutoff = 10.0;
+		int[] cellShells = new int[(int) Math.floor(cutoff/interval)];
+		int[] allShells = new int[cellShells.length];
+
+		RadialDF calc = new RadialDF(null, null, interval);
+		calc.systemRDFCalculation("OW", "OW", bs, cellShells, cutoff);
+
+		RadialDF reference = new RadialDF(bs, bs, interval);
+		for(int i = 0; i < bs.size(); i++)
+		{
+			reference.rDFCalculation(i, allShells);
+		}
+		assertArrayEquals(allShells, cellShells);
+
+		int[] symmetricShells = new int[cellShells.length];
+		reference.symmetricRDFCalculation(symmetricShells);
+		assertArrayEquals(allShells, symmetricShells);
+	}
+
+	@Test
+	public void testHalfShellMatchesFullShell() {
+		//Three and four cells per side, where wrapped neighbor cells are easiest to count twice
+		for(double box : new double[] {24.0, 33.0})
+		{
+			BulkSystem bs = randomSystem(600, box, 4);
+			double interval = 0.1;
+			double cutoff = 8.0;
+			int[] pairShells = new int[(int) Math.floor(cutoff/interval)];
+			int[] neighborShells = new int[pairShells.length];
+
+			RadialDF calc = new RadialDF(null, null, interval);
+			calc.systemRDFCalculation("OW", "OW", bs, pairShells, cutoff);
+
+			CellList cells = new CellList(box, box, box, cutoff);
+			cells.build(bs);
+			for(int i = 0; i < bs.size(); i++)
+			{
+				cells.tallyNeighbors(bs.get(i).getXCord(), bs.get(i).getYCord(), bs.get(i).getZCord(), i, interval,
+						neighborShells);
+			}
+			assertArrayEquals(neighborShells, pairShells);
+		}
+	}
+
+	@Test
+	public void testTriclinicMatchesAllPairs() {
+		//Wide enough for three skewed cells per side, and small enough to fall back to checking every pair
+		for(double scale : new double[] {1.0, 0.6})
+		{
+			BoxMatrix box = new BoxMatrix(30.0*scale, 32.0*scale, 34.0*scale, 80.0, 95.0, 105.0);
+			double[] h = box.getMatrix();
+			Random rand = new Random(6);
+			PackedSystem ps = new PackedSystem();
+			ps.setXBox(box.getA());
+			ps.setYBox(box.getB());
+			ps.setZBox(box.getC());
+			ps.setAngles(80.0, 95.0, 105.0);
+			for(int i = 0; i < 500; i++)
+			{
+				//Fractional coordinates, some of them outside the box
+				double sx = rand.nextDouble()*1.2 - 0.1;
+				double sy = rand.nextDouble()*1.2 - 0.1;
+				double sz = rand.nextDouble()*1.2 - 0.1;
+				ps.add(i + 1, (i % 3 == 0) ? "OW" : "HW", h[0]*sx + h[1]*sy + h[2]*sz, h[3]*sy + h[4]*sz, h[5]*sz);
+			}
+			double interval = 0.1;
+			double cutoff = 8.0*scale;
+
+			for(String other : new String[] {"OW", "HW"})
+			{
+				int[] cellShells = new int[(int) Math.floor(cutoff/interval)];
+				RadialDF calc = new RadialDF(null, null, interval);
+				calc.systemRDFCalculation("OW", other, ps, cellShells, cutoff);
+
+				int[] allShells = new int[cellShells.length];
+				double[] x = ps.getXCords(), y = ps.getYCords(), z = ps.getZCords();
+				for(int i = 0; i < ps.size(); i++)
+				{
+					for(int j = 0; j < ps.size(); j++)
+					{
+						if(i == j || !ps.getType(i).equals("OW") || !ps.getType(j).equals(other))
+							continue;
+						double r2 = box.squaredDistance(x[j] - x[i], y[j] - y[i], z[j] - z[i]);
+						int shell = (int) (Math.sqrt(r2)/interval);
+						if(r2 < cutoff*cutoff && shell < allShells.length)
+							allShells[shell]++;
+					}
+				}
+				assertArrayEquals(allShells, cellShells);
+			}
+		}
+	}
+
+	@Test
+	public void testKernelMatchesRound() {
+		BulkSystem bs = randomSystem(400, 25.0, 3);
+		double[] x = new double[bs.size()], y = new double[bs.size()], z = new double[bs.size()];
+		for(int i = 0; i < bs.size(); i++)
+		{
+			x[i] = bs.get(i).getXCord();
+			y[i] = bs.get(i).getYCord();
+			z[i] = bs.get(i).getZCord();
+		}
+		double[] r2 = new double[bs.size()];
+		DistanceKernel.squaredDistances(x[0], y[0], z[0], x, y, z, 0, bs.size(), 25.0, 25.0, 25.0, r2);
+		for(int j = 0; j < bs.size(); j++)
+		{
+			double xDist = x[j] - x[0];
+			double yDist = y[j] - y[0];
+			double zDist = z[j] - z[0];
+			xDist = Math.round(xDist/25.0) * 25.0 - xDist;
+			yDist = Math.round(yDist/25.0) * 25.0 - yDist;
+			zDist = Math.round(zDist/25.0) * 25.0 - zDist;
+			assertEquals(xDist*xDist + yDist*yDist + zDist*zDist, r2[j], 0.0);
+		}
+	}
+
+	@Test
+	public void testVectorKernelMatchesScalar() {
+		assumeTrue(DistanceKernel.VECTOR_API);
+		//Separations of exactly half a box, whole boxes and -0.0 test the rounding, and odd lengths leave a scalar tail
+		Random rand = new Random(11);
+		int n = 203;
+		double[] x = new double[n], y = new double[n], z = new double[n];
+		for(int i = 0; i < n; i++)
+		{
+			x[i] = (i % 7 == 0) ? 12.5*(rand.nextInt(5) - 2) : (rand.nextDouble() - 0.5)*60;
+			y[i] = (i % 5 == 0) ? -0.0 : (rand.nextDouble() - 0.5)*60;
+			z[i] = (i % 3 == 0) ? 25.0*rand.nextInt(3) : (rand.nextDouble() - 0.5)*60;
+		}
+		BoxMatrix box = new BoxMatrix(25.0, 27.0, 31.0, 80.0, 95.0, 110.0);
+		for(int from = 0; from < 12; from++)
+		{
+			for(double[] origin : new double[][] {{0.0, 0.0, 0.0}, {x[from], y[from], z[from]}})
+			{
+				double[] vector = new double[n], scalar = new double[n];
+				DistanceKernel.squaredDistances(origin[0], origin[1], origin[2], x, y, z, from, n, 25.0, 27.0, 31.0,
+						1/25.0, 1/27.0, 1/31.0, vector);
+				DistanceKernel.scalarSquaredDistances(0, origin[0], origin[1], origin[2], x, y, z, from, n, 25.0, 27.0,
+						31.0, 1/25.0, 1/27.0, 1/31.0, scalar);
+				assertArrayEquals(scalar, vector, 0.0);
+
+				DistanceKernel.squaredDistances(origin[0], origin[1], origin[2], x, y, z, from, n, box.getMatrix(),
+						box.getInverse(), vector);
+				DistanceKernel.scalarSquaredDistances(0, origin[0], origin[1], origin[2], x, y, z, from, n,
+						box.getMatrix(), box.getInverse(), scalar);
+				assertArrayEquals(scalar, vector, 0.0);
+
+				//The cutoff and the edges of the last shells are tested by their own squared distances
+				vector[0] = 100.0;
+				vector[1] = 90.25;
+				vector[2] = Double.POSITIVE_INFINITY;
+				vector[3] = 0.0;
+				int[] vectorTally = new int[38], scalarTally = new int[38];
+				DistanceKernel.tally(vector, n - from, 100.0, 0.25, vectorTally, 0, 38, 1, new long[n]);
+				for(int k = 0; k < n - from; k++)
+				{
+					if(vector[k] < 100.0 && (int)(Math.sqrt(vector[k])/0.25) < 38)
+						scalarTally[(int)(Math.sqrt(vector[k])/0.25)]++;
+				}
+				assertArrayEquals(scalarTally, vectorTally);
+			}
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package calculations;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+	@Test
+	public void testThreadsSumToSerialCounts() throws InterruptedException {
+		final Histogram histogram = new Histogram(10);
+		Thread[] threads = new Thread[4];
+		for(int t = 0; t < threads.length; t++)
+		{
+			final int first = t;
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					int[] counts = new int[10];
+					for(int i = first; i < 100000; i += 4)
+					{
+						counts[i % 10]++;
+						histogram.add(i % 7);
+					}
+					histogram.drain(counts);
+					assertEquals(0, counts[3]);
+				}
+			});
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		long[] expected = new long[10];
+		for(int i = 0; i < 100000; i++)
+		{
+			expected[i % 10]++;
+			expected[i % 7]++;
+		}
+		assertArrayEquals(expected, histogram.sum());
+
+		histogram.clear();
+		assertArrayEquals(new long[10], histogram.sum());
+	}
+
+	@Test
+	public void testCountsPastIntegerLimit() {
+		Histogram histogram = new Histogram(2);
+		int[] counts = {Integer.MAX_VALUE, 1};
+		histogram.drain(counts);
+		counts[0] = Integer.MAX_VALUE;
+		histogram.drain(counts);
+		histogram.add(1, 5L*Integer.MAX_VALUE);
+		assertEquals(2L*Integer.MAX_VALUE, histogram.sum()[0]);
+		assertEquals(5L*Integer.MAX_VALUE + 1, histogram.sum()[1]);
+	}
+
+	@Test
+	public void testWeights() throws InterruptedException {
+		final WeightedHistogram histogram = new WeightedHistogram(3);
+		Thread other = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				histogram.add(1, 0.25);
+			}
+		});
+		other.start();
+		other.join();
+		histogram.add(1, 0.5);
+		histogram.add(2, 2.0);
+		assertArrayEquals(new double[] {0.0, 0.75, 2.0}, histogram.sum(), 0.0);
+	}
+}
@@ -0,0 +1,60 @@
+package calculations;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import core.PackedSystem;
+
+public class PairDensitiesTest {
+
+	@Test
+	public void testSumInFrameOrder() {
+		PairDensities densities = new PairDensities();
+		densities.add(2, 10, 20, 1000.0);
+		densities.add(0, 10, 20, 2000.0);
+		densities.add(1, 10, 10, 500.0);
+		assertEquals(3, densities.size());
+		assertEquals(0.1 + 0.2 + 0.2, densities.getSum(), 0.0);
+		assertEquals(3500.0/3, densities.getMeanVolume(), 1e-12);
+
+		long[] distances = {30, 300};
+		double[] rdf = densities.normalize(distances, 0.5);
+		assertEquals(300/RadialDF.getShellVolume(2, 0.5)/0.5, rdf[1], 1e-12);
+		assertArrayEquals(new double[2], new PairDensities().normalize(distances, 0.5), 0.0);
+	}
+
+	@Test
+	public void testChangingBox() {
+		//An ideal gas whose box grows between configurations should still have an RDF of one everywhere
+		Random rand = new Random(11);
+		RDFAnalysis rdf = new RDFAnalysis("OW", "OW", 0.5, 8.0);
+		double[] boxes = {20.0, 26.0, 23.0};
+		for(int frame = 0; frame < boxes.length; frame++)
+		{
+			double box = boxes[frame];
+			PackedSystem ps = new PackedSystem();
+			ps.setXBox(box);
+			ps.setYBox(box);
+			ps.setZBox(box);
+			for(int i = 0; i < 3000; i++)
+			{
+				ps.add(i + 1, "OW", rand.nextDouble()*box, rand.nextDouble()*box, rand.nextDouble()*box);
+			}
+			rdf.accept(frame, ps);
+		}
+		rdf.finish();
+
+		double sum = 0;
+		int numShells = 0;
+		for(int i = 8; i < rdf.getRDF().length; i++)
+		{
+			sum += rdf.getRDF()[i];
+			numShells++;
+		}
+		assertEquals(1.0, sum/numShells, 0.02);
+		assertEquals((8000.0 + 17576.0 + 12167.0)/3, rdf.getMeanVolume(), 1e-9);
+	}
+}
@@ -0,0 +1,105 @@
+package calculations;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import core.PackedSystem;
+
+public class PartialRDFTest {
+
+	private static PackedSystem randomSystem(double box, long seed)
+	{
+		Random rand = new Random(seed);
+		PackedSystem ps = new PackedSystem();
+		ps.setXBox(box);
+		ps.setYBox(box);
+		ps.setZBox(box);
+		String[] types = {"OW", "HW", "HW", "NA", "CL"};
+		for(int i = 0; i < 700; i++)
+		{
+			ps.add(i + 1, types[i % types.length], (rand.nextDouble()-0.5)*box, (rand.nextDouble()-0.5)*box,
+					(rand.nextDouble()-0.5)*box);
+		}
+		return ps;
+	}
+
+	@Test
+	public void testMatchesRadialDF() {
+		String[][] pairs = {{"OW", "OW"}, {"OW", "HW"}, {"HW", "OW"}, {"HW", "HW"}, {"NA", "CL"}, {"CL", "OW"}};
+		//A box with cells and one small enough to fall back to checking every pair
+		for(double box : new double[] {30.0, 18.0})
+		{
+			PartialRDF partials = new PartialRDF(0.2, 7.0);
+			for(String[] pair : pairs)
+			{
+				partials.addPair(pair[0], pair[1]);
+			}
+			assertEquals(pairs.length, partials.addPair("CL", "OW") + 1);
+
+			PackedSystem[] frames = {randomSystem(box, 1), randomSystem(box, 2)};
+			for(int frame = 0; frame < frames.length; frame++)
+			{
+				partials.accept(frame, frames[frame]);
+			}
+			partials.finish();
+
+			for(int p = 0; p < pairs.length; p++)
+			{
+				RadialDF calc = new RadialDF(null, null, 0.2);
+				int[] distances = new int[(int) Math.floor(7.0/0.2)];
+				for(PackedSystem ps : frames)
+				{
+					calc.systemRDFCalculation(pairs[p][0], pairs[p][1], ps, distances, 7.0);
+				}
+				long[] expected = new long[distances.length];
+				for(int i = 0; i < distances.length; i++)
+				{
+					expected[i] = distances[i];
+				}
+				assertArrayEquals(expected, partials.getDistances(p));
+				RDFAnalysis rdf = new RDFAnalysis(pairs[p][0], pairs[p][1], 0.2, 7.0);
+				for(int frame = 0; frame < frames.length; frame++)
+				{
+					rdf.accept(frame, frames[frame]);
+				}
+				rdf.finish();
+				assertArrayEquals(rdf.getRDF(), partials.getRDF(p), 0.0);
+				//Both configurations share a box, so normalizing with either one only differs by rounding
+				assertArrayEquals(calc.normalizeRDF(distances, frames.length), partials.getRDF(p), 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testStandardError() {
+		PackedSystem[] frames = {randomSystem(30.0, 3), randomSystem(30.0, 4)};
+		PartialRDF both = new PartialRDF(0.2, 7.0);
+		both.addPair("OW", "HW");
+		PartialRDF[] single = new PartialRDF[frames.length];
+		for(int frame = 0; frame < frames.length; frame++)
+		{
+			both.accept(frame, frames[frame]);
+			single[frame] = new PartialRDF(0.2, 7.0);
+			single[frame].addPair("OW", "HW");
+			single[frame].accept(frame, frames[frame]);
+			single[frame].finish();
+			//A single configuration has no spread
+			assertArrayEquals(new double[35], single[frame].getStandardError(0), 0.0);
+		}
+		both.finish();
+
+		//With two configurations the standard error is half their difference
+		double[] first = single[0].getRDF(0);
+		double[] second = single[1].getRDF(0);
+		double[] error = both.getStandardError(0);
+		assertEquals(35, error.length);
+		for(int i = 0; i < error.length; i++)
+		{
+			assertEquals(Math.abs(first[i] - second[i])/2, error[i], 1e-12);
+		}
+		assertTrue(error[20] > 0);
+	}
+}
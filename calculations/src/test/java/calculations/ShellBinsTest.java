@@ -0,0 +1,84 @@
+package calculations;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import core.Atom;
+import core.BulkSystem;
+
+public class ShellBinsTest {
+
+	@Test
+	public void testMatchesSquareRoot() {
+		Random rand = new Random(5);
+		double[][] setups = {{0.25, 12.5}, {0.03, 12.5}, {0.1, 7.0}, {0.07, 3.3}};
+		for(double[] setup : setups)
+		{
+			double increment = setup[0];
+			double cutoff = setup[1];
+			int numShells = (int) Math.floor(cutoff/increment);
+			ShellBins bins = new ShellBins(increment, numShells, cutoff);
+			for(int i = 0; i < 200000; i++)
+			{
+				double r2;
+				if(i % 2 == 0)
+				{
+					r2 = rand.nextDouble()*cutoff*cutoff*1.2;
+				}
+				else
+				{
+					//Right around a shell boundary
+					double edge = (rand.nextInt(numShells + 2))*increment;
+					r2 = edge*edge;
+					for(int ulps = rand.nextInt(7) - 3; ulps != 0; ulps -= Integer.signum(ulps))
+					{
+						r2 = (ulps > 0) ? Math.nextUp(r2) : Math.nextDown(r2);
+					}
+				}
+				int expected = (int)(Math.sqrt(r2)/increment);
+				if(!(r2 < cutoff*cutoff) || expected >= numShells)
+					expected = -1;
+				assertEquals("r2 = " + r2, expected, bins.bin(r2));
+			}
+		}
+	}
+
+	@Test
+	public void testAllPairsModesMatch() {
+		Random rand = new Random(6);
+		for(double gamma : new double[] {90.0, 75.0})
+		{
+			BulkSystem bs = new BulkSystem();
+			bs.setXBox(28);
+			bs.setYBox(30);
+			bs.setZBox(32);
+			bs.setAngles(90.0, 90.0, gamma);
+			for(int i = 0; i < 600; i++)
+			{
+				bs.add(new Atom("OW", 28*rand.nextDouble(), 30*rand.nextDouble(), 32*rand.nextDouble()));
+			}
+			int[] squared = new int[(int) Math.floor(9.0/0.05)];
+			int[] rooted = new int[squared.length];
+			RadialDF calc = new RadialDF(bs, bs, 0.05);
+			calc.setSquaredBinning(true);
+			for(int i = 0; i < bs.size(); i++)
+			{
+				calc.rDFCalculation(i, squared);
+			}
+			calc.setSquaredBinning(false);
+			for(int i = 0; i < bs.size(); i++)
+			{
+				calc.rDFCalculation(i, rooted);
+			}
+			assertArrayEquals(rooted, squared);
+
+			int[] symmetric = new int[squared.length];
+			calc.setSquaredBinning(true);
+			calc.symmetricRDFCalculation(symmetric);
+			assertArrayEquals(rooted, symmetric);
+		}
+	}
+}
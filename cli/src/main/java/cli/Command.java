@@ -0,0 +1,119 @@
+package cli;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+
+import binary.BinaryFrameSource;
+import binary.TrajectoryWriter;
+import core.FrameSource;
+import core.RunMetrics;
+import pdb.PdbFrameSource;
+import tinker.ArcFrameSource;
+
+/**
+ * A subcommand of the command line, such as <code>rdf</code>. A command takes all of its inputs from
+ * <code>JobOptions</code> and never asks for anything, so it can run unattended on a batch node. Every command reports the
+ * time and throughput of its run at the end, and exports them to the file given by <code>--metrics</code>.
+ * @see JobOptions
+ */
+public abstract class Command
+{
+	/**
+	 * @return	The name used to run the command
+	 */
+	public abstract String getName();
+
+	/**
+	 * @return	One line describing what the command does
+	 */
+	public abstract String getDescription();
+
+	/**
+	 * @return	The options of the command, one per line
+	 */
+	public abstract String getOptions();
+
+	/**
+	 * @return	The options that are set by being given, such as <code>single</code>, which never take a value from the
+	 * 			next argument
+	 */
+	public Collection<String> getFlags()
+	{
+		return Collections.emptySet();
+	}
+
+	/**
+	 * Runs the command.
+	 * @param options		The inputs of the command
+	 * @throws IOException					If a file could not be read or written
+	 * @throws OptionException				If an option is missing or badly formatted
+	 */
+	public abstract void run(JobOptions options) throws IOException;
+
+	/**
+	 * The option every command takes for exporting its metrics.
+	 */
+	protected static final String METRICS_OPTION =
+			"  --metrics FILE    Export the time and throughput of the run as .json or .csv\n";
+
+	/**
+	 * Finishes the metrics of a run and prints them to the error stream, so they never mix with results written to the
+	 * console. They are also exported if <code>--metrics</code> is given.
+	 * @throws IOException	If the metrics could not be exported
+	 */
+	protected static void report(RunMetrics metrics, JobOptions options) throws IOException
+	{
+		metrics.finish();
+		System.err.print(metrics);
+		String file = options.get("metrics", null);
+		if(file != null)
+			metrics.write(file);
+	}
+
+	/**
+	 * Opens a trajectory, choosing the reader from the file extension: .pdb files are read as Packmol style .pdb files,
+	 * binary trajectories by their own extension, and anything else as a Tinker .arc or .xyz file.
+	 * @param file		The filename of the trajectory
+	 * @return			The configurations in the file
+	 * @throws IOException	If the file could not be opened
+	 */
+	protected static FrameSource openFrames(String file) throws IOException
+	{
+		String name = file.toLowerCase(Locale.ROOT);
+		if(name.endsWith(".pdb"))
+			return new PdbFrameSource(file);
+		if(name.endsWith(TrajectoryWriter.EXTENSION))
+			return new BinaryFrameSource(file);
+		return new ArcFrameSource(file);
+	}
+
+	/**
+	 * @return	Whether a trajectory is read as a Tinker .arc or .xyz file, which is any file that is neither a .pdb nor
+	 * 			a binary trajectory
+	 */
+	protected static boolean isTinker(String file)
+	{
+		String name = file.toLowerCase(Locale.ROOT);
+		return !name.endsWith(".pdb") && !name.endsWith(TrajectoryWriter.EXTENSION);
+	}
+
+	/**
+	 * Opens up to <code>count</code> configurations of a trajectory starting at <code>first</code> and taking every
+	 * <code>stride</code>th one. Only Tinker trajectories can start past the first configuration or skip any, since
+	 * they are read through a <code>FrameIndex</code>.
+	 */
+	protected static FrameSource openFrames(String file, int first, int count, int stride) throws IOException
+	{
+		if(first == 0 && stride == 1)
+		{
+			FrameSource source = openFrames(file);
+			source.setLimit(count);
+			return source;
+		}
+		if(!isTinker(file))
+			throw new OptionException("--first and --stride need a Tinker .arc or .xyz trajectory");
+		return ArcFrameSource.open(file, first, count, stride);
+	}
+}
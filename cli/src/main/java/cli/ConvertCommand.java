@@ -0,0 +1,93 @@
+package cli;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import binary.TrajectoryWriter;
+import core.FrameSource;
+import core.PackedSystem;
+import core.RunMetrics;
+
+/**
+ * Converts a trajectory into the binary trajectory format, which later analyses read much faster than text.
+ * Badly formatted configurations are skipped.
+ * @see TrajectoryWriter
+ */
+public class ConvertCommand extends Command
+{
+	@Override
+	public String getName()
+	{
+		return "convert";
+	}
+
+	@Override
+	public String getDescription()
+	{
+		return "Converts a Tinker or .pdb trajectory into a binary trajectory";
+	}
+
+	@Override
+	public String getOptions()
+	{
+		return "  --input FILE      The Tinker .arc or .xyz, or .pdb trajectory\n"
+				+ "  --output FILE     The binary trajectory to write (default the input with the extension "
+				+ TrajectoryWriter.EXTENSION + ")\n"
+				+ "  --single          Store coordinates in single precision\n"
+				+ METRICS_OPTION;
+	}
+
+	@Override
+	public Collection<String> getFlags()
+	{
+		return Collections.singleton("single");
+	}
+
+	@Override
+	public void run(JobOptions options) throws IOException
+	{
+		RunMetrics metrics = new RunMetrics();
+		metrics.start();
+		String input = options.get("input");
+		String output = options.get("output", defaultOutput(input));
+		boolean single = options.getBoolean("single", false);
+		if(output.equals(input))
+			throw new OptionException("--output must differ from --input");
+
+		int numFrames = 0;
+		int numRejected;
+		try (FrameSource source = openFrames(input);
+				TrajectoryWriter writer = new TrajectoryWriter(output, single)) {
+			source.setReuseFrames(true);
+			while(true)
+			{
+				long begin = System.nanoTime();
+				PackedSystem ps = source.hasNext() ? source.next() : null;
+				metrics.endStage("read", begin);
+				if(ps == null)
+					break;
+				begin = System.nanoTime();
+				writer.writeFrame(ps);
+				metrics.endStage("write", begin);
+				metrics.addFrame(ps.size());
+				numFrames++;
+			}
+			numRejected = source.getNumRejected();
+			if(source.getBytesRead() > 0)
+				metrics.addBytes(source.getBytesRead());
+		}
+		if(numRejected > 0)
+			System.err.println("Skipped " + numRejected + " badly formatted configurations");
+		System.out.println("Wrote " + numFrames + " configurations to " + output);
+		report(metrics, options);
+	}
+
+	private static String defaultOutput(String input)
+	{
+		int dot = input.lastIndexOf('.');
+		int slash = Math.max(input.lastIndexOf('/'), input.lastIndexOf('\\'));
+		String base = (dot > slash) ? input.substring(0, dot) : input;
+		return base + TrajectoryWriter.EXTENSION;
+	}
+}
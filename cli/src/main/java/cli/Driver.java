@@ -0,0 +1,206 @@
+package cli;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Scanner;
+
+import core.BulkSystem;
+import lammps.DatWriter;
+import pdb.PDB_Parser;
+import tinker.ARC_Parser;
+import tinker.XYZ_Parser;
+
+/**
+ * The driver is used to execute any implemented parser or analysis operation
+ * @author Trevor Fisher
+ *
+ */
+public class Driver {
+	
+	/**
+	 * The method called when the program starts. With no arguments it converts a .pdb file into a lammps .dat file,
+	 * asking for every input on the console. Otherwise the first argument names a command, which takes its inputs from
+	 * a job file and the command line and runs without asking for anything:
+	 * <pre>
+	 * java -jar simulationstats.jar rdf --input water.arc --pairs OW-OW,OW-HW --cutoff 10 --bin 0.05
+	 * java -jar simulationstats.jar pdb2lmp --job conversion.properties
+	 * </pre>
+	 * The program exits with status 1 if a command fails and 2 if it was given bad options.
+	 * @param args	The command and its options, or nothing to run interactively
+	 */
+	public static void main(String[] args) {
+		if(args.length > 0)
+		{
+			int status = run(args);
+			if(status != 0)
+				System.exit(status);
+			return;
+		}
+		
+		Scanner sc = new Scanner(System.in);
+		
+		//Read in file name of file
+		//System.out.println("Enter the name of the coordinate file:");
+		//String fileName = sc.nextLine();
+		
+		//arc_Analysis(fileName);
+		//xyz_Analysis(fileName);
+		//TODO Implement more calculations here:
+		pdbToLmpDat(sc);
+		sc.close();
+	}
+	
+	/**
+	 * Runs the command named by the first argument.
+	 * @param args	The command and its options
+	 * @return		0 if the command succeeded, 1 if it failed, or 2 if the command or its options were bad
+	 */
+	public static int run(String[] args)
+	{
+		Map<String, Command> commands = commands();
+		if(args[0].equals("help") || args[0].equals("--help"))
+		{
+			printUsage(commands.values());
+			return 0;
+		}
+		Command command = commands.get(args[0]);
+		if(command == null)
+		{
+			System.err.println("Unknown command: " + args[0]);
+			printUsage(commands.values());
+			return 2;
+		}
+		
+		try {
+			command.run(JobOptions.parse(args, 1, command.getFlags()));
+			return 0;
+		} catch (OptionException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Options of " + command.getName() + ":");
+			System.err.print(command.getOptions());
+			return 2;
+		} catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+			//Includes bad numbers and boxes in an input file
+			System.err.println("Error running " + command.getName() + ": " + e.getMessage());
+			return 1;
+		}
+	}
+	
+	/**
+	 * @return	Every command, by name
+	 */
+	public static Map<String, Command> commands()
+	{
+		Map<String, Command> commands = new LinkedHashMap<String, Command>();
+		for(Command command : new Command[] {new RdfCommand(), new PdbToLammpsCommand(), new ConvertCommand()})
+		{
+			commands.put(command.getName(), command);
+		}
+		return commands;
+	}
+	
+	private static void printUsage(Collection<Command> commands)
+	{
+		System.err.println("Usage: java -jar simulationstats.jar COMMAND [--job FILE] [--OPTION VALUE ...]");
+		System.err.println("Options may be given in a job file of OPTION = VALUE lines. Those on the command line"
+				+ " take precedence.");
+		System.err.println("Run with no arguments to convert a .pdb file into a lammps .dat file interactively.");
+		for(Command command : commands)
+		{
+			System.err.println();
+			System.err.println(command.getName() + ": " + command.getDescription());
+			System.err.print(command.getOptions());
+		}
+	}
+	
+	/**
+	 * Begins an operation to parse a Tinker .arc file and perform calculations specified in the <code>parseFile</code> method.
+	 * @param fileName		Provided by the scanner in the driver, if no file path is specified, it defaults
+	 * 						to the current directory.
+	 */
+	public static void arc_Analysis(String fileName)
+	{
+		
+		BulkSystem simulation = new BulkSystem();
+		ARC_Parser parser = new ARC_Parser(fileName, simulation, 10000, 12.5, 0.03);
+		parser.parseFile();
+	}
+	
+	/**
+	 * OUTDATED: Because the Tinker .arc and .xyz files are the same format, the ARC_RDF function
+	 * 			can also parse the .xyz file if the number of systems in the Arc_Parser class is specified
+	 * 			to 1. Parses a Tinker .xyz file and performs a radial distribution function calculation.
+	 * @param fileName	Provided by the scanner in the driver, if no file path is specified, it defaults
+	 * 					to the current directory.	
+	 */
+	public static void xyz_Analysis(String fileName)
+	{
+
+		BulkSystem simulation = new BulkSystem();
+		
+		XYZ_Parser parser = new XYZ_Parser(fileName, simulation);
+		parser.parseFile();
+		parser.rDF(simulation, 12.5, 0.25);
+	}
+	
+	/**
+	 * Converts a .pdb file into a Lammps .dat input file while conserving bond and angle definitions.
+	 * Requires both the system .pdb file and individual .pdb files for each molecule containing bond and
+	 * angle associations. 
+	 * @param sc	The console prompt
+	 */
+	public static void pdbToLmpDat(Scanner sc)
+	{
+		PDB_Parser par = new PDB_Parser();
+		
+		//Parse the blueprint files containing atoms, bonds, angles
+		while(true)
+		{
+			System.out.println("Enter the name of the file containing a single molecule, or type \"DONE\"");
+			String bPName = sc.nextLine();
+			
+			if(bPName.equals("DONE"))
+			{
+				break;
+			}
+			
+			par.parseBlueprintFile(bPName);
+		}
+		
+		//Parse the file containing the entire system
+		String sysName = null;
+		boolean badFile = true;
+		while(badFile)
+		{
+			System.out.println("Enter the name of the system file.");
+			sysName = sc.nextLine();
+			Path path = Paths.get(sysName);
+			if(Files.exists(path))
+			{
+				badFile = false;
+			}
+			else
+			{
+				System.err.println("File does not exist. Please enter a valid file name.");
+			}
+		}
+		
+		//The .dat file is only asked for once the system file is known to open
+		try {
+			new FileInputStream(sysName).close();
+		} catch (IOException e) {
+			System.err.println("File not found.");
+			return;
+		}
+		
+		//Write the molecules to a Lammps .dat file, reading them from the system file as they are written
+		DatWriter.writeFile(par.getSystemSource(sysName));
+	}
+}
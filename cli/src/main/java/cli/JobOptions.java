@@ -0,0 +1,186 @@
+package cli;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The inputs of a command, read from a job file and from the command line. A job file is a Java properties file of
+ * <code>key = value</code> lines, given with <code>--job FILE</code>. Any option can also be given on the command line as
+ * <code>--key value</code> or <code>--key=value</code>, which overrides the job file. An option given with no value is
+ * set to <code>true</code>. A flag, such as <code>--single</code>, never takes the next argument as its value, so a
+ * stray argument after it is reported rather than swallowed.
+ * <p>
+ * Values for each atom type, such as masses, are given as keys with the type after a dot, for example
+ * <code>mass.OW = 15.9994</code>. Lists, such as the atom pairs of an RDF, are separated by commas or spaces.
+ * <p>
+ * Missing or badly formatted options throw an <code>OptionException</code> naming the option.
+ */
+public class JobOptions
+{
+	private Properties properties;
+
+	public JobOptions()
+	{
+		properties = new Properties();
+	}
+
+	/**
+	 * Reads the options from the command line, loading the job file if one is given.
+	 * @param args		The command line
+	 * @param start		The index of the first option, after the command name
+	 * @return			The options
+	 * @throws IOException	If the job file could not be read
+	 */
+	public static JobOptions parse(String[] args, int start) throws IOException
+	{
+		return parse(args, start, Collections.<String>emptySet());
+	}
+
+	/**
+	 * @param flags		The options that are set by being given and never take a value from the next argument
+	 * @see #parse(String[], int)
+	 */
+	public static JobOptions parse(String[] args, int start, Collection<String> flags) throws IOException
+	{
+		Properties given = new Properties();
+		for(int i = start; i < args.length; i++)
+		{
+			if(!args[i].startsWith("--") || args[i].length() == 2)
+				throw new OptionException("Unexpected argument: " + args[i]);
+			String key = args[i].substring(2);
+			String value;
+			int equals = key.indexOf('=');
+			if(equals >= 0)
+			{
+				value = key.substring(equals + 1);
+				key = key.substring(0, equals);
+			}
+			else if(!flags.contains(key) && i + 1 < args.length && !args[i+1].startsWith("--"))
+			{
+				value = args[++i];
+			}
+			else
+			{
+				value = "true";
+			}
+			given.setProperty(key, value);
+		}
+
+		JobOptions options = new JobOptions();
+		String job = given.getProperty("job");
+		if(job != null)
+		{
+			try (InputStream in = new FileInputStream(job)) {
+				options.properties.load(in);
+			}
+		}
+		options.properties.putAll(given);
+		return options;
+	}
+
+	public void set(String key, String value)
+	{
+		properties.setProperty(key, value);
+	}
+
+	public boolean has(String key)
+	{
+		return properties.getProperty(key) != null;
+	}
+
+	/**
+	 * @return	The value of a required option
+	 */
+	public String get(String key)
+	{
+		String value = properties.getProperty(key);
+		if(value == null || value.trim().isEmpty())
+			throw new OptionException("Missing option --" + key);
+		return value.trim();
+	}
+
+	public String get(String key, String defaultValue)
+	{
+		return has(key) ? get(key) : defaultValue;
+	}
+
+	public double getDouble(String key, double defaultValue)
+	{
+		if(!has(key))
+			return defaultValue;
+		try {
+			return Double.parseDouble(get(key));
+		} catch(NumberFormatException e) {
+			throw new OptionException("--" + key + " must be a number, not " + get(key));
+		}
+	}
+
+	public int getInt(String key, int defaultValue)
+	{
+		if(!has(key))
+			return defaultValue;
+		try {
+			return Integer.parseInt(get(key));
+		} catch(NumberFormatException e) {
+			throw new OptionException("--" + key + " must be a whole number, not " + get(key));
+		}
+	}
+
+	public boolean getBoolean(String key, boolean defaultValue)
+	{
+		if(!has(key))
+			return defaultValue;
+		String value = get(key);
+		if(value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes"))
+			return true;
+		if(value.equalsIgnoreCase("false") || value.equalsIgnoreCase("no"))
+			return false;
+		throw new OptionException("--" + key + " must be true or false, not " + value);
+	}
+
+	/**
+	 * @return	The items of a list option, or of <code>defaultValue</code> if it is not given
+	 */
+	public List<String> getList(String key, String defaultValue)
+	{
+		String value = has(key) ? get(key) : defaultValue;
+		List<String> items = new ArrayList<String>();
+		if(value != null)
+		{
+			for(String item : value.trim().split("[,\\s]+"))
+			{
+				if(!item.isEmpty())
+					items.add(item);
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * @param prefix	The name of the value, such as <code>mass</code>
+	 * @return			The value given for each atom type as <code>prefix.TYPE</code>, sorted by type
+	 */
+	public Map<String, Double> getTypeValues(String prefix)
+	{
+		Map<String, Double> values = new LinkedHashMap<String, Double>();
+		String[] keys = properties.stringPropertyNames().toArray(new String[0]);
+		Arrays.sort(keys);
+		for(String key : keys)
+		{
+			if(key.startsWith(prefix + ".") && key.length() > prefix.length() + 1)
+			{
+				values.put(key.substring(prefix.length() + 1), getDouble(key, 0));
+			}
+		}
+		return values;
+	}
+}
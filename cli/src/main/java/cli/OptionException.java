@@ -0,0 +1,17 @@
+package cli;
+
+/**
+ * Thrown when the options of a command are missing, badly formatted or do not fit together. Only these errors are
+ * reported as a mistake on the command line, with the options of the command; errors in the contents of an input file
+ * are reported as a failed run.
+ * @see JobOptions
+ */
+public class OptionException extends IllegalArgumentException
+{
+	private static final long serialVersionUID = 1L;
+
+	public OptionException(String message)
+	{
+		super(message);
+	}
+}
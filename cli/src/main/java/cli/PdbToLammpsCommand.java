@@ -0,0 +1,110 @@
+package cli;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import core.Atom;
+import core.MolBlueprint;
+import core.MoleculeSource;
+import core.MoleculeSource.MoleculeHandler;
+import core.RunMetrics;
+import lammps.DatWriter;
+import pdb.PDB_Parser;
+
+/**
+ * Converts a Packmol built .pdb file into a lammps .dat input file, keeping the bonds and angles given by the blueprint
+ * file of each molecule. This is the same conversion the interactive driver does, with the mass and charge of every
+ * atom type given up front so nothing is asked for. The system is streamed from the file, one molecule at a time, so
+ * systems of any size can be converted.
+ * @see PDB_Parser
+ * @see DatWriter
+ */
+public class PdbToLammpsCommand extends Command
+{
+	@Override
+	public String getName()
+	{
+		return "pdb2lmp";
+	}
+
+	@Override
+	public String getDescription()
+	{
+		return "Converts a Packmol .pdb file into a lammps .dat input file";
+	}
+
+	@Override
+	public String getOptions()
+	{
+		return "  --blueprints LIST  The .pdb files describing the bonds and angles of each molecule\n"
+				+ "  --system FILE      The .pdb file holding the whole system\n"
+				+ "  --output FILE      The lammps .dat file to write\n"
+				+ "  --mass.TYPE M      The mass of each atom type, such as --mass.OW 15.9994\n"
+				+ "  --charge.TYPE Q    The charge of each atom type, such as --charge.OW -0.8476\n"
+				+ "  --threads N        The number of threads formatting the file (default 1)\n"
+				+ METRICS_OPTION;
+	}
+
+	@Override
+	public void run(JobOptions options) throws IOException
+	{
+		final RunMetrics metrics = new RunMetrics();
+		metrics.start();
+		String system = options.get("system");
+		String output = options.get("output");
+		int threads = options.getInt("threads", 1);
+		final Map<String, Double> masses = options.getTypeValues("mass");
+		final Map<String, Double> charges = options.getTypeValues("charge");
+
+		//The parser only reports files it cannot find, so check them first
+		long begin = System.nanoTime();
+		PDB_Parser parser = new PDB_Parser();
+		for(String blueprint : options.getList("blueprints", null))
+		{
+			parser.parseBlueprintFile(existing(blueprint));
+			metrics.addBytes(new File(blueprint).length());
+		}
+		MoleculeSource source = parser.getSystemSource(existing(system));
+		metrics.addBytes(new File(system).length());
+
+		//Every atom type needs a mass and a charge, or the writer would ask for them
+		final TreeSet<String> missing = new TreeSet<String>();
+		final long[] numMols = new long[1];
+		source.readMolecules(new MoleculeHandler() {
+			@Override
+			public void molecule(List<Atom> atoms, MolBlueprint blueprint)
+			{
+				numMols[0]++;
+				metrics.addAtoms(atoms.size());
+				for(Atom atom : atoms)
+				{
+					if(!masses.containsKey(atom.getType()))
+						missing.add("mass." + atom.getType());
+					if(!charges.containsKey(atom.getType()))
+						missing.add("charge." + atom.getType());
+				}
+			}
+		});
+		metrics.endStage("read", begin);
+		if(!missing.isEmpty())
+			throw new OptionException("Missing options " + String.join(", ", missing));
+
+		//The molecules are read again while writing, so the system is never held in memory
+		begin = System.nanoTime();
+		DatWriter.writeFile(source, output, masses, charges, threads);
+		metrics.endStage("write", begin);
+		System.out.println("Wrote " + numMols[0] + " molecules to " + output);
+		report(metrics, options);
+	}
+
+	private static String existing(String file) throws FileNotFoundException
+	{
+		if(!new File(file).isFile())
+			throw new FileNotFoundException("File not found: " + file);
+		return file;
+	}
+}
@@ -0,0 +1,203 @@
+package cli;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import calculations.AnalysisPipeline;
+import calculations.PartialRDF;
+import core.FrameSource;
+import core.PackedSystem;
+import core.RunMetrics;
+import tinker.FrameIndex;
+import tinker.ParallelArcReader;
+
+/**
+ * Calculates the RDFs of one or more pairs of atom types over a trajectory, in a single pass over the file. The RDFs
+ * are written as tab separated columns, one row per shell, starting with the inner radius of the shell. With
+ * <code>--errors</code>, the standard error of each RDF follows it in its own column.
+ * @see PartialRDF
+ */
+public class RdfCommand extends Command
+{
+	@Override
+	public String getName()
+	{
+		return "rdf";
+	}
+
+	@Override
+	public String getDescription()
+	{
+		return "Calculates radial distribution functions over a trajectory";
+	}
+
+	@Override
+	public String getOptions()
+	{
+		return "  --input FILE      The trajectory: Tinker .arc or .xyz, .pdb, or binary trajectory\n"
+				+ "  --pairs LIST      The atom type pairs, such as OW-OW,OW-HW (default OW-OW)\n"
+				+ "  --cutoff R        The largest distance in angstroms (default 12.5)\n"
+				+ "  --bin WIDTH       The width of each shell in angstroms (default 0.25)\n"
+				+ "  --frames N        The number of configurations to read (default all)\n"
+				+ "  --first K         The first configuration to read, starting at 0 (default 0)\n"
+				+ "  --stride S        Read every Sth configuration (default 1)\n"
+				+ "  --threads N       The number of threads analyzing configurations (default 1)\n"
+				+ "  --parse-threads N Parse and analyze a Tinker trajectory on N threads, each reading its own\n"
+				+ "                    part of the file, instead of parsing on one thread (default off)\n"
+				+ "  --output FILE     Where to write the RDFs (default the console)\n"
+				+ "  --errors          Add a column with the standard error of each RDF\n"
+				+ METRICS_OPTION;
+	}
+
+	@Override
+	public Collection<String> getFlags()
+	{
+		return Collections.singleton("errors");
+	}
+
+	@Override
+	public void run(JobOptions options) throws IOException
+	{
+		RunMetrics metrics = new RunMetrics();
+		metrics.start();
+		String input = options.get("input");
+		double bin = options.getDouble("bin", 0.25);
+		double cutoff = options.getDouble("cutoff", 12.5);
+		if(!(bin > 0) || !(cutoff >= bin))
+			throw new OptionException("--bin must be positive and no larger than --cutoff");
+		int frames = options.getInt("frames", Integer.MAX_VALUE);
+		int first = options.getInt("first", 0);
+		int stride = options.getInt("stride", 1);
+		if(first < 0 || stride < 1)
+			throw new OptionException("--first must not be negative and --stride must be positive");
+		int threads = options.getInt("threads", 1);
+		int parseThreads = options.getInt("parse-threads", 0);
+		boolean errors = options.getBoolean("errors", false);
+
+		PartialRDF rdf = new PartialRDF(bin, cutoff);
+		for(String pair : options.getList("pairs", "OW-OW"))
+		{
+			String[] types = pair.split("-");
+			if(types.length != 2 || types[0].isEmpty() || types[1].isEmpty())
+				throw new OptionException("Atom pairs must be two types joined by -, not " + pair);
+			rdf.addPair(types[0], types[1]);
+		}
+
+		AnalysisPipeline pipeline = new AnalysisPipeline();
+		pipeline.add(rdf);
+		pipeline.setNumThreads(threads);
+		pipeline.setMetrics(metrics);
+		int numFrames;
+		if(parseThreads > 0)
+		{
+			numFrames = readParallel(input, first, frames, stride, parseThreads, pipeline, metrics);
+		}
+		else
+		{
+			try (FrameSource source = openFrames(input, first, frames, stride)) {
+				numFrames = pipeline.run(source);
+			}
+		}
+
+		long begin = System.nanoTime();
+		String output = options.get("output", null);
+		Writer out = (output == null) ? new OutputStreamWriter(System.out) : new FileWriter(output);
+		BufferedWriter bw = new BufferedWriter(out);
+		try {
+			write(rdf, bin, errors, bw);
+		} finally {
+			//The console is left open
+			if(output == null)
+				bw.flush();
+			else
+				bw.close();
+		}
+		metrics.endStage("write", begin);
+		if(output != null)
+		{
+			System.out.println("Calculated " + rdf.getNumPairs() + " RDFs over " + numFrames + " configurations");
+		}
+		report(metrics, options);
+	}
+
+	/**
+	 * Parses the selected configurations of a Tinker trajectory with a <code>ParallelArcReader</code>, analyzing each
+	 * one on the thread that parsed it, then finishes the pipeline.
+	 * @return	The number of configurations analyzed
+	 */
+	static int readParallel(String input, int first, int count, int stride, int numThreads,
+			final AnalysisPipeline pipeline, RunMetrics metrics) throws IOException
+	{
+		if(!isTinker(input))
+			throw new OptionException("--parse-threads needs a Tinker .arc or .xyz trajectory");
+		FrameIndex index = FrameIndex.open(input);
+		int[] selected = index.selectCount(first, count, stride);
+		final AtomicInteger numFrames = new AtomicInteger();
+		new ParallelArcReader(input, index, numThreads).read(selected, new ParallelArcReader.FrameHandler() {
+			@Override
+			public void accept(int frame, PackedSystem ps) {
+				pipeline.accept(frame, ps);
+				numFrames.incrementAndGet();
+			}
+
+			@Override
+			public void reject(int frame) {
+				System.err.println("Bad atom in config " + (frame+1));
+			}
+		});
+		long bytes = 0;
+		for(int frame : selected)
+		{
+			bytes += index.getEndOffset(frame) - index.getOffset(frame);
+		}
+		metrics.addBytes(bytes);
+		pipeline.finish();
+		return numFrames.get();
+	}
+
+	/**
+	 * Writes a header naming each pair, then one row per shell with the inner radius of the shell and each RDF.
+	 * @param errors	Whether each RDF is followed by its standard error
+	 */
+	static void write(PartialRDF rdf, double bin, boolean errors, BufferedWriter bw) throws IOException
+	{
+		int numColumns = errors ? 2 : 1;
+		double[][] values = new double[numColumns*rdf.getNumPairs()][];
+		bw.write("#r");
+		for(int p = 0; p < rdf.getNumPairs(); p++)
+		{
+			String pair = rdf.getCenterAtom(p) + "-" + rdf.getOtherAtom(p);
+			values[numColumns*p] = rdf.getRDF(p);
+			bw.write("\t" + pair);
+			if(errors)
+			{
+				values[numColumns*p + 1] = rdf.getStandardError(p);
+				bw.write("\t" + pair + " error");
+			}
+		}
+		bw.newLine();
+
+		//Show the radius to as many decimal places as the bin width has
+		int places = Math.max(2, BigDecimal.valueOf(bin).stripTrailingZeros().scale());
+		String radius = "%." + places + "f";
+		int numShells = (values.length == 0) ? 0 : values[0].length;
+		for(int i = 0; i < numShells; i++)
+		{
+			bw.write(String.format(Locale.ROOT, radius, i*bin));
+			for(double[] value : values)
+			{
+				bw.write("\t" + value[i]);
+			}
+			bw.newLine();
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package cli;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import calculations.RDFAnalysis;
+import core.PackedSystem;
+import lammps.DatWriter;
+import pdb.PDB_Parser;
+
+public class CommandTest {
+
+	private static File write(String suffix, String text) throws IOException
+	{
+		File file = File.createTempFile("test", suffix);
+		file.deleteOnExit();
+		FileWriter fw = new FileWriter(file);
+		fw.write(text);
+		fw.close();
+		return file;
+	}
+
+	private static File temp(String suffix) throws IOException
+	{
+		File file = File.createTempFile("test", suffix);
+		file.deleteOnExit();
+		return file;
+	}
+
+	private static JobOptions options(String... args) throws IOException
+	{
+		return JobOptions.parse(args, 0);
+	}
+
+	/**
+	 * Writes configurations of random oxygens and hydrogens in a 20 angstrom box to a Tinker file, also adding each
+	 * one to <code>systems</code>.
+	 */
+	private static File writeWater(int numFrames, List<PackedSystem> systems) throws IOException
+	{
+		Random rand = new Random(3);
+		StringBuilder arc = new StringBuilder();
+		for(int frame = 0; frame < numFrames; frame++)
+		{
+			PackedSystem ps = new PackedSystem();
+			ps.setXBox(20.0);
+			ps.setYBox(20.0);
+			ps.setZBox(20.0);
+			arc.append("   200\n    20.000000   20.000000   20.000000   90.000000   90.000000   90.000000\n");
+			for(int i = 0; i < 200; i++)
+			{
+				String type = (i % 3 == 0) ? "OW" : "HW";
+				double x = Math.round(rand.nextDouble()*20e6)/1e6;
+				double y = Math.round(rand.nextDouble()*20e6)/1e6;
+				double z = Math.round(rand.nextDouble()*20e6)/1e6;
+				arc.append(String.format("%6d  %s %12.6f%12.6f%12.6f     1\n", i + 1, type, x, y, z));
+				ps.add(i + 1, type, x, y, z);
+			}
+			systems.add(ps);
+		}
+		return write(".arc", arc.toString());
+	}
+
+	@Test
+	public void testRdfMatchesAnalysis() throws IOException {
+		//Three configurations of random oxygens and hydrogens in a 20 angstrom box
+		List<PackedSystem> systems = new ArrayList<PackedSystem>();
+		File input = writeWater(3, systems);
+		RDFAnalysis expected = new RDFAnalysis("OW", "HW", 0.5, 8.0);
+		for(int frame = 0; frame < 3; frame++)
+		{
+			expected.accept(frame, systems.get(frame));
+		}
+		expected.finish();
+		File output = temp(".txt");
+
+		new RdfCommand().run(options("--input", input.getPath(), "--pairs", "OW-HW,OW-OW", "--bin", "0.5",
+				"--cutoff", "8", "--threads", "2", "--output", output.getPath()));
+		List<String> lines = Files.readAllLines(output.toPath());
+		assertEquals("#r\tOW-HW\tOW-OW", lines.get(0));
+		assertEquals(17, lines.size());
+		for(int i = 0; i < 16; i++)
+		{
+			String[] columns = lines.get(i + 1).split("\t");
+			assertEquals(String.format("%.2f", i*0.5), columns[0]);
+			assertEquals(expected.getRDF()[i], Double.parseDouble(columns[1]), 0.0);
+		}
+
+		//The binary trajectory holds the same configurations
+		File binary = temp(".sstb");
+		new ConvertCommand().run(options("--input", input.getPath(), "--output", binary.getPath()));
+		File fromBinary = temp(".txt");
+		new RdfCommand().run(options("--input", binary.getPath(), "--pairs", "OW-HW,OW-OW", "--bin", "0.5",
+				"--cutoff", "8", "--output", fromBinary.getPath()));
+		assertEquals(lines, Files.readAllLines(fromBinary.toPath()));
+	}
+
+	@Test
+	public void testRdfFrameRange() throws IOException {
+		List<PackedSystem> systems = new ArrayList<PackedSystem>();
+		File input = writeWater(6, systems);
+		new File(input.getPath() + ".idx").deleteOnExit();
+
+		//Two configurations starting at the second and taking every other one are the second and fourth
+		RDFAnalysis expected = new RDFAnalysis("OW", "OW", 0.5, 8.0);
+		expected.accept(1, systems.get(1));
+		expected.accept(3, systems.get(3));
+		expected.finish();
+		File output = temp(".txt");
+		new RdfCommand().run(options("--input", input.getPath(), "--bin", "0.5", "--cutoff", "8", "--first", "1",
+				"--stride", "2", "--frames", "2", "--output", output.getPath()));
+		List<String> lines = Files.readAllLines(output.toPath());
+		assertEquals(17, lines.size());
+		for(int i = 0; i < 16; i++)
+		{
+			assertEquals(expected.getRDF()[i], Double.parseDouble(lines.get(i + 1).split("\t")[1]), 0.0);
+		}
+
+		//Without a limit the stride runs to the end of the trajectory
+		File all = temp(".txt");
+		new RdfCommand().run(options("--input", input.getPath(), "--bin", "0.5", "--cutoff", "8", "--first", "1",
+				"--stride", "2", "--output", all.getPath()));
+		expected = new RDFAnalysis("OW", "OW", 0.5, 8.0);
+		for(int frame = 1; frame < 6; frame += 2)
+		{
+			expected.accept(frame, systems.get(frame));
+		}
+		expected.finish();
+		lines = Files.readAllLines(all.toPath());
+		for(int i = 0; i < 16; i++)
+		{
+			assertEquals(expected.getRDF()[i], Double.parseDouble(lines.get(i + 1).split("\t")[1]), 0.0);
+		}
+
+		//Each RDF can be followed by its standard error
+		File errors = temp(".txt");
+		new RdfCommand().run(options("--input", input.getPath(), "--bin", "0.5", "--cutoff", "8", "--errors",
+				"--output", errors.getPath()));
+		lines = Files.readAllLines(errors.toPath());
+		assertEquals("#r\tOW-OW\tOW-OW error", lines.get(0));
+		assertEquals(3, lines.get(10).split("\t").length);
+		assertTrue(Double.parseDouble(lines.get(10).split("\t")[2]) > 0);
+
+		try {
+			new RdfCommand().run(options("--input", input.getPath(), "--stride", "0"));
+			fail();
+		} catch(OptionException e) {
+			assertEquals("--first must not be negative and --stride must be positive", e.getMessage());
+		}
+		File pdb = write(".pdb", "HETATM    1  OW  WAT A   1       1.000   1.000   1.000\nEND\n");
+		try {
+			new RdfCommand().run(options("--input", pdb.getPath(), "--first", "1"));
+			fail();
+		} catch(OptionException e) {
+			assertEquals("--first and --stride need a Tinker .arc or .xyz trajectory", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testRdfParseThreads() throws IOException {
+		File input = writeWater(6, new ArrayList<PackedSystem>());
+		new File(input.getPath() + ".idx").deleteOnExit();
+
+		//Parsing on several threads gives the same RDFs as reading on one
+		String[][] ranges = {{}, {"--first", "1", "--stride", "2"}, {"--frames", "4"}};
+		for(String[] range : ranges)
+		{
+			List<String> args = new ArrayList<String>(Arrays.asList("--input", input.getPath(), "--pairs", "OW-HW,OW-OW",
+					"--bin", "0.5", "--cutoff", "8"));
+			args.addAll(Arrays.asList(range));
+			File serial = temp(".txt");
+			args.addAll(Arrays.asList("--output", serial.getPath()));
+			new RdfCommand().run(options(args.toArray(new String[0])));
+			File parallel = temp(".txt");
+			args.set(args.size() - 1, parallel.getPath());
+			args.addAll(Arrays.asList("--parse-threads", "3"));
+			new RdfCommand().run(options(args.toArray(new String[0])));
+			assertEquals(Files.readAllLines(serial.toPath()), Files.readAllLines(parallel.toPath()));
+		}
+
+		File pdb = write(".pdb", "HETATM    1  OW  WAT A   1       1.000   1.000   1.000\nEND\n");
+		try {
+			new RdfCommand().run(options("--input", pdb.getPath(), "--parse-threads", "2"));
+			fail();
+		} catch(OptionException e) {
+			assertEquals("--parse-threads needs a Tinker .arc or .xyz trajectory", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testPdbToLammps() throws IOException {
+		File blueprint = write(".pdb", "HETATM    1  OW  WAT A   1       0.000   0.000   0.000\n"
+				+ "HETATM    2  HW  WAT A   1       0.957   0.000   0.000\n"
+				+ "HETATM    3  HW  WAT A   1      -0.240   0.927   0.000\n"
+				+ "CONECT    2    1\n"
+				+ "CONECT    3    1\n"
+				+ "CONECT    2    1    3\n");
+		File system = write(".pdb", "HETATM    1  OW  WAT A   1       1.000   1.000   1.000\n"
+				+ "HETATM    2  HW  WAT A   1       1.957   1.000   1.000\n"
+				+ "HETATM    3  HW  WAT A   1       0.760   1.927   1.000\n"
+				+ "HETATM    4  OW  WAT A   2       5.000   5.000   5.000\n"
+				+ "HETATM    5  HW  WAT A   2       5.957   5.000   5.000\n"
+				+ "HETATM    6  HW  WAT A   2       4.760   5.927   5.000\n"
+				+ "END\n");
+		File output = temp(".dat");
+		String[] args = {"--blueprints", blueprint.getPath(), "--system", system.getPath(), "--output", output.getPath(),
+				"--mass.OW", "15.9994", "--mass.HW", "1.008", "--charge.OW", "-0.8476"};
+
+		//A missing charge is reported instead of asked for
+		try {
+			new PdbToLammpsCommand().run(options(args));
+			fail();
+		} catch(IllegalArgumentException e) {
+			assertEquals("Missing options charge.HW", e.getMessage());
+		}
+
+		JobOptions options = options(args);
+		options.set("charge.HW", "0.4238");
+		new PdbToLammpsCommand().run(options);
+		String dat = new String(Files.readAllBytes(output.toPath()));
+		assertTrue(dat.contains("\t\t6 atoms"));
+		assertTrue(dat.contains("\t\t4 bonds"));
+		assertTrue(dat.contains("\t\t2 angles"));
+		assertTrue(dat.contains(" 0.423800     5.957000     5.000000     5.000000"));
+
+		//Streaming the system gives the same file as holding every molecule in memory
+		PDB_Parser parser = new PDB_Parser();
+		parser.parseBlueprintFile(blueprint.getPath());
+		parser.parseSystemFile(system.getPath());
+		StringWriter inMemory = new StringWriter();
+		DatWriter.writeFile(parser.getMolecules(), new BufferedWriter(inMemory), options.getTypeValues("mass"),
+				options.getTypeValues("charge"));
+		StringWriter streamed = new StringWriter();
+		DatWriter.writeFile(parser.getSystemSource(system.getPath()), new BufferedWriter(streamed),
+				options.getTypeValues("mass"), options.getTypeValues("charge"));
+		assertEquals(inMemory.toString(), streamed.toString());
+	}
+
+	@Test
+	public void testExitStatus() throws IOException {
+		//Angles that cannot form a box are an error in the file, not in the options
+		File input = write(".arc", "     1\n    20.000000   20.000000   20.000000   10.000000   10.000000  170.000000\n"
+				+ "     1  OW     1.000000    1.000000    1.000000     1\n");
+		File output = temp(".txt");
+		assertEquals(1, Driver.run(new String[] {"rdf", "--input", input.getPath(), "--output", output.getPath()}));
+		assertEquals(2, Driver.run(new String[] {"rdf", "--input", input.getPath(), "--bin", "0"}));
+		assertEquals(2, Driver.run(new String[] {"rdf", "--input", input.getPath(), "--frames", "many"}));
+	}
+}
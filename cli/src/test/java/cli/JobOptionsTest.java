@@ -0,0 +1,77 @@
+package cli;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class JobOptionsTest {
+
+	@Test
+	public void testCommandLineOverridesJobFile() throws IOException {
+		File job = File.createTempFile("job", ".properties");
+		job.deleteOnExit();
+		FileWriter fw = new FileWriter(job);
+		fw.write("# An RDF job\ninput = water.arc\ncutoff = 12.5\npairs = OW-OW, OW-HW\nmass.OW = 15.9994\n");
+		fw.close();
+
+		JobOptions options = JobOptions.parse(new String[] {"rdf", "--cutoff", "10", "--job", job.getPath(),
+				"--mass.HW=1.008", "--single", "--charge.HW", "-0.4238"}, 1);
+		assertEquals("water.arc", options.get("input"));
+		assertEquals(10.0, options.getDouble("cutoff", 0), 0.0);
+		assertEquals(0.25, options.getDouble("bin", 0.25), 0.0);
+		assertEquals(Arrays.asList("OW-OW", "OW-HW"), options.getList("pairs", null));
+		assertTrue(options.getBoolean("single", false));
+		Map<String, Double> masses = options.getTypeValues("mass");
+		assertEquals(2, masses.size());
+		assertEquals(1.008, masses.get("HW"), 0.0);
+		assertEquals(15.9994, masses.get("OW"), 0.0);
+		assertEquals(-0.4238, options.getTypeValues("charge").get("HW"), 0.0);
+	}
+
+	@Test
+	public void testFlags() throws IOException {
+		JobOptions options = JobOptions.parse(new String[] {"--single", "--input", "water.arc"}, 0,
+				Collections.singleton("single"));
+		assertTrue(options.getBoolean("single", false));
+		assertEquals("water.arc", options.get("input"));
+		assertFalse(JobOptions.parse(new String[] {"--single=no"}, 0, Collections.singleton("single"))
+				.getBoolean("single", true));
+		//A flag leaves a stray argument after it to be reported
+		try {
+			JobOptions.parse(new String[] {"--single", "water.arc"}, 0, Collections.singleton("single"));
+			fail();
+		} catch(IllegalArgumentException e) {
+			assertEquals("Unexpected argument: water.arc", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testBadOptions() throws IOException {
+		JobOptions options = JobOptions.parse(new String[] {"--cutoff", "far"}, 0);
+		try {
+			options.getDouble("cutoff", 12.5);
+			fail();
+		} catch(IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("--cutoff"));
+		}
+		try {
+			options.get("input");
+			fail();
+		} catch(IllegalArgumentException e) {
+			assertEquals("Missing option --input", e.getMessage());
+		}
+		try {
+			JobOptions.parse(new String[] {"water.arc"}, 0);
+			fail();
+		} catch(IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains("water.arc"));
+		}
+	}
+}
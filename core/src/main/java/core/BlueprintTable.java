@@ -0,0 +1,105 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the blueprint of a molecule by the fingerprint of its atom types. Fingerprints are kept in an open addressed
+ * table of <code>long</code>s, so a lookup does not box the fingerprint or build a key. Every match is confirmed
+ * against the atom types, so two blueprints whose fingerprints collide are both kept and told apart.
+ * @see MolBlueprint#fingerprint(long, String)
+ */
+public class BlueprintTable
+{
+	private long[] fingerprints;
+	private MolBlueprint[] entries;
+	/**The blueprints in the order they were added*/
+	private ArrayList<MolBlueprint> blueprints;
+
+	public BlueprintTable()
+	{
+		fingerprints = new long[16];
+		entries = new MolBlueprint[16];
+		blueprints = new ArrayList<MolBlueprint>();
+	}
+
+	/**
+	 * Adds a blueprint, replacing any blueprint with the same atom types.
+	 */
+	public void add(MolBlueprint blueprint)
+	{
+		if(2*(blueprints.size() + 1) > entries.length)
+			grow();
+		int slot = slot(blueprint.getFingerprint(), blueprint.getTypes());
+		if(entries[slot] != null)
+			blueprints.set(blueprints.indexOf(entries[slot]), blueprint);
+		else
+			blueprints.add(blueprint);
+		fingerprints[slot] = blueprint.getFingerprint();
+		entries[slot] = blueprint;
+	}
+
+	/**
+	 * @param fingerprint	The fingerprint of the atom types of <code>atoms</code>
+	 * @param atoms			The atoms of a molecule
+	 * @return				The blueprint with exactly the atom types of <code>atoms</code>, or null if there is none
+	 */
+	public MolBlueprint find(long fingerprint, List<Atom> atoms)
+	{
+		int mask = entries.length - 1;
+		for(int i = index(fingerprint); entries[i] != null; i = (i + 1) & mask)
+		{
+			if(fingerprints[i] == fingerprint && entries[i].matches(atoms))
+				return entries[i];
+		}
+		return null;
+	}
+
+	/**
+	 * @return	The blueprints in the order they were added
+	 */
+	public List<MolBlueprint> getBlueprints()
+	{
+		return blueprints;
+	}
+
+	public int size()
+	{
+		return blueprints.size();
+	}
+
+	/**
+	 * @return	The slot holding the blueprint with these types, or the empty slot where it belongs
+	 */
+	private int slot(long fingerprint, List<String> types)
+	{
+		int mask = entries.length - 1;
+		int i = index(fingerprint);
+		while(entries[i] != null && (fingerprints[i] != fingerprint || !entries[i].getTypes().equals(types)))
+		{
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	private int index(long fingerprint)
+	{
+		return (int) (fingerprint ^ (fingerprint >>> 32)) & (entries.length - 1);
+	}
+
+	private void grow()
+	{
+		MolBlueprint[] old = entries;
+		fingerprints = new long[2*old.length];
+		entries = new MolBlueprint[2*old.length];
+		for(MolBlueprint blueprint : old)
+		{
+			if(blueprint != null)
+			{
+				int slot = slot(blueprint.getFingerprint(), blueprint.getTypes());
+				fingerprints[slot] = blueprint.getFingerprint();
+				entries[slot] = blueprint;
+			}
+		}
+	}
+}
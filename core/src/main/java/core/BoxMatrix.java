@@ -0,0 +1,191 @@
+package core;
+
+/**
+ * The shape of a periodic simulation box, which may be triclinic. The box is given the way Tinker and PDB files give
+ * it, as the lengths a, b and c of its three edges and the angles alpha (between b and c), beta (between a and c) and
+ * gamma (between a and b) in degrees. It is stored as the cell matrix H, whose columns are the edge vectors, with a
+ * along x and b in the xy plane so H is upper triangular, together with the inverse of H.
+ * <p>
+ * A Cartesian separation r has the fractional coordinates s = H<sup>-1</sup>r. The minimum image is found by rounding
+ * each fractional coordinate to the nearest integer, removing it and transforming back. This finds the closest image
+ * for any separation shorter than half the smallest width of the box, as long as the box is not more skewed than Tinker
+ * and LAMMPS allow (each edge tilted by no more than half the length of the edges before it).
+ * <p>
+ * When all three angles are exactly 90 degrees the box is orthorhombic and the off-diagonal entries are exactly zero.
+ */
+public class BoxMatrix
+{
+	private double a, b, c;
+	private double alpha, beta, gamma;
+
+	/**The nonzero entries of the cell matrix, by row*/
+	private double ax, bx, cx, by, cy, cz;
+	/**The nonzero entries of the inverse cell matrix, by row*/
+	private double ixx, ixy, ixz, iyy, iyz, izz;
+	private boolean orthorhombic;
+
+	/**
+	 * @param a			The length of the first edge, along x
+	 * @param b			The length of the second edge
+	 * @param c			The length of the third edge
+	 * @param alpha		The angle between b and c in degrees
+	 * @param beta		The angle between a and c in degrees
+	 * @param gamma		The angle between a and b in degrees
+	 * @throws IllegalArgumentException		If the angles do not form a box
+	 */
+	public BoxMatrix(double a, double b, double c, double alpha, double beta, double gamma)
+	{
+		this.a = a;
+		this.b = b;
+		this.c = c;
+		this.alpha = alpha;
+		this.beta = beta;
+		this.gamma = gamma;
+		orthorhombic = alpha == 90 && beta == 90 && gamma == 90;
+
+		double cosAlpha = cos(alpha);
+		double cosBeta = cos(beta);
+		double cosGamma = cos(gamma);
+		double sinGamma = (gamma == 90) ? 1 : Math.sin(Math.toRadians(gamma));
+		ax = a;
+		bx = b*cosGamma;
+		by = b*sinGamma;
+		cx = c*cosBeta;
+		cy = c*(cosAlpha - cosBeta*cosGamma)/sinGamma;
+		double czSquared = c*c - cx*cx - cy*cy;
+		if(!(czSquared > 0))
+			throw new IllegalArgumentException("The angles " + alpha + ", " + beta + ", " + gamma + " do not form a box");
+		cz = orthorhombic ? c : Math.sqrt(czSquared);
+
+		ixx = 1.0/ax;
+		iyy = 1.0/by;
+		izz = 1.0/cz;
+		ixy = -bx/(ax*by);
+		iyz = -cy/(by*cz);
+		ixz = (bx*cy - cx*by)/(ax*by*cz);
+	}
+
+	/**
+	 * @return	A box with right angles and the given edge lengths
+	 */
+	public static BoxMatrix orthorhombic(double xBox, double yBox, double zBox)
+	{
+		return new BoxMatrix(xBox, yBox, zBox, 90, 90, 90);
+	}
+
+	/**
+	 * @return	The squared length of the minimum image of the separation (dx, dy, dz)
+	 */
+	public double squaredDistance(double dx, double dy, double dz)
+	{
+		double sx = ixx*dx + ixy*dy + ixz*dz;
+		double sy = iyy*dy + iyz*dz;
+		double sz = izz*dz;
+		sx -= Math.rint(sx);
+		sy -= Math.rint(sy);
+		sz -= Math.rint(sz);
+		double rx = ax*sx + bx*sy + cx*sz;
+		double ry = by*sy + cy*sz;
+		double rz = cz*sz;
+		return rx*rx + ry*ry + rz*rz;
+	}
+
+	/**
+	 * @param axis	0, 1 or 2 for the planes spanned by b and c, a and c, or a and b
+	 * @return		The distance between opposite faces of the box. Any cutoff should be at most half of the smallest.
+	 */
+	public double getWidth(int axis)
+	{
+		if(orthorhombic)
+			return (axis == 0) ? a : (axis == 1) ? b : c;
+		switch(axis)
+		{
+			case 0:
+				return 1.0/Math.sqrt(ixx*ixx + ixy*ixy + ixz*ixz);
+			case 1:
+				return 1.0/Math.sqrt(iyy*iyy + iyz*iyz);
+			default:
+				return cz;
+		}
+	}
+
+	/**
+	 * @return	The volume of the box
+	 */
+	public double getVolume()
+	{
+		return ax*by*cz;
+	}
+
+	public boolean isOrthorhombic()
+	{
+		return orthorhombic;
+	}
+
+	public double getA()
+	{
+		return a;
+	}
+	public double getB()
+	{
+		return b;
+	}
+	public double getC()
+	{
+		return c;
+	}
+	public double getAlpha()
+	{
+		return alpha;
+	}
+	public double getBeta()
+	{
+		return beta;
+	}
+	public double getGamma()
+	{
+		return gamma;
+	}
+
+	/**
+	 * @return	The entries of the cell matrix, by row: ax, bx, cx, by, cy, cz
+	 */
+	public double[] getMatrix()
+	{
+		return new double[] {ax, bx, cx, by, cy, cz};
+	}
+
+	/**
+	 * @return	The entries of the inverse cell matrix, by row: xx, xy, xz, yy, yz, zz
+	 */
+	public double[] getInverse()
+	{
+		return new double[] {ixx, ixy, ixz, iyy, iyz, izz};
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if(!(o instanceof BoxMatrix))
+			return false;
+		BoxMatrix other = (BoxMatrix) o;
+		return a == other.a && b == other.b && c == other.c && alpha == other.alpha && beta == other.beta
+				&& gamma == other.gamma;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		long bits = Double.doubleToLongBits(a) + 31*Double.doubleToLongBits(b) + 961*Double.doubleToLongBits(c)
+				+ 29791*(Double.doubleToLongBits(alpha) + Double.doubleToLongBits(beta) + Double.doubleToLongBits(gamma));
+		return (int) (bits ^ (bits >>> 32));
+	}
+
+	/**
+	 * @return	The cosine of an angle in degrees, exactly 0 for a right angle
+	 */
+	private static double cos(double degrees)
+	{
+		return (degrees == 90) ? 0 : Math.cos(Math.toRadians(degrees));
+	}
+}
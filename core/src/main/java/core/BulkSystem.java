@@ -15,6 +15,8 @@ public class BulkSystem extends ArrayList<Atom>
 	
 	/**The dimensions of the system in Cartesian coordinates.*/
 	private double xBox, yBox, zBox;
+	/**The angles between the box edges in degrees, all 90 unless the box is triclinic*/
+	private double alpha = 90, beta = 90, gamma = 90;
 	/**The number of atoms in a system.*/
 	private int numAtoms;
 	
@@ -47,6 +49,42 @@ public class BulkSystem extends ArrayList<Atom>
 		return zBox;
 	}
 	
+	/**
+	 * Sets the angles between the edges of the box. The box lengths are then the lengths of the edges.
+	 * @param alpha		The angle between the second and third edges in degrees
+	 * @param beta		The angle between the first and third edges in degrees
+	 * @param gamma		The angle between the first and second edges in degrees
+	 */
+	public void setAngles(double alpha, double beta, double gamma) {
+		this.alpha = alpha;
+		this.beta = beta;
+		this.gamma = gamma;
+	}
+	
+	public double getAlpha() {
+		return alpha;
+	}
+	public double getBeta() {
+		return beta;
+	}
+	public double getGamma() {
+		return gamma;
+	}
+	
+	/**
+	 * @return	True if any angle of the box is not a right angle
+	 */
+	public boolean isTriclinic() {
+		return alpha != 90 || beta != 90 || gamma != 90;
+	}
+	
+	/**
+	 * @return	The shape of the box
+	 */
+	public BoxMatrix getBoxMatrix() {
+		return new BoxMatrix(xBox, yBox, zBox, alpha, beta, gamma);
+	}
+	
 	/**
 	 * Predicate for filtering atoms with a whitelist specification.
 	 * @param <T>	An <code>Atom</code> derived class
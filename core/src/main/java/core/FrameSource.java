@@ -0,0 +1,195 @@
+package core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the configurations of a trajectory file, one <code>PackedSystem</code> per configuration, so parsing
+ * a file is separate from the analysis done on each configuration. Badly formatted configurations are reported and
+ * skipped. A source can also be used as a sequential <code>Stream</code> with <code>stream</code>.
+ * <p>
+ * By default every configuration is returned in a new <code>PackedSystem</code> that can be kept. With
+ * <code>setReuseFrames</code> the source only alternates between two buffers, and each configuration is only valid
+ * until the following one has been returned.
+ * <p>
+ * Subclasses only need to implement <code>readFrame</code>.
+ */
+public abstract class FrameSource implements Iterator<PackedSystem>, Closeable
+{
+	/**Returned by <code>readFrame</code> once there are no configurations left*/
+	protected static final int END = 0;
+	/**Returned by <code>readFrame</code> when a configuration was read*/
+	protected static final int GOOD = 1;
+	/**Returned by <code>readFrame</code> when a configuration was badly formatted and skipped*/
+	protected static final int BAD = 2;
+
+	private boolean reuseFrames;
+	private PackedSystem[] buffers = new PackedSystem[2];
+	private int nextBuffer;
+	private int capacity = 16;
+
+	/**The configuration read ahead by <code>hasNext</code> and its index in the file*/
+	private PackedSystem pending;
+	private int pendingIndex;
+	/**The number of configurations read from the file, including bad ones*/
+	private int readCount;
+	private int numRead;
+	private int limit = Integer.MAX_VALUE;
+	private boolean finished;
+
+	/**The index of the configuration last returned by <code>next</code>*/
+	private int frameIndex = -1;
+	private int numRejected;
+
+	/**
+	 * Reads the next configuration in the file.
+	 * @param ps	The <code>PackedSystem</code> to store the atoms and box in. It is cleared first.
+	 * @return		<code>GOOD</code> if a configuration was read, <code>BAD</code> if the next configuration was badly
+	 * 				formatted and skipped, or <code>END</code> if there are none left
+	 * @throws IOException	If the file could not be read
+	 */
+	protected abstract int readFrame(PackedSystem ps) throws IOException;
+
+	/**
+	 * @return	The index in the file of the next configuration <code>readFrame</code> will read, starting at 0.
+	 * 			Sources that read every configuration in order do not need to override this.
+	 */
+	protected int nextFrameIndex()
+	{
+		return readCount;
+	}
+
+	/**
+	 * @param reuseFrames	Whether to reuse two buffers for all configurations instead of returning a new one each time
+	 */
+	public void setReuseFrames(boolean reuseFrames)
+	{
+		this.reuseFrames = reuseFrames;
+	}
+
+	/**
+	 * @param limit		The number of configurations to read before stopping, counting badly formatted ones
+	 */
+	public void setLimit(int limit)
+	{
+		this.limit = Math.max(0, limit);
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		if(pending != null)
+			return true;
+		if(finished)
+			return false;
+
+		PackedSystem ps = nextBuffer();
+		try {
+			while(true)
+			{
+				if(numRead >= limit)
+				{
+					finished = true;
+					return false;
+				}
+				numRead++;
+				int index = nextFrameIndex();
+				int status = readFrame(ps);
+				readCount = index + 1;
+				if(status == END)
+				{
+					finished = true;
+					return false;
+				}
+				if(status == GOOD)
+				{
+					capacity = Math.max(capacity, ps.size());
+					pending = ps;
+					pendingIndex = index;
+					return true;
+				}
+				numRejected++;
+				System.err.println("Bad atom in config " + (index+1));
+			}
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @return	The next configuration
+	 * @throws UncheckedIOException		If the file could not be read
+	 */
+	@Override
+	public PackedSystem next()
+	{
+		if(!hasNext())
+			throw new NoSuchElementException();
+		PackedSystem ps = pending;
+		frameIndex = pendingIndex;
+		pending = null;
+		return ps;
+	}
+
+	/**
+	 * @return	The index in the file of the configuration last returned by <code>next</code>, starting at 0
+	 */
+	public int getFrameIndex()
+	{
+		return frameIndex;
+	}
+
+	/**
+	 * @return	The number of badly formatted configurations skipped so far
+	 */
+	public int getNumRejected()
+	{
+		return numRejected;
+	}
+
+	/**
+	 * @return	The number of bytes of the file read so far, including configurations read ahead, or -1 if the source
+	 * 			does not keep count
+	 */
+	public long getBytesRead()
+	{
+		return -1;
+	}
+
+	/**
+	 * @return	A sequential stream over the remaining configurations. Closing the stream closes the source.
+	 */
+	public Stream<PackedSystem> stream()
+	{
+		Stream<PackedSystem> frames = StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+				Spliterator.ORDERED | Spliterator.NONNULL), false);
+		return frames.onClose(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					close();
+				} catch(IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+	}
+
+	private PackedSystem nextBuffer()
+	{
+		if(!reuseFrames)
+			return new PackedSystem(capacity);
+		if(buffers[nextBuffer] == null)
+			buffers[nextBuffer] = new PackedSystem(capacity);
+		PackedSystem ps = buffers[nextBuffer];
+		nextBuffer = 1 - nextBuffer;
+		return ps;
+	}
+}
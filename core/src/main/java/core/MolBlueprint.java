@@ -0,0 +1,127 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds information on how to create bonds and angles between atoms
+ * in a molecule.
+ * <p>
+ * A blueprint is identified by the sequence of its atom types. The sequence is summarized by a 64 bit rolling hash,
+ * its fingerprint, which can be built one atom at a time with <code>fingerprint</code> as the atoms of a molecule are
+ * read. Two different sequences may share a fingerprint, so a match should be confirmed with <code>matches</code>.
+ * @see BlueprintTable
+ * @author Trevor Fisher
+ */
+public class MolBlueprint 
+{
+	/**The fingerprint of a molecule with no atoms*/
+	public static final long EMPTY_FINGERPRINT = 0x84222325cbf29ce4L;
+	/**An odd multiplier, so every step of the hash is invertible*/
+	private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+	protected ArrayList<BondIndex> bondIndexes;
+	protected ArrayList<AngleIndex> angleIndexes;
+	/**The atom types in the order of the atoms*/
+	protected ArrayList<String> types;
+	protected long fingerprint;
+	/*
+	 * Will be implemented at a later time
+	 * protected Dihedral[] dihedrals;
+	 */
+	
+	public MolBlueprint()
+	{
+		bondIndexes = new ArrayList<BondIndex>();
+		angleIndexes = new ArrayList<AngleIndex>();
+		types = new ArrayList<String>();
+		fingerprint = EMPTY_FINGERPRINT;
+	}
+	
+	public void addBondIndex(String atom1, String atom2)
+	{
+		int a1 = Integer.parseInt(atom1);
+		int a2 = Integer.parseInt(atom2);
+		bondIndexes.add(new BondIndex(a1, a2));
+	}
+	
+	public void addAngleIndex(String atom1, String atom2, String atom3)
+	{
+		int a1 = Integer.parseInt(atom1);
+		int a2 = Integer.parseInt(atom2);
+		int a3 = Integer.parseInt(atom3);
+		angleIndexes.add(new AngleIndex(a1, a2, a3));
+	}
+	
+	public ArrayList<BondIndex> getBondIndexes()
+	{
+		return bondIndexes;
+	}
+	
+	public ArrayList<AngleIndex> getAngleIndexes()
+	{
+		return angleIndexes;
+	}
+	
+	/**
+	 * Adds the type of the next atom of the molecule.
+	 * @param type	The atom type
+	 */
+	public void addToKey(String type)
+	{
+		types.add(type);
+		fingerprint = fingerprint(fingerprint, type);
+	}
+	
+	/**
+	 * @return	The atom types joined together, as used to name the molecule
+	 */
+	public String getKey()
+	{
+		StringBuilder sb = new StringBuilder();
+		for(String type : types)
+		{
+			sb.append(type);
+		}
+		return sb.toString();
+	}
+	
+	public List<String> getTypes()
+	{
+		return types;
+	}
+	
+	public long getFingerprint()
+	{
+		return fingerprint;
+	}
+	
+	/**
+	 * @return	True if the atoms have exactly the types of this blueprint, in the same order
+	 */
+	public boolean matches(List<Atom> atoms)
+	{
+		if(atoms.size() != types.size())
+			return false;
+		for(int i = 0; i < atoms.size(); i++)
+		{
+			if(!types.get(i).equals(atoms.get(i).getType()))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Adds the next atom type to a fingerprint. Start from <code>EMPTY_FINGERPRINT</code> and add the type of each
+	 * atom in order. Uses the cached hash code of the type name, so no <code>String</code> is created or rescanned.
+	 * @param fingerprint	The fingerprint of the atoms so far
+	 * @param type			The type of the next atom
+	 * @return				The fingerprint including the next atom
+	 */
+	public static long fingerprint(long fingerprint, String type)
+	{
+		long h = type.hashCode();
+		h ^= h >>> 16;
+		return (fingerprint + h + 1)*MULTIPLIER;
+	}
+}
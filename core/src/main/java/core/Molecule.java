@@ -104,6 +104,14 @@ public class Molecule
 		}
 	}
 	
+	/**
+	 * @return	The blueprint the bonds and angles are built from, or null if no blueprint matched the molecule
+	 */
+	public MolBlueprint getBlueprint()
+	{
+		return blueprint;
+	}
+	
 	public ArrayList<Atom> getAtoms()
 	{
 		return atoms;
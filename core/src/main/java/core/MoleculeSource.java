@@ -0,0 +1,52 @@
+package core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A system of molecules that is read one molecule at a time, so the whole system never has to be held in memory. A
+ * source can be read from the start as many times as needed, which lets a writer make one pass over the molecules for
+ * each section of its file.
+ * @see Molecule
+ */
+public interface MoleculeSource
+{
+	/**
+	 * Reads every molecule of the system in order.
+	 * @param handler	Receives each molecule
+	 * @throws IOException	If the molecules could not be read, or the handler throws it
+	 */
+	void readMolecules(MoleculeHandler handler) throws IOException;
+
+	/**
+	 * Receives the molecules of a <code>MoleculeSource</code>.
+	 */
+	interface MoleculeHandler
+	{
+		/**
+		 * @param atoms			The atoms of the molecule in order. The list may be reused once this returns.
+		 * @param blueprint		The blueprint matching the atom types, or null if there is none
+		 * @throws IOException	If the molecule could not be handled
+		 */
+		void molecule(List<Atom> atoms, MolBlueprint blueprint) throws IOException;
+	}
+
+	/**
+	 * @param mols	Molecules held in memory
+	 * @return		A source reading the molecules from the list
+	 */
+	static MoleculeSource of(final ArrayList<Molecule> mols)
+	{
+		return new MoleculeSource() {
+			@Override
+			public void readMolecules(MoleculeHandler handler) throws IOException
+			{
+				for(Molecule mol : mols)
+				{
+					handler.molecule(mol.getAtoms(), mol.getBlueprint());
+				}
+			}
+		};
+	}
+}
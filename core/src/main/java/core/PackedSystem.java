@@ -0,0 +1,352 @@
+package core;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Holds the atoms of one configuration in flat arrays instead of one <code>Atom</code> object per atom.
+ * Coordinates are stored in separate x, y and z arrays, and atom types are interned into a small table so each
+ * atom only stores the index of its type. Parsers can fill a <code>PackedSystem</code> directly and reuse it for every
+ * configuration with <code>clear</code>, which keeps the type table so type indexes stay the same between configurations.
+ * <p>
+ * <code>getAtom</code> and <code>asList</code> provide <code>Atom</code> views for code written against <code>BulkSystem</code>.
+ * @see BulkSystem
+ */
+public class PackedSystem
+{
+	/**The 3D Cartesian coordinates of each atom. Only the first numAtoms entries are used.*/
+	private double[] xCords, yCords, zCords;
+	/**The index of each atom's type in typeNames*/
+	private int[] types;
+	/**The numeric ID of each atom assigned by the simulation system*/
+	private int[] iDs;
+	/**The number of atoms stored*/
+	private int numAtoms;
+
+	/**Every atom type seen by this system, in the order they were first added*/
+	private ArrayList<String> typeNames;
+	private HashMap<String, Integer> typeIndexes;
+
+	/**The dimensions of the system in Cartesian coordinates.*/
+	private double xBox, yBox, zBox;
+	/**The inverse of each box length, kept so minimum-image distances multiply instead of divide*/
+	private double xInverse, yInverse, zInverse;
+	/**The angles between the box edges in degrees, all 90 unless the box is triclinic*/
+	private double alpha = 90, beta = 90, gamma = 90;
+	/**The shape of the box, built when first needed after the box changes*/
+	private BoxMatrix boxMatrix;
+
+	public PackedSystem()
+	{
+		this(16);
+	}
+
+	/**
+	 * @param capacity	The number of atoms the system can hold before its arrays grow
+	 */
+	public PackedSystem(int capacity)
+	{
+		capacity = Math.max(capacity, 1);
+		xCords = new double[capacity];
+		yCords = new double[capacity];
+		zCords = new double[capacity];
+		types = new int[capacity];
+		iDs = new int[capacity];
+		typeNames = new ArrayList<String>();
+		typeIndexes = new HashMap<String, Integer>();
+	}
+
+	/**
+	 * Copies the atoms and box of a <code>BulkSystem</code> into a new packed system.
+	 * @param bs	The system to copy
+	 * @return		The packed copy
+	 */
+	public static PackedSystem fromBulkSystem(BulkSystem bs)
+	{
+		PackedSystem ps = new PackedSystem(bs.size());
+		ps.setXBox(bs.getXBox());
+		ps.setYBox(bs.getYBox());
+		ps.setZBox(bs.getZBox());
+		ps.setAngles(bs.getAlpha(), bs.getBeta(), bs.getGamma());
+		for(Atom atom : bs)
+		{
+			ps.add(atom.getID(), atom.getType(), atom.getXCord(), atom.getYCord(), atom.getZCord());
+		}
+		return ps;
+	}
+
+	/**
+	 * Creates a <code>BulkSystem</code> holding a new <code>Atom</code> for every atom in this system.
+	 * @return	The unpacked copy
+	 */
+	public BulkSystem toBulkSystem()
+	{
+		BulkSystem bs = new BulkSystem();
+		bs.ensureCapacity(numAtoms);
+		bs.setNumAtoms(numAtoms);
+		bs.setXBox(xBox);
+		bs.setYBox(yBox);
+		bs.setZBox(zBox);
+		bs.setAngles(alpha, beta, gamma);
+		for(int i = 0; i < numAtoms; i++)
+		{
+			bs.add(getAtom(i));
+		}
+		return bs;
+	}
+
+	/**
+	 * Adds an atom to the end of the system.
+	 * @param iD	The numeric number assigned by the simulation system
+	 * @param type	The identifier for the atom
+	 * @param x		The x-coordinate of the atom
+	 * @param y		The y-coordinate of the atom
+	 * @param z		The z-coordinate of the atom
+	 */
+	public void add(int iD, String type, double x, double y, double z)
+	{
+		add(iD, internType(type), x, y, z);
+	}
+
+	/**
+	 * Adds an atom whose type has already been interned to the end of the system.
+	 * @param iD		The numeric number assigned by the simulation system
+	 * @param typeIndex	The index returned by <code>internType</code>
+	 * @param x			The x-coordinate of the atom
+	 * @param y			The y-coordinate of the atom
+	 * @param z			The z-coordinate of the atom
+	 */
+	public void add(int iD, int typeIndex, double x, double y, double z)
+	{
+		if(numAtoms == xCords.length)
+		{
+			grow(2*numAtoms);
+		}
+		xCords[numAtoms] = x;
+		yCords[numAtoms] = y;
+		zCords[numAtoms] = z;
+		types[numAtoms] = typeIndex;
+		iDs[numAtoms] = iD;
+		numAtoms++;
+	}
+
+	/**
+	 * Removes every atom but keeps the arrays and the type table for the next configuration.
+	 */
+	public void clear()
+	{
+		numAtoms = 0;
+	}
+
+	/**
+	 * Finds the index of an atom type, adding it to the type table if it has not been seen before.
+	 * @param type	The atom identifier
+	 * @return		The index of the type
+	 */
+	public int internType(String type)
+	{
+		Integer index = typeIndexes.get(type);
+		if(index == null)
+		{
+			index = typeNames.size();
+			typeNames.add(type);
+			typeIndexes.put(type, index);
+		}
+		return index;
+	}
+
+	/**
+	 * @param type	The atom identifier
+	 * @return		The index of the type, or -1 if no atom of that type has been added
+	 */
+	public int findType(String type)
+	{
+		Integer index = typeIndexes.get(type);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @param typeIndex		The index of a type
+	 * @return				The number of atoms of that type
+	 */
+	public int countType(int typeIndex)
+	{
+		int count = 0;
+		for(int i = 0; i < numAtoms; i++)
+		{
+			if(types[i] == typeIndex)
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Creates an <code>Atom</code> holding a copy of one atom's information.
+	 * @param i		The index of the atom
+	 * @return		The atom
+	 */
+	public Atom getAtom(int i)
+	{
+		return new Atom(iDs[i], typeNames.get(types[i]), xCords[i], yCords[i], zCords[i]);
+	}
+
+	/**
+	 * @return	A read-only list view that creates an <code>Atom</code> for each atom as it is accessed
+	 */
+	public List<Atom> asList()
+	{
+		return new AbstractList<Atom>() {
+			@Override
+			public Atom get(int index) {
+				if(index < 0 || index >= numAtoms)
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + numAtoms);
+				return getAtom(index);
+			}
+			@Override
+			public int size() {
+				return numAtoms;
+			}
+		};
+	}
+
+	public int size()
+	{
+		return numAtoms;
+	}
+
+	/**
+	 * The returned arrays are the system's own storage, and are only valid up to <code>size()</code>.
+	 */
+	public double[] getXCords()
+	{
+		return xCords;
+	}
+	public double[] getYCords()
+	{
+		return yCords;
+	}
+	public double[] getZCords()
+	{
+		return zCords;
+	}
+	public int[] getTypeIndexes()
+	{
+		return types;
+	}
+	public int[] getIDs()
+	{
+		return iDs;
+	}
+
+	public String getType(int i)
+	{
+		return typeNames.get(types[i]);
+	}
+	public String getTypeName(int typeIndex)
+	{
+		return typeNames.get(typeIndex);
+	}
+	public int getNumTypes()
+	{
+		return typeNames.size();
+	}
+
+	public void setXBox(double x) {
+		xBox = x;
+		xInverse = 1.0/x;
+		boxMatrix = null;
+	}
+	public void setYBox(double y) {
+		yBox = y;
+		yInverse = 1.0/y;
+		boxMatrix = null;
+	}
+	public void setZBox(double z) {
+		zBox = z;
+		zInverse = 1.0/z;
+		boxMatrix = null;
+	}
+
+	/**
+	 * Sets the angles between the edges of the box. The box lengths are then the lengths of the edges.
+	 * @param alpha		The angle between the second and third edges in degrees
+	 * @param beta		The angle between the first and third edges in degrees
+	 * @param gamma		The angle between the first and second edges in degrees
+	 */
+	public void setAngles(double alpha, double beta, double gamma) {
+		this.alpha = alpha;
+		this.beta = beta;
+		this.gamma = gamma;
+		boxMatrix = null;
+	}
+
+	public double getXBox() {
+		return xBox;
+	}
+	public double getYBox() {
+		return yBox;
+	}
+	public double getZBox() {
+		return zBox;
+	}
+
+	public double getAlpha() {
+		return alpha;
+	}
+	public double getBeta() {
+		return beta;
+	}
+	public double getGamma() {
+		return gamma;
+	}
+
+	/**
+	 * @return	True if any angle of the box is not a right angle
+	 */
+	public boolean isTriclinic()
+	{
+		return alpha != 90 || beta != 90 || gamma != 90;
+	}
+
+	/**
+	 * @return	The shape of the box, which is only rebuilt after the box changes
+	 */
+	public BoxMatrix getBoxMatrix()
+	{
+		if(boxMatrix == null)
+			boxMatrix = new BoxMatrix(xBox, yBox, zBox, alpha, beta, gamma);
+		return boxMatrix;
+	}
+
+	public double getXBoxInverse() {
+		return xInverse;
+	}
+	public double getYBoxInverse() {
+		return yInverse;
+	}
+	public double getZBoxInverse() {
+		return zInverse;
+	}
+
+	/**
+	 * @return	The volume of the box
+	 */
+	public double getVolume()
+	{
+		if(isTriclinic())
+			return getBoxMatrix().getVolume();
+		return xBox * yBox * zBox;
+	}
+
+	private void grow(int capacity)
+	{
+		xCords = Arrays.copyOf(xCords, capacity);
+		yCords = Arrays.copyOf(yCords, capacity);
+		zCords = Arrays.copyOf(zCords, capacity);
+		types = Arrays.copyOf(types, capacity);
+		iDs = Arrays.copyOf(iDs, capacity);
+	}
+}
@@ -0,0 +1,404 @@
+package core;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records where the time of a run goes and how much work it did: the time spent in each stage, such as reading the
+ * file or one analysis, the number of configurations, atoms and pair distances handled, the bytes read and the peak
+ * heap. The peak heap is the largest total heap use seen by a thread that samples it every
+ * <code>HEAP_SAMPLE_MILLIS</code> while the run goes, so a peak shorter than that can be missed.
+ * <p>
+ * Stages and counters may be added to from several threads at once. Each stage has two times: its wall time, from
+ * the first time it began to the last time it ended, which never exceeds the run, and its thread time, summed over
+ * every thread that worked on it, which can.
+ * <p>
+ * Call <code>start</code> before the run and <code>finish</code> after it, then print <code>toString</code> or export the
+ * results with <code>write</code>.
+ */
+public class RunMetrics
+{
+	/**How often the heap use is sampled*/
+	static final long HEAP_SAMPLE_MILLIS = 10;
+
+	private long startTime, endTime;
+	private Map<String, Stage> stageTimes;
+	/**The stages in the order they were first seen*/
+	private List<String> stages;
+	private LongAdder frames, atoms, pairs, bytes;
+	private long peakHeap;
+	/**Samples the heap until <code>finish</code>*/
+	private Thread heapSampler;
+
+	public RunMetrics()
+	{
+		stageTimes = new ConcurrentHashMap<String, Stage>();
+		stages = new ArrayList<String>();
+		frames = new LongAdder();
+		atoms = new LongAdder();
+		pairs = new LongAdder();
+		bytes = new LongAdder();
+	}
+
+	/**
+	 * Starts timing the run and sampling the heap.
+	 */
+	public void start()
+	{
+		peakHeap = heapUsed();
+		heapSampler = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while(true)
+				{
+					sampleHeap();
+					try {
+						Thread.sleep(HEAP_SAMPLE_MILLIS);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		}, "heap sampler");
+		heapSampler.setDaemon(true);
+		heapSampler.start();
+		startTime = System.nanoTime();
+	}
+
+	/**
+	 * Stops timing the run and sampling the heap, taking one last sample.
+	 */
+	public void finish()
+	{
+		endTime = System.nanoTime();
+		if(heapSampler != null)
+		{
+			heapSampler.interrupt();
+			try {
+				heapSampler.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			heapSampler = null;
+		}
+		sampleHeap();
+	}
+
+	private synchronized void sampleHeap()
+	{
+		peakHeap = Math.max(peakHeap, heapUsed());
+	}
+
+	/**
+	 * @return	The bytes of heap in use, over every memory pool of the heap
+	 */
+	private static long heapUsed()
+	{
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	/**
+	 * Adds time that has just been spent in a stage.
+	 * @param stage		The name of the stage
+	 * @param nanos		Time spent in the stage, in nanoseconds, ending now
+	 */
+	public void addTime(String stage, long nanos)
+	{
+		long end = System.nanoTime();
+		stage(stage).add(end - nanos, end);
+	}
+
+	/**
+	 * Adds the time since <code>begin</code> to a stage.
+	 * @param stage		The name of the stage
+	 * @param begin		The <code>System.nanoTime</code> when the stage began
+	 */
+	public void endStage(String stage, long begin)
+	{
+		stage(stage).add(begin, System.nanoTime());
+	}
+
+	private Stage stage(String name)
+	{
+		Stage stage = stageTimes.get(name);
+		if(stage == null)
+		{
+			synchronized(stages)
+			{
+				stage = stageTimes.get(name);
+				if(stage == null)
+				{
+					stage = new Stage();
+					stageTimes.put(name, stage);
+					stages.add(name);
+				}
+			}
+		}
+		return stage;
+	}
+
+	/**
+	 * Counts a configuration and its atoms.
+	 */
+	public void addFrame(int numAtoms)
+	{
+		frames.increment();
+		atoms.add(numAtoms);
+	}
+
+	/**
+	 * Counts atoms that are not part of a configuration of a trajectory, such as those of one molecule.
+	 * @param numAtoms	A number of atoms handled
+	 */
+	public void addAtoms(long numAtoms)
+	{
+		atoms.add(numAtoms);
+	}
+
+	/**
+	 * @param numPairs	A number of distances measured between pairs of atoms
+	 */
+	public void addPairs(long numPairs)
+	{
+		pairs.add(numPairs);
+	}
+
+	/**
+	 * @param numBytes	A number of bytes read from a file
+	 */
+	public void addBytes(long numBytes)
+	{
+		bytes.add(numBytes);
+	}
+
+	/**
+	 * @return	The time from <code>start</code> to <code>finish</code>, or until now if the run is not finished
+	 */
+	public double getWallSeconds()
+	{
+		long end = (endTime == 0) ? System.nanoTime() : endTime;
+		return (end - startTime)*1e-9;
+	}
+
+	/**
+	 * @return	The wall time of a stage, from the first time it began to the last time it ended
+	 */
+	public double getStageSeconds(String stage)
+	{
+		Stage time = stageTimes.get(stage);
+		return (time == null) ? 0 : time.wallNanos()*1e-9;
+	}
+
+	/**
+	 * @return	The time spent in a stage, summed over every thread
+	 */
+	public double getStageThreadSeconds(String stage)
+	{
+		Stage time = stageTimes.get(stage);
+		return (time == null) ? 0 : time.threadNanos.sum()*1e-9;
+	}
+
+	/**
+	 * @return	The names of the stages in the order they were first seen
+	 */
+	public List<String> getStages()
+	{
+		synchronized(stages)
+		{
+			return new ArrayList<String>(stages);
+		}
+	}
+
+	public long getFrames()
+	{
+		return frames.sum();
+	}
+
+	public long getAtoms()
+	{
+		return atoms.sum();
+	}
+
+	public long getPairs()
+	{
+		return pairs.sum();
+	}
+
+	public long getBytes()
+	{
+		return bytes.sum();
+	}
+
+	/**
+	 * @return	The largest total heap use sampled, in bytes
+	 */
+	public synchronized long getPeakHeap()
+	{
+		return peakHeap;
+	}
+
+	/**
+	 * Writes the results to a file, as JSON if the filename ends in .json and as CSV otherwise.
+	 * @param file		The filename
+	 * @throws IOException	If the file could not be written
+	 */
+	public void write(String file) throws IOException
+	{
+		try (Writer out = new FileWriter(file)) {
+			out.write(file.toLowerCase(Locale.ROOT).endsWith(".json") ? toJson() : toCsv());
+		}
+	}
+
+	/**
+	 * @return	The results as a JSON object, with the wall time of each stage in seconds under <code>stages</code> and
+	 * 			its thread time under <code>stageThreadSeconds</code>
+	 */
+	public String toJson()
+	{
+		double wall = getWallSeconds();
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\n");
+		sb.append("  \"wallSeconds\": ").append(number(wall)).append(",\n");
+		sb.append("  \"frames\": ").append(getFrames()).append(",\n");
+		sb.append("  \"atoms\": ").append(getAtoms()).append(",\n");
+		sb.append("  \"pairs\": ").append(getPairs()).append(",\n");
+		sb.append("  \"bytesRead\": ").append(getBytes()).append(",\n");
+		sb.append("  \"peakHeapBytes\": ").append(getPeakHeap()).append(",\n");
+		sb.append("  \"framesPerSecond\": ").append(number(rate(getFrames(), wall))).append(",\n");
+		sb.append("  \"atomsPerSecond\": ").append(number(rate(getAtoms(), wall))).append(",\n");
+		sb.append("  \"pairsPerSecond\": ").append(number(rate(getPairs(), wall))).append(",\n");
+		sb.append("  \"bytesPerSecond\": ").append(number(rate(getBytes(), wall))).append(",\n");
+		List<String> names = getStages();
+		sb.append("  \"stages\": {");
+		for(int i = 0; i < names.size(); i++)
+		{
+			sb.append(i == 0 ? "\n" : ",\n");
+			sb.append("    \"").append(escape(names.get(i))).append("\": ").append(number(getStageSeconds(names.get(i))));
+		}
+		sb.append(names.isEmpty() ? "},\n" : "\n  },\n");
+		sb.append("  \"stageThreadSeconds\": {");
+		for(int i = 0; i < names.size(); i++)
+		{
+			sb.append(i == 0 ? "\n" : ",\n");
+			sb.append("    \"").append(escape(names.get(i))).append("\": ")
+					.append(number(getStageThreadSeconds(names.get(i))));
+		}
+		sb.append(names.isEmpty() ? "}\n" : "\n  }\n");
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	/**
+	 * @return	The results as CSV with a <code>metric,value</code> header, one metric per row. The wall time of a stage
+	 * 			is named <code>stage.NAME.seconds</code> and its thread time <code>stage.NAME.threadSeconds</code>.
+	 */
+	public String toCsv()
+	{
+		double wall = getWallSeconds();
+		StringBuilder sb = new StringBuilder();
+		sb.append("metric,value\n");
+		sb.append("wallSeconds,").append(number(wall)).append('\n');
+		sb.append("frames,").append(getFrames()).append('\n');
+		sb.append("atoms,").append(getAtoms()).append('\n');
+		sb.append("pairs,").append(getPairs()).append('\n');
+		sb.append("bytesRead,").append(getBytes()).append('\n');
+		sb.append("peakHeapBytes,").append(getPeakHeap()).append('\n');
+		sb.append("framesPerSecond,").append(number(rate(getFrames(), wall))).append('\n');
+		sb.append("atomsPerSecond,").append(number(rate(getAtoms(), wall))).append('\n');
+		sb.append("pairsPerSecond,").append(number(rate(getPairs(), wall))).append('\n');
+		sb.append("bytesPerSecond,").append(number(rate(getBytes(), wall))).append('\n');
+		for(String stage : getStages())
+		{
+			sb.append(csvName("stage." + stage + ".seconds")).append(',').append(number(getStageSeconds(stage)))
+					.append('\n');
+			sb.append(csvName("stage." + stage + ".threadSeconds")).append(',')
+					.append(number(getStageThreadSeconds(stage))).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return	A readable summary of the run, with the wall time of each stage, its share of the run and its thread time
+	 */
+	@Override
+	public String toString()
+	{
+		double wall = getWallSeconds();
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format(Locale.ROOT, "Run time: %.3f s%n", wall));
+		if(getFrames() > 0)
+			sb.append(String.format(Locale.ROOT, "Configurations: %d (%.1f/s)%n", getFrames(), rate(getFrames(), wall)));
+		sb.append(String.format(Locale.ROOT, "Atoms: %d (%.4g/s)%n", getAtoms(), rate(getAtoms(), wall)));
+		if(getPairs() > 0)
+			sb.append(String.format(Locale.ROOT, "Pair distances: %d (%.4g/s)%n", getPairs(), rate(getPairs(), wall)));
+		if(getBytes() > 0)
+			sb.append(String.format(Locale.ROOT, "Read: %.1f MB (%.1f MB/s)%n", getBytes()/1e6, rate(getBytes(), wall)/1e6));
+		sb.append(String.format(Locale.ROOT, "Peak heap: %.1f MB%n", getPeakHeap()/1e6));
+		for(String stage : getStages())
+		{
+			double seconds = getStageSeconds(stage);
+			sb.append(String.format(Locale.ROOT, "  %-24s %10.3f s %6.1f%% %10.3f s thread%n", stage, seconds,
+					(wall > 0) ? 100*seconds/wall : 0, getStageThreadSeconds(stage)));
+		}
+		return sb.toString();
+	}
+
+	private static double rate(long count, double seconds)
+	{
+		return (seconds > 0) ? count/seconds : 0;
+	}
+
+	private static String number(double value)
+	{
+		return String.format(Locale.ROOT, "%.6g", value);
+	}
+
+	/**
+	 * @return	The name, quoted if it holds the separator
+	 */
+	private static String csvName(String name)
+	{
+		if(name.contains(",") || name.contains("\""))
+			return "\"" + name.replace("\"", "\"\"") + "\"";
+		return name;
+	}
+
+	private static String escape(String text)
+	{
+		return text.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	/**
+	 * The times of one stage, which may be added to from several threads at once.
+	 */
+	private static class Stage
+	{
+		final LongAdder threadNanos = new LongAdder();
+		private long first = Long.MAX_VALUE, last = Long.MIN_VALUE;
+
+		void add(long begin, long end)
+		{
+			threadNanos.add(end - begin);
+			synchronized(this)
+			{
+				first = Math.min(first, begin);
+				last = Math.max(last, end);
+			}
+		}
+
+		synchronized long wallNanos()
+		{
+			return (first > last) ? 0 : last - first;
+		}
+	}
+}
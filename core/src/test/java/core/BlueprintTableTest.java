@@ -0,0 +1,76 @@
+package core;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class BlueprintTableTest {
+
+	private static MolBlueprint blueprint(String... types)
+	{
+		MolBlueprint blueprint = new MolBlueprint();
+		for(String type : types)
+		{
+			blueprint.addToKey(type);
+		}
+		return blueprint;
+	}
+
+	private static MolBlueprint find(BlueprintTable table, String... types)
+	{
+		ArrayList<Atom> atoms = new ArrayList<Atom>();
+		long fingerprint = MolBlueprint.EMPTY_FINGERPRINT;
+		for(String type : types)
+		{
+			atoms.add(new Atom(type, 0, 0, 0));
+			fingerprint = MolBlueprint.fingerprint(fingerprint, type);
+		}
+		return table.find(fingerprint, atoms);
+	}
+
+	@Test
+	public void testFind() {
+		BlueprintTable table = new BlueprintTable();
+		MolBlueprint water = blueprint("OW", "HW", "HW");
+		MolBlueprint methane = blueprint("C", "H", "H", "H", "H");
+		table.add(water);
+		table.add(methane);
+		//Enough blueprints to grow the table
+		for(int i = 0; i < 20; i++)
+		{
+			table.add(blueprint("X" + i, "H"));
+		}
+		assertEquals(22, table.size());
+		assertSame(water, find(table, "OW", "HW", "HW"));
+		assertSame(methane, find(table, "C", "H", "H", "H", "H"));
+		assertEquals("X7H", find(table, "X7", "H").getKey());
+		assertNull(find(table, "OW", "HW"));
+		assertNull(find(table, "HW", "OW", "HW"));
+
+		//A blueprint with the same types replaces the old one in place
+		MolBlueprint water2 = blueprint("OW", "HW", "HW");
+		table.add(water2);
+		assertEquals(22, table.size());
+		assertSame(water2, find(table, "OW", "HW", "HW"));
+		assertSame(water2, table.getBlueprints().get(0));
+	}
+
+	@Test
+	public void testCollision() {
+		//"Aa" and "BB" have the same hash code, so these blueprints share a fingerprint
+		MolBlueprint first = blueprint("Aa", "H");
+		MolBlueprint second = blueprint("BB", "H");
+		assertEquals(first.getFingerprint(), second.getFingerprint());
+		assertEquals(Arrays.asList("Aa", "H"), first.getTypes());
+
+		BlueprintTable table = new BlueprintTable();
+		table.add(first);
+		table.add(second);
+		assertEquals(2, table.size());
+		assertSame(first, find(table, "Aa", "H"));
+		assertSame(second, find(table, "BB", "H"));
+	}
+}
@@ -0,0 +1,81 @@
+package core;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BoxMatrixTest {
+
+	@Test
+	public void testOrthorhombic() {
+		BoxMatrix box = BoxMatrix.orthorhombic(20.0, 21.0, 22.0);
+		assertTrue(box.isOrthorhombic());
+		assertArrayEquals(new double[] {20.0, 0, 0, 21.0, 0, 22.0}, box.getMatrix(), 0.0);
+		assertEquals(20.0*21.0*22.0, box.getVolume(), 0.0);
+		assertEquals(21.0, box.getWidth(1), 0.0);
+		//Matches rounding the separation along each side
+		assertEquals(1.0 + 4.0 + 9.0, box.squaredDistance(19.0, -19.0, 25.0), 1e-12);
+	}
+
+	@Test
+	public void testMatrixAndInverse() {
+		BoxMatrix box = new BoxMatrix(20.0, 22.0, 24.0, 80.0, 95.0, 105.0);
+		assertFalse(box.isOrthorhombic());
+		double[] h = box.getMatrix();
+		double[] inverse = box.getInverse();
+		//The columns of the cell matrix have the edge lengths and angles of the box
+		assertEquals(22.0, Math.hypot(h[1], h[3]), 1e-12);
+		assertEquals(24.0, Math.sqrt(h[2]*h[2] + h[4]*h[4] + h[5]*h[5]), 1e-12);
+		assertEquals(Math.cos(Math.toRadians(80.0)), (h[1]*h[2] + h[3]*h[4])/(22.0*24.0), 1e-12);
+		assertEquals(Math.cos(Math.toRadians(95.0)), h[0]*h[2]/(20.0*24.0), 1e-12);
+		//H times its inverse is the identity
+		assertEquals(1.0, h[0]*inverse[0], 1e-12);
+		assertEquals(0.0, h[0]*inverse[1] + h[1]*inverse[3], 1e-12);
+		assertEquals(0.0, h[0]*inverse[2] + h[1]*inverse[4] + h[2]*inverse[5], 1e-12);
+		assertEquals(0.0, h[3]*inverse[4] + h[4]*inverse[5], 1e-12);
+		assertEquals(h[0]*h[3]*h[5], box.getVolume(), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testImpossibleAngles() {
+		new BoxMatrix(10.0, 10.0, 10.0, 30.0, 30.0, 120.0);
+	}
+
+	@Test
+	public void testMinimumImageMatchesNearestImage() {
+		BoxMatrix box = new BoxMatrix(20.0, 22.0, 24.0, 80.0, 95.0, 105.0);
+		double[] h = box.getMatrix();
+		double limit = 0.5*Math.min(box.getWidth(0), Math.min(box.getWidth(1), box.getWidth(2)));
+		Random rand = new Random(5);
+		int checked = 0;
+		for(int trial = 0; trial < 2000; trial++)
+		{
+			double dx = (rand.nextDouble() - 0.5)*60;
+			double dy = (rand.nextDouble() - 0.5)*60;
+			double dz = (rand.nextDouble() - 0.5)*60;
+			//Search the nearby images for the closest one
+			double nearest = Double.MAX_VALUE;
+			for(int i = -4; i <= 4; i++)
+			{
+				for(int j = -4; j <= 4; j++)
+				{
+					for(int k = -4; k <= 4; k++)
+					{
+						double x = dx + i*h[0] + j*h[1] + k*h[2];
+						double y = dy + j*h[3] + k*h[4];
+						double z = dz + k*h[5];
+						nearest = Math.min(nearest, x*x + y*y + z*z);
+					}
+				}
+			}
+			if(nearest < limit*limit)
+			{
+				assertEquals(nearest, box.squaredDistance(dx, dy, dz), 1e-9);
+				checked++;
+			}
+		}
+		assertTrue(checked > 50);
+	}
+}
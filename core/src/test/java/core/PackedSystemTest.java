@@ -0,0 +1,48 @@
+package core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class PackedSystemTest {
+
+	@Test
+	public void testRoundTrip() {
+		BulkSystem bs = new BulkSystem();
+		bs.setXBox(10);
+		bs.setYBox(11);
+		bs.setZBox(12);
+		bs.add(new Atom(1, "OW", 1.0, 2.0, 3.0));
+		bs.add(new Atom(2, "HW", -1.0, 0.5, 2.5));
+		bs.add(new Atom(3, "OW", 4.0, 5.0, 6.0));
+
+		PackedSystem ps = PackedSystem.fromBulkSystem(bs);
+		assertEquals(3, ps.size());
+		assertEquals(2, ps.getNumTypes());
+		assertEquals(ps.getTypeIndexes()[0], ps.getTypeIndexes()[2]);
+		assertEquals(-1, ps.findType("CL"));
+
+		BulkSystem copy = ps.toBulkSystem();
+		assertEquals(12.0, copy.getZBox(), 0.0);
+		for(int i = 0; i < bs.size(); i++)
+		{
+			assertEquals(bs.get(i).getType(), copy.get(i).getType());
+			assertEquals(bs.get(i).getID(), ps.asList().get(i).getID());
+			assertEquals(bs.get(i).getYCord(), copy.get(i).getYCord(), 0.0);
+		}
+	}
+
+	@Test
+	public void testClearKeepsTypes() {
+		PackedSystem ps = new PackedSystem(1);
+		for(int i = 0; i < 100; i++)
+		{
+			ps.add(i, (i % 2 == 0) ? "OW" : "HW", i, i, i);
+		}
+		assertEquals(100, ps.size());
+		int ow = ps.findType("OW");
+		ps.clear();
+		assertEquals(0, ps.size());
+		assertEquals(ow, ps.internType("OW"));
+	}
+}
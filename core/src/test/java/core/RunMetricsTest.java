@@ -0,0 +1,96 @@
+package core;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class RunMetricsTest {
+
+	@Test
+	public void testCountsAndStages() throws InterruptedException {
+		final RunMetrics metrics = new RunMetrics();
+		metrics.start();
+		Thread[] threads = new Thread[4];
+		for(int t = 0; t < threads.length; t++)
+		{
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for(int i = 0; i < 1000; i++)
+					{
+						metrics.addTime("analysis", 10);
+						metrics.addFrame(3);
+						metrics.addPairs(2);
+					}
+				}
+			});
+			threads[t].start();
+		}
+		metrics.addTime("read", 5000000000L);
+		for(Thread thread : threads)
+		{
+			thread.join();
+		}
+		metrics.addBytes(1234);
+		metrics.addAtoms(7);
+		metrics.finish();
+
+		assertEquals(4000, metrics.getFrames());
+		assertEquals(12007, metrics.getAtoms());
+		assertEquals(8000, metrics.getPairs());
+		assertEquals(1234, metrics.getBytes());
+		assertEquals(4e-5, metrics.getStageThreadSeconds("analysis"), 1e-15);
+		assertEquals(5.0, metrics.getStageThreadSeconds("read"), 0.0);
+		assertEquals(0.0, metrics.getStageThreadSeconds("write"), 0.0);
+		//The threads overlap, so the wall time of a stage is at most the run
+		assertTrue(metrics.getStageSeconds("analysis") >= 1e-8);
+		assertTrue(metrics.getStageSeconds("analysis") <= metrics.getWallSeconds());
+		assertEquals(5.0, metrics.getStageSeconds("read"), 0.0);
+		assertEquals(0.0, metrics.getStageSeconds("write"), 0.0);
+		assertEquals(2, metrics.getStages().size());
+		assertTrue(metrics.getStages().containsAll(Arrays.asList("read", "analysis")));
+		assertTrue(metrics.getPeakHeap() > 0);
+	}
+
+	@Test
+	public void testExport() {
+		RunMetrics metrics = new RunMetrics();
+		metrics.start();
+		metrics.addFrame(10);
+		metrics.addTime("read", 1500000000L);
+		metrics.addTime("say \"hi\", twice", 0);
+		metrics.finish();
+
+		String json = metrics.toJson();
+		assertTrue(json.startsWith("{\n  \"wallSeconds\": "));
+		assertTrue(json.contains("  \"frames\": 1,\n  \"atoms\": 10,\n"));
+		assertTrue(json.contains("  \"stages\": {\n    \"read\": 1.50000,\n    \"say \\\"hi\\\", twice\": 0.00000\n  },\n"));
+		assertTrue(json.endsWith("  \"stageThreadSeconds\": {\n    \"read\": 1.50000,\n"
+				+ "    \"say \\\"hi\\\", twice\": 0.00000\n  }\n}\n"));
+
+		String[] csv = metrics.toCsv().split("\n");
+		assertEquals("metric,value", csv[0]);
+		assertEquals("frames,1", csv[2]);
+		assertEquals("stage.read.seconds,1.50000", csv[csv.length - 4]);
+		assertEquals("stage.read.threadSeconds,1.50000", csv[csv.length - 3]);
+		assertEquals("\"stage.say \"\"hi\"\", twice.seconds\",0.00000", csv[csv.length - 2]);
+		assertEquals("\"stage.say \"\"hi\"\", twice.threadSeconds\",0.00000", csv[csv.length - 1]);
+	}
+
+	@Test
+	public void testPeakHeap() throws InterruptedException {
+		RunMetrics metrics = new RunMetrics();
+		metrics.start();
+		long before = metrics.getPeakHeap();
+		//Held for several samples, then dropped before the run finishes
+		long[] block = new long[4 << 20];
+		Thread.sleep(10*RunMetrics.HEAP_SAMPLE_MILLIS);
+		block[block.length - 1] = 1;
+		block = null;
+		metrics.finish();
+		assertTrue(metrics.getPeakHeap() >= 32L << 20);
+		assertTrue(metrics.getPeakHeap() >= before);
+	}
+}
@@ -0,0 +1,87 @@
+package binary;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import core.FrameSource;
+import core.PackedSystem;
+
+/**
+ * Iterates over the configurations of a binary trajectory written by <code>TrajectoryWriter</code>. Either every
+ * configuration is read in order, or only selected configurations are read.
+ * @see TrajectoryReader
+ */
+public class BinaryFrameSource extends FrameSource
+{
+	private TrajectoryReader reader;
+
+	/**The selected configurations, or null if every configuration is read*/
+	private int[] frames;
+	private int next;
+	private long bytesRead;
+
+	/**
+	 * Reads every configuration of a binary trajectory in order.
+	 * @param file		The filename of the binary trajectory
+	 * @throws IOException	If the file cannot be opened or is not a binary trajectory
+	 */
+	public BinaryFrameSource(String file) throws IOException
+	{
+		reader = new TrajectoryReader(file);
+	}
+
+	/**
+	 * Reads only the selected configurations of a binary trajectory.
+	 * @param file		The filename of the binary trajectory
+	 * @param frames	The configurations to read, in any order. Configurations past the end of the trajectory are left out.
+	 * @throws IOException	If the file cannot be opened or is not a binary trajectory
+	 */
+	public BinaryFrameSource(String file, int[] frames) throws IOException
+	{
+		this(file);
+		int numFrames = 0;
+		this.frames = new int[frames.length];
+		for(int frame : frames)
+		{
+			if(frame >= 0 && frame < reader.size())
+				this.frames[numFrames++] = frame;
+		}
+		this.frames = Arrays.copyOf(this.frames, numFrames);
+	}
+
+	@Override
+	protected int readFrame(PackedSystem ps) throws IOException
+	{
+		if(frames != null)
+		{
+			if(next >= frames.length)
+				return END;
+			reader.seek(frames[next]);
+			next++;
+		}
+		if(!reader.readFrame(ps))
+			return END;
+		bytesRead += reader.getFrameSize();
+		return GOOD;
+	}
+
+	@Override
+	protected int nextFrameIndex()
+	{
+		if(frames != null && next < frames.length)
+			return frames[next];
+		return super.nextFrameIndex();
+	}
+
+	@Override
+	public long getBytesRead()
+	{
+		return bytesRead;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		reader.close();
+	}
+}
@@ -0,0 +1,258 @@
+package binary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import core.PackedSystem;
+
+/**
+ * Reads a binary trajectory written by <code>TrajectoryWriter</code>. Configurations are copied straight from
+ * memory-mapped windows of the file into a <code>PackedSystem</code>, so reading is limited by the disk rather than by
+ * parsing. Windows are mapped on whole configurations, so any configuration can be read directly with <code>seek</code>.
+ * @see TrajectoryWriter
+ */
+public class TrajectoryReader implements Closeable
+{
+	/**The default size of each mapped window*/
+	public static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+
+	private FileChannel channel;
+	private long windowSize;
+
+	private int precision;
+	private int numAtoms;
+	private String[] typeNames;
+	private int[] types;
+	private int[] iDs;
+
+	/**The offset of the first configuration, and the size and number of configurations*/
+	private long dataStart;
+	private long frameSize;
+	/**The format version, which decides whether each configuration stores the angles of its box*/
+	private int version;
+	private int numFrames;
+
+	/**The currently mapped configurations*/
+	private MappedByteBuffer window;
+	private int windowFirst, windowFrames;
+
+	/**The next configuration to read*/
+	private int next;
+
+	/**
+	 * Opens a binary trajectory with the default window size.
+	 * @param file	The filename of the binary trajectory
+	 * @throws IOException	If the file cannot be opened or is not a binary trajectory
+	 */
+	public TrajectoryReader(String file) throws IOException
+	{
+		this(file, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Opens a binary trajectory that will be mapped in windows of about <code>windowSize</code> bytes.
+	 * A window always holds at least one configuration.
+	 * @param file			The filename of the binary trajectory
+	 * @param windowSize	The number of bytes to map at a time
+	 * @throws IOException	If the file cannot be opened or is not a binary trajectory
+	 */
+	public TrajectoryReader(String file, long windowSize) throws IOException
+	{
+		channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+		this.windowSize = windowSize;
+		try {
+			readHeader(file);
+		} catch(IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the next configuration into <code>ps</code>.
+	 * @param ps	The <code>PackedSystem</code> to store the atoms and box in. It is cleared first.
+	 * @return		False at the end of the trajectory
+	 * @throws IOException	If the file could not be mapped
+	 */
+	public boolean readFrame(PackedSystem ps) throws IOException
+	{
+		if(next >= numFrames)
+			return false;
+		if(next < windowFirst || next >= windowFirst + windowFrames)
+			map(next);
+
+		int start = (int) ((next - windowFirst)*frameSize);
+		ps.clear();
+		ps.setXBox(window.getDouble(start));
+		ps.setYBox(window.getDouble(start + 8));
+		ps.setZBox(window.getDouble(start + 16));
+		if(version == 1)
+			ps.setAngles(90, 90, 90);
+		else
+			ps.setAngles(window.getDouble(start + 24), window.getDouble(start + 32), window.getDouble(start + 40));
+
+		//Translate the file's type indexes into the system's, which may already hold other types
+		int[] psTypes = new int[typeNames.length];
+		for(int t = 0; t < typeNames.length; t++)
+		{
+			psTypes[t] = ps.internType(typeNames[t]);
+		}
+
+		int x = start + TrajectoryWriter.boxSize(version);
+		int y = x + numAtoms*precision;
+		int z = y + numAtoms*precision;
+		if(precision == 4)
+		{
+			for(int i = 0; i < numAtoms; i++)
+			{
+				ps.add(iDs[i], psTypes[types[i]], window.getFloat(x + 4*i), window.getFloat(y + 4*i),
+						window.getFloat(z + 4*i));
+			}
+		}
+		else
+		{
+			for(int i = 0; i < numAtoms; i++)
+			{
+				ps.add(iDs[i], psTypes[types[i]], window.getDouble(x + 8*i), window.getDouble(y + 8*i),
+						window.getDouble(z + 8*i));
+			}
+		}
+		next++;
+		return true;
+	}
+
+	/**
+	 * Moves the reader so the next configuration read is <code>frame</code>.
+	 * @param frame		The index of a configuration, starting at 0
+	 */
+	public void seek(int frame)
+	{
+		if(frame < 0 || frame > numFrames)
+			throw new IndexOutOfBoundsException("Frame " + frame + " of " + numFrames);
+		next = frame;
+	}
+
+	/**
+	 * @return	The number of configurations in the trajectory
+	 */
+	public int size()
+	{
+		return numFrames;
+	}
+
+	/**
+	 * @return	The number of bytes each configuration takes in the file
+	 */
+	public long getFrameSize()
+	{
+		return frameSize;
+	}
+
+	public int getNumAtoms()
+	{
+		return numAtoms;
+	}
+
+	/**
+	 * @return	Whether coordinates are stored as floats
+	 */
+	public boolean isSinglePrecision()
+	{
+		return precision == 4;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		window = null;
+		channel.close();
+	}
+
+	private void readHeader(String file) throws IOException
+	{
+		long fileSize = channel.size();
+		ByteBuffer fixed = read(0, 20);
+		if(fixed == null || fixed.getInt() != TrajectoryWriter.MAGIC)
+			throw new IOException(file + " is not a binary trajectory");
+		version = fixed.getInt();
+		if(version != 1 && version != TrajectoryWriter.VERSION)
+			throw new IOException(file + " has unsupported version " + version);
+		precision = fixed.getInt();
+		numAtoms = fixed.getInt();
+		int numTypes = fixed.getInt();
+		if((precision != 4 && precision != 8) || numAtoms < 0 || numTypes < 0)
+			throw new IOException(file + " has a bad header");
+
+		long offset = 20;
+		typeNames = new String[numTypes];
+		for(int t = 0; t < numTypes; t++)
+		{
+			ByteBuffer length = read(offset, 2);
+			if(length == null)
+				throw new IOException(file + " has a bad header");
+			int nameLength = length.getShort() & 0xffff;
+			ByteBuffer name = read(offset + 2, nameLength);
+			if(name == null)
+				throw new IOException(file + " has a bad header");
+			typeNames[t] = new String(name.array(), StandardCharsets.UTF_8);
+			offset += 2 + nameLength;
+		}
+
+		ByteBuffer atoms = read(offset, 8L*numAtoms);
+		if(atoms == null)
+			throw new IOException(file + " has a bad header");
+		types = new int[numAtoms];
+		iDs = new int[numAtoms];
+		for(int i = 0; i < numAtoms; i++)
+		{
+			types[i] = atoms.getInt();
+			if(types[i] < 0 || types[i] >= numTypes)
+				throw new IOException(file + " has a bad type index for atom " + (i+1));
+		}
+		for(int i = 0; i < numAtoms; i++)
+		{
+			iDs[i] = atoms.getInt();
+		}
+
+		dataStart = (offset + 8L*numAtoms + 7) & ~7L;
+		frameSize = TrajectoryWriter.frameSize(numAtoms, precision, version);
+		//A configuration cut short at the end of the file is left out
+		numFrames = (int) Math.min(Math.max(fileSize - dataStart, 0)/frameSize, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return	<code>length</code> bytes of the file from <code>offset</code>, or null if the file ends first
+	 */
+	private ByteBuffer read(long offset, long length) throws IOException
+	{
+		if(offset + length > channel.size() || length > Integer.MAX_VALUE)
+			return null;
+		ByteBuffer buf = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+		while(buf.hasRemaining())
+		{
+			if(channel.read(buf, offset + buf.position()) < 0)
+				return null;
+		}
+		buf.flip();
+		return buf;
+	}
+
+	/**
+	 * Maps a window of whole configurations starting at <code>frame</code>.
+	 */
+	private void map(int frame) throws IOException
+	{
+		long framesPerWindow = Math.max(1, Math.min(windowSize, Integer.MAX_VALUE)/frameSize);
+		windowFrames = (int) Math.min(framesPerWindow, numFrames - frame);
+		windowFirst = frame;
+		window = channel.map(FileChannel.MapMode.READ_ONLY, dataStart + frame*frameSize, windowFrames*frameSize);
+		window.order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
@@ -0,0 +1,248 @@
+package binary;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import core.PackedSystem;
+import tinker.BadAtomFormat;
+import tinker.MappedArcReader;
+
+/**
+ * Writes a trajectory to a compact binary file that can be read back with <code>TrajectoryReader</code> without
+ * parsing any text. Every configuration of a trajectory holds the same atoms, so the atoms' types and IDs are only
+ * written once in the header, and each configuration only stores its box and coordinates.
+ * <p>
+ * The file is little-endian and laid out as:
+ * <ul>
+ * <li>Header: the magic number, the format version, the number of bytes per coordinate (4 or 8), the number of
+ * atoms, the number of types followed by each type name (a 2-byte length and its UTF-8 bytes), the type index of each
+ * atom, the ID of each atom, then padding up to a multiple of 8 bytes.</li>
+ * <li>Configurations: the box lengths and angles as six doubles, then the x, y and z coordinates of every atom as three
+ * separate blocks of floats or doubles. Files of version 1 only hold the three box lengths.</li>
+ * </ul>
+ * Every configuration has the same size, so the number of configurations follows from the file size and any
+ * configuration can be read directly.
+ * @see TrajectoryReader
+ */
+public class TrajectoryWriter implements Closeable
+{
+	/**Identifies a binary trajectory file*/
+	static final int MAGIC = 0x53535442;
+	static final int VERSION = 2;
+	public static final String EXTENSION = ".sstb";
+
+	private FileChannel channel;
+	/**The number of bytes used for each coordinate*/
+	private int precision;
+
+	/**The atoms and types written in the header, which every configuration must match*/
+	private int numAtoms = -1;
+	private String[] typeNames;
+	private int[] types;
+
+	/**Holds one configuration before it is written*/
+	private ByteBuffer frame;
+
+	/**
+	 * Creates a binary trajectory, replacing any existing file.
+	 * @param file				The filename of the binary trajectory
+	 * @param singlePrecision	Whether to store coordinates as floats instead of doubles. Floats halve the size of the
+	 * 							file, but only keep about 7 significant digits.
+	 * @throws IOException		If the file cannot be created
+	 */
+	public TrajectoryWriter(String file, boolean singlePrecision) throws IOException
+	{
+		channel = FileChannel.open(Paths.get(file), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		precision = singlePrecision ? 4 : 8;
+	}
+
+	/**
+	 * Converts a Tinker .arc file into a binary trajectory. Badly formatted configurations are skipped.
+	 * @param arcFile			The filename of the Tinker file
+	 * @param binaryFile		The filename of the binary trajectory
+	 * @param singlePrecision	Whether to store coordinates as floats instead of doubles
+	 * @return					The number of configurations written
+	 * @throws IOException		If either file could not be read or written
+	 */
+	public static int convertArc(String arcFile, String binaryFile, boolean singlePrecision) throws IOException
+	{
+		int numFrames = 0;
+		int config = 0;
+		try (MappedArcReader reader = new MappedArcReader(arcFile);
+				TrajectoryWriter writer = new TrajectoryWriter(binaryFile, singlePrecision)) {
+			PackedSystem currentSystem = new PackedSystem();
+			while(true)
+			{
+				config++;
+				try {
+					if(!reader.readFrame(currentSystem))
+						break;
+				} catch(BadAtomFormat bf) {
+					System.err.println("Bad atom in config " + config);
+					continue;
+				}
+				writer.writeFrame(currentSystem);
+				numFrames++;
+			}
+		}
+		return numFrames;
+	}
+
+	/**
+	 * Appends a configuration to the file. The first configuration written sets the atoms of the trajectory.
+	 * @param ps	The configuration to write
+	 * @throws IOException					If the file could not be written
+	 * @throws IllegalArgumentException		If the configuration does not hold the same atoms as the first one
+	 */
+	public void writeFrame(PackedSystem ps) throws IOException
+	{
+		if(numAtoms < 0)
+			writeHeader(ps);
+		else
+			checkAtoms(ps);
+
+		frame.clear();
+		frame.putDouble(ps.getXBox());
+		frame.putDouble(ps.getYBox());
+		frame.putDouble(ps.getZBox());
+		frame.putDouble(ps.getAlpha());
+		frame.putDouble(ps.getBeta());
+		frame.putDouble(ps.getGamma());
+		putCoordinates(ps.getXCords());
+		putCoordinates(ps.getYCords());
+		putCoordinates(ps.getZCords());
+		frame.flip();
+		write(frame);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+
+	/**
+	 * @return	The number of bytes each configuration takes up
+	 */
+	static long frameSize(int numAtoms, int precision)
+	{
+		return frameSize(numAtoms, precision, VERSION);
+	}
+
+	/**
+	 * @return	The number of bytes each configuration takes up in a file of the given version
+	 */
+	static long frameSize(int numAtoms, int precision, int version)
+	{
+		return boxSize(version) + 3L*numAtoms*precision;
+	}
+
+	/**
+	 * @return	The number of bytes the box of each configuration takes up in a file of the given version
+	 */
+	static int boxSize(int version)
+	{
+		return (version == 1) ? 24 : 48;
+	}
+
+	private void putCoordinates(double[] cords)
+	{
+		if(precision == 4)
+		{
+			for(int i = 0; i < numAtoms; i++)
+			{
+				frame.putFloat((float) cords[i]);
+			}
+		}
+		else
+		{
+			for(int i = 0; i < numAtoms; i++)
+			{
+				frame.putDouble(cords[i]);
+			}
+		}
+	}
+
+	private void writeHeader(PackedSystem ps) throws IOException
+	{
+		numAtoms = ps.size();
+		typeNames = new String[ps.getNumTypes()];
+		byte[][] names = new byte[typeNames.length][];
+		int size = 20 + 8*numAtoms;
+		for(int t = 0; t < typeNames.length; t++)
+		{
+			typeNames[t] = ps.getTypeName(t);
+			names[t] = typeNames[t].getBytes(StandardCharsets.UTF_8);
+			size += 2 + names[t].length;
+		}
+		types = new int[numAtoms];
+		System.arraycopy(ps.getTypeIndexes(), 0, types, 0, numAtoms);
+
+		ByteBuffer header = ByteBuffer.allocate((size + 7) & ~7).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(precision);
+		header.putInt(numAtoms);
+		header.putInt(typeNames.length);
+		for(byte[] name : names)
+		{
+			header.putShort((short) name.length);
+			header.put(name);
+		}
+		for(int i = 0; i < numAtoms; i++)
+		{
+			header.putInt(types[i]);
+		}
+		int[] iDs = ps.getIDs();
+		for(int i = 0; i < numAtoms; i++)
+		{
+			header.putInt(iDs[i]);
+		}
+		header.position(0);
+		write(header);
+
+		long frameSize = frameSize(numAtoms, precision);
+		if(frameSize > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Configurations of " + numAtoms + " atoms are larger than 2 GB");
+		frame = ByteBuffer.allocate((int) frameSize).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private void checkAtoms(PackedSystem ps)
+	{
+		if(ps.size() != numAtoms)
+			throw new IllegalArgumentException("Configuration has " + ps.size() + " atoms instead of " + numAtoms);
+		//The system may have interned its types in a different order than the first configuration
+		int[] fileTypes = new int[ps.getNumTypes()];
+		for(int t = 0; t < fileTypes.length; t++)
+		{
+			fileTypes[t] = -1;
+			for(int f = 0; f < typeNames.length; f++)
+			{
+				if(typeNames[f].equals(ps.getTypeName(t)))
+					fileTypes[t] = f;
+			}
+		}
+		int[] psTypes = ps.getTypeIndexes();
+		for(int i = 0; i < numAtoms; i++)
+		{
+			if(fileTypes[psTypes[i]] != types[i])
+				throw new IllegalArgumentException("Atom " + (i+1) + " is " + ps.getType(i) + " instead of "
+						+ typeNames[types[i]]);
+		}
+	}
+
+	private void write(ByteBuffer buf) throws IOException
+	{
+		while(buf.hasRemaining())
+		{
+			channel.write(buf);
+		}
+	}
+}
@@ -0,0 +1,193 @@
+package pdb;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import core.Atom;
+import core.BlueprintTable;
+import core.MolBlueprint;
+import core.Molecule;
+import core.MoleculeSource;
+import core.MoleculeSource.MoleculeHandler;
+
+public class PDB_Parser 
+{
+	/*protected FileReader fr;
+	protected BufferedReader br;*/
+	
+	protected BlueprintTable blueprints;
+	protected ArrayList<Molecule> molecules;
+	
+	public PDB_Parser()
+	{
+		blueprints = new BlueprintTable();
+		molecules = new ArrayList<Molecule>();
+	}
+	
+	public void parseBlueprintFile(String filename)
+	{
+		File file = new File(filename);
+		
+		try {
+			FileReader fr = new FileReader(file);
+			BufferedReader br = new BufferedReader(fr);
+			
+			MolBlueprint blueprint = new MolBlueprint();
+			
+			String nextLine = br.readLine();
+			while(nextLine != null)
+			{
+				String[] parts = nextLine.split("\\s+");
+				
+				if(parts[0].equals("HETATM"))
+				{
+					blueprint.addToKey(parts[2]);
+				}
+				else if (parts[0].equals("CONECT"))
+				{
+					//Build Bond
+					if(parts.length == 3)
+					{
+						//Assume format from file is second, first
+						blueprint.addBondIndex(parts[2], parts[1]);
+					}
+					//Build Angle
+					else if(parts.length == 4)
+					{
+						//Assume format from file is center, left, right
+						blueprint.addAngleIndex(parts[2], parts[1], parts[3]);
+					}
+				}
+				nextLine = br.readLine();
+			}
+			
+			blueprints.add(blueprint);
+			
+			System.out.println("Loaded molecule: " + blueprint.getKey());
+			System.out.println("Bonds: " + blueprint.getBondIndexes().size());
+			System.out.println("Angles: " + blueprint.getAngleIndexes().size());
+			
+			br.close();
+			fr.close();
+		} catch (FileNotFoundException e) {
+			System.err.println("File not found.");
+		} catch (IOException e) {
+			System.err.println("IO error.");
+		}
+	}
+	
+	/**
+	 * Reads the molecules of a Packmol built .pdb file and keeps them, with their bonds and angles built.
+	 * @param fileName	The filename of the .pdb file
+	 * @see #readSystemFile(String, MoleculeHandler)
+	 */
+	public void parseSystemFile(String fileName)
+	{
+		try {
+			readSystemFile(fileName, new MoleculeHandler() {
+				@Override
+				public void molecule(List<Atom> atoms, MolBlueprint blueprint)
+				{
+					Molecule mol = new Molecule(blueprint);
+					for(Atom atom : atoms)
+					{
+						mol.addAtom(atom);
+					}
+					
+					mol.buildBondsAndAngles();
+					molecules.add(mol);
+				}
+			});
+		} catch (FileNotFoundException e) {
+			System.err.println("File not found.");
+		} catch (IOException e) {
+			System.err.println("IO Error");
+		}
+	}
+
+	/**
+	 * Reads the molecules of a Packmol built .pdb file one at a time, without keeping them. A new molecule starts
+	 * whenever the residue number changes, and the last molecule ends at the <code>END</code> line. Each molecule is
+	 * matched to a loaded blueprint by the fingerprint of its atom types, which is built as its atoms are read.
+	 * @param fileName	The filename of the .pdb file
+	 * @param handler	Receives each molecule with its blueprint
+	 * @throws IOException	If the file could not be read
+	 * @see PdbRecordReader
+	 */
+	public void readSystemFile(String fileName, MoleculeHandler handler) throws IOException
+	{
+		readSystemFile(fileName, handler, true);
+	}
+
+	/**
+	 * @param reportBadLines	Whether to print the atom lines that could not be parsed. They are skipped either way.
+	 * @see #readSystemFile(String, MoleculeHandler)
+	 */
+	private void readSystemFile(String fileName, MoleculeHandler handler, boolean reportBadLines) throws IOException
+	{
+		try (PdbRecordReader reader = new PdbRecordReader(new FileInputStream(fileName))) {
+			ArrayList<Atom> tempAtomCollection = new ArrayList<Atom>();
+			long fingerprint = MolBlueprint.EMPTY_FINGERPRINT;
+			while(reader.nextLine())
+			{
+				if(reader.isAtom())
+				{
+					try {
+						reader.parseAtom();
+					} catch(NumberFormatException e) {
+						if(reportBadLines)
+							System.err.println("Number Format err - Bad line:\n" + reader.getLine());
+						continue;
+					}
+
+					//Check to see if the new atom is part of a new molecule
+					if(reader.isNewResidue() && !tempAtomCollection.isEmpty())
+					{
+						handler.molecule(tempAtomCollection, blueprints.find(fingerprint, tempAtomCollection));
+						tempAtomCollection.clear();
+						fingerprint = MolBlueprint.EMPTY_FINGERPRINT;
+					}
+					String type = reader.getType();
+					tempAtomCollection.add(new Atom(reader.getSerial(), type, reader.getX(), reader.getY(), reader.getZ()));
+					fingerprint = MolBlueprint.fingerprint(fingerprint, type);
+				}
+				else if(reader.isRecord("END") && !tempAtomCollection.isEmpty())
+				{
+					handler.molecule(tempAtomCollection, blueprints.find(fingerprint, tempAtomCollection));
+					tempAtomCollection.clear();
+					fingerprint = MolBlueprint.EMPTY_FINGERPRINT;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param fileName	The filename of a Packmol built .pdb file
+	 * @return			A source that reads the molecules of the file again each time it is read, using the blueprints
+	 * 					loaded so far. Bad lines are only reported the first time the file is read through.
+	 */
+	public MoleculeSource getSystemSource(final String fileName)
+	{
+		return new MoleculeSource() {
+			private volatile boolean reported;
+
+			@Override
+			public void readMolecules(MoleculeHandler handler) throws IOException
+			{
+				readSystemFile(fileName, handler, !reported);
+				reported = true;
+			}
+		};
+	}
+	
+	public ArrayList<Molecule> getMolecules()
+	{
+		return molecules;
+	}
+}
@@ -0,0 +1,118 @@
+package pdb;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import core.FrameSource;
+import core.PackedSystem;
+
+/**
+ * Iterates over the configurations of a .pdb file. Each configuration is ended by an <code>END</code> or
+ * <code>ENDMDL</code> line, or by the end of the file. Atoms are read from <code>HETATM</code> and <code>ATOM</code>
+ * lines the same way <code>PDB_Parser</code> reads them, and the box is read from the <code>CRYST1</code> line if there is one.
+ * @see PDB_Parser
+ */
+public class PdbFrameSource extends FrameSource
+{
+	private PdbRecordReader reader;
+
+	/**The last box read, kept for configurations without a CRYST1 line*/
+	private double xBox, yBox, zBox;
+	private double alpha = 90, beta = 90, gamma = 90;
+
+	/**
+	 * @param file		The filename of the .pdb file
+	 * @throws IOException	If the file cannot be opened
+	 */
+	public PdbFrameSource(String file) throws IOException
+	{
+		reader = new PdbRecordReader(new FileInputStream(file));
+	}
+
+	@Override
+	protected int readFrame(PackedSystem ps) throws IOException
+	{
+		ps.clear();
+		boolean goodSet = true;
+		boolean more = reader.nextLine();
+		while(more)
+		{
+			if(reader.isAtom())
+			{
+				if(goodSet)
+					goodSet = parseAtom(ps);
+			}
+			else if(reader.isRecord("CRYST1"))
+			{
+				goodSet &= parseBox(reader.getLine());
+			}
+			else if((reader.isRecord("END") || reader.isRecord("ENDMDL")) && (ps.size() > 0 || !goodSet))
+			{
+				break;
+			}
+			more = reader.nextLine();
+		}
+
+		if(!more && ps.size() == 0 && goodSet)
+			return END;
+		ps.setXBox(xBox);
+		ps.setYBox(yBox);
+		ps.setZBox(zBox);
+		ps.setAngles(alpha, beta, gamma);
+		return goodSet ? GOOD : BAD;
+	}
+
+	/**
+	 * Adds the atom on the current atom record.
+	 * @return	False if the line is badly formatted
+	 */
+	private boolean parseAtom(PackedSystem ps)
+	{
+		try {
+			reader.parseAtom();
+			ps.add(reader.getSerial(), reader.getType(), reader.getX(), reader.getY(), reader.getZ());
+			return true;
+		} catch(NumberFormatException e) {
+			System.err.println("Number Format err - Bad line:\n" + reader.getLine());
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the box lengths and angles of a CRYST1 line.
+	 * @return	False if the line is badly formatted
+	 */
+	private boolean parseBox(String line)
+	{
+		String[] parts = line.split("\\s+");
+		if(parts.length < 4)
+			return true;
+		try {
+			xBox = Double.parseDouble(parts[1]);
+			yBox = Double.parseDouble(parts[2]);
+			zBox = Double.parseDouble(parts[3]);
+			if(parts.length >= 7)
+			{
+				alpha = Double.parseDouble(parts[4]);
+				beta = Double.parseDouble(parts[5]);
+				gamma = Double.parseDouble(parts[6]);
+			}
+		} catch(NumberFormatException e) {
+			System.err.println("Number Format err - Bad box line:\n" + line);
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public long getBytesRead()
+	{
+		return reader.getBytesRead();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		reader.close();
+	}
+}
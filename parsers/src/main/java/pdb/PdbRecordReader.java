@@ -0,0 +1,390 @@
+package pdb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import tinker.ByteAtomParser;
+
+/**
+ * Reads the lines of a .pdb file as bytes and parses <code>HETATM</code> and <code>ATOM</code> records in place, so a
+ * well-formed atom line does not create any <code>String</code> or array. Atom type names are cached by their bytes, so
+ * each distinct type is only decoded once per reader.
+ * <p>
+ * An atom record is read by its columns when the line has the standard layout, which is the one Packmol writes:
+ * the serial number in columns 7-11, the atom name in 13-16, the residue number in 23-26 and the coordinates in 31-38,
+ * 39-46 and 47-54. Lines that do not fit the columns, such as short lines or lines where a serial number above 99999
+ * pushes the fields to the right, are read by their space separated fields the way <code>PDB_Parser</code> always has.
+ * A serial number joined to the record name, as in <code>HETATM12345</code>, or a residue number joined to the chain,
+ * as in <code>A1234</code>, is split apart, and the coordinates are taken from the last three fields.
+ * <p>
+ * Lines may end with <code>\n</code> or <code>\r\n</code>. A reader is not thread safe.
+ * @see PDB_Parser
+ */
+public class PdbRecordReader implements Closeable
+{
+	private static final byte[] HETATM = "HETATM".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ATOM = "ATOM".getBytes(StandardCharsets.US_ASCII);
+	/**The length of an atom line up to the end of the z coordinate*/
+	private static final int COLUMNS = 54;
+
+	private InputStream in;
+	private byte[] buf = new byte[1 << 16];
+	private int pos, limit;
+	private boolean eof;
+	private long bytesRead;
+
+	/**The current line, without its terminator*/
+	private int lineStart, lineEnd;
+
+	/**The fields of the current atom record*/
+	private int serial;
+	private double x, y, z;
+	private int typeStart, typeEnd;
+	private int residueStart, residueEnd;
+	private boolean newResidue;
+
+	/**The residue number of the last atom record, as bytes*/
+	private byte[] lastResidue = new byte[8];
+	private int lastResidueLength = -1;
+
+	/**Atom type names seen so far, with the bytes they were read from*/
+	private byte[][] typeBytes = new byte[8][];
+	private String[] typeNames = new String[8];
+	private int numTypes;
+
+	/**Start and end of the space separated fields of the current line*/
+	private int[] fieldStart = new int[16];
+	private int[] fieldEnd = new int[16];
+
+	/**
+	 * @param in	The bytes of a .pdb file. The stream is closed by <code>close</code>.
+	 */
+	public PdbRecordReader(InputStream in)
+	{
+		this.in = in;
+	}
+
+	/**
+	 * Moves to the next line of the file.
+	 * @return	False at the end of the file
+	 * @throws IOException	If the file could not be read
+	 */
+	public boolean nextLine() throws IOException
+	{
+		int i = pos;
+		while(true)
+		{
+			while(i < limit && buf[i] != '\n')
+			{
+				i++;
+			}
+			if(i < limit)
+			{
+				setLine(pos, i, i + 1);
+				return true;
+			}
+			if(eof)
+			{
+				if(pos == limit)
+					return false;
+				setLine(pos, limit, limit);
+				return true;
+			}
+			i -= pos;
+			fill();
+		}
+	}
+
+	/**
+	 * Moves the unread bytes to the front of the buffer, growing it if a line does not fit, and reads more of the file.
+	 */
+	private void fill() throws IOException
+	{
+		int remaining = limit - pos;
+		if(remaining == buf.length)
+		{
+			buf = Arrays.copyOf(buf, 2*buf.length);
+		}
+		else
+		{
+			System.arraycopy(buf, pos, buf, 0, remaining);
+		}
+		pos = 0;
+		limit = remaining;
+		int n = in.read(buf, limit, buf.length - limit);
+		if(n < 0)
+			eof = true;
+		else
+			limit += n;
+	}
+
+	private void setLine(int start, int end, int next)
+	{
+		lineStart = start;
+		lineEnd = (end > start && buf[end-1] == '\r') ? end - 1 : end;
+		bytesRead += next - start;
+		pos = next;
+	}
+
+	/**
+	 * @return	True if the current line is a <code>HETATM</code> or <code>ATOM</code> record
+	 */
+	public boolean isAtom()
+	{
+		return startsWith(HETATM) || startsWith(ATOM);
+	}
+
+	/**
+	 * @param name	A record name, such as <code>END</code>
+	 * @return		True if the first field of the current line is exactly <code>name</code>
+	 */
+	public boolean isRecord(String name)
+	{
+		int length = name.length();
+		if(lineEnd - lineStart < length)
+			return false;
+		for(int k = 0; k < length; k++)
+		{
+			if(buf[lineStart + k] != name.charAt(k))
+				return false;
+		}
+		return lineEnd - lineStart == length || isSpace(buf[lineStart + length]);
+	}
+
+	private boolean startsWith(byte[] name)
+	{
+		if(lineEnd - lineStart < name.length)
+			return false;
+		for(int k = 0; k < name.length; k++)
+		{
+			if(buf[lineStart + k] != name[k])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the fields of the current line, which should be an atom record.
+	 * @throws NumberFormatException	If a number is badly formatted or a field is missing
+	 */
+	public void parseAtom()
+	{
+		if(!parseColumns())
+			parseFields();
+
+		//Remember the residue number to find where the next molecule starts
+		int length = residueEnd - residueStart;
+		newResidue = length != lastResidueLength;
+		for(int k = 0; k < length && !newResidue; k++)
+		{
+			newResidue = buf[residueStart + k] != lastResidue[k];
+		}
+		if(newResidue)
+		{
+			if(length > lastResidue.length)
+				lastResidue = new byte[length];
+			System.arraycopy(buf, residueStart, lastResidue, 0, length);
+			lastResidueLength = length;
+		}
+	}
+
+	/**
+	 * Reads an atom record by its columns.
+	 * @return	False if the line does not have the standard layout
+	 */
+	private boolean parseColumns()
+	{
+		int s = lineStart;
+		//Every field must be separated from its neighbours, or a number has overflowed its columns
+		if(lineEnd - s < COLUMNS || !isSpace(buf[s+11]) || !isSpace(buf[s+29])
+				|| isSpace(buf[s+37]) || isSpace(buf[s+45]) || isSpace(buf[s+53])
+				|| (lineEnd - s > COLUMNS && !isSpace(buf[s+COLUMNS])))
+			return false;
+
+		typeStart = skipSpaces(s+12, s+16);
+		typeEnd = trimSpaces(typeStart, s+16);
+		residueStart = skipSpaces(s+22, s+26);
+		residueEnd = trimSpaces(residueStart, s+26);
+		if(typeStart == typeEnd || residueStart == residueEnd)
+			return false;
+
+		int start = skipSpaces(s+6, s+11);
+		serial = ByteAtomParser.parseInt(buf, start, s+11);
+		x = ByteAtomParser.parseDouble(buf, skipSpaces(s+30, s+38), s+38);
+		y = ByteAtomParser.parseDouble(buf, skipSpaces(s+38, s+46), s+46);
+		z = ByteAtomParser.parseDouble(buf, skipSpaces(s+46, s+54), s+54);
+		return true;
+	}
+
+	/**
+	 * Reads an atom record by its space separated fields: the record name, serial number, atom name, residue name,
+	 * chain and residue number, with the coordinates in the last three fields.
+	 */
+	private void parseFields()
+	{
+		int numFields = 0;
+		int i = lineStart;
+		while(i < lineEnd)
+		{
+			if(isSpace(buf[i]))
+			{
+				i++;
+				continue;
+			}
+			if(numFields == fieldStart.length)
+			{
+				fieldStart = Arrays.copyOf(fieldStart, 2*numFields);
+				fieldEnd = Arrays.copyOf(fieldEnd, 2*numFields);
+			}
+			fieldStart[numFields] = i;
+			while(i < lineEnd && !isSpace(buf[i]))
+			{
+				i++;
+			}
+			fieldEnd[numFields] = i;
+			numFields++;
+		}
+
+		//The serial number may be joined to the record name
+		int name = startsWith(HETATM) ? HETATM.length : ATOM.length;
+		int f = 1;
+		int serialStart, serialEnd;
+		if(fieldEnd[0] - fieldStart[0] > name)
+		{
+			serialStart = fieldStart[0] + name;
+			serialEnd = fieldEnd[0];
+		}
+		else
+		{
+			if(f >= numFields)
+				throw new NumberFormatException("Missing field");
+			serialStart = fieldStart[f];
+			serialEnd = fieldEnd[f];
+			f++;
+		}
+		//The residue number may be joined to the chain
+		int chain = f + 2;
+		if(chain >= numFields)
+			throw new NumberFormatException("Missing field");
+		int residue = (fieldEnd[chain] - fieldStart[chain] != 1) ? chain : chain + 1;
+		//The coordinates must follow the residue number
+		if(residue + 3 >= numFields)
+			throw new NumberFormatException("Missing field");
+		residueStart = (residue == chain) ? fieldStart[chain] + 1 : fieldStart[residue];
+		residueEnd = fieldEnd[residue];
+		typeStart = fieldStart[f];
+		typeEnd = fieldEnd[f];
+
+		serial = ByteAtomParser.parseInt(buf, serialStart, serialEnd);
+		x = ByteAtomParser.parseDouble(buf, fieldStart[numFields-3], fieldEnd[numFields-3]);
+		y = ByteAtomParser.parseDouble(buf, fieldStart[numFields-2], fieldEnd[numFields-2]);
+		z = ByteAtomParser.parseDouble(buf, fieldStart[numFields-1], fieldEnd[numFields-1]);
+	}
+
+	private int skipSpaces(int start, int end)
+	{
+		while(start < end && isSpace(buf[start]))
+		{
+			start++;
+		}
+		return start;
+	}
+
+	private int trimSpaces(int start, int end)
+	{
+		while(end > start && isSpace(buf[end-1]))
+		{
+			end--;
+		}
+		return end;
+	}
+
+	private static boolean isSpace(byte b)
+	{
+		return b == ' ' || b == '\t';
+	}
+
+	public int getSerial()
+	{
+		return serial;
+	}
+
+	public double getX()
+	{
+		return x;
+	}
+
+	public double getY()
+	{
+		return y;
+	}
+
+	public double getZ()
+	{
+		return z;
+	}
+
+	/**
+	 * @return	The atom name of the current atom record, which is used as its type
+	 */
+	public String getType()
+	{
+		int length = typeEnd - typeStart;
+		for(int t = 0; t < numTypes; t++)
+		{
+			byte[] bytes = typeBytes[t];
+			if(bytes.length != length)
+				continue;
+			int k = 0;
+			while(k < length && bytes[k] == buf[typeStart + k])
+			{
+				k++;
+			}
+			if(k == length)
+				return typeNames[t];
+		}
+
+		if(numTypes == typeBytes.length)
+		{
+			typeBytes = Arrays.copyOf(typeBytes, 2*numTypes);
+			typeNames = Arrays.copyOf(typeNames, 2*numTypes);
+		}
+		typeBytes[numTypes] = Arrays.copyOfRange(buf, typeStart, typeEnd);
+		typeNames[numTypes] = new String(typeBytes[numTypes], StandardCharsets.UTF_8);
+		return typeNames[numTypes++];
+	}
+
+	/**
+	 * @return	True if the residue number of the current atom record differs from the one of the atom record before it,
+	 * 			or if it is the first atom record
+	 */
+	public boolean isNewResidue()
+	{
+		return newResidue;
+	}
+
+	/**
+	 * @return	The current line. Only used for the few lines that are not atom records and for error messages.
+	 */
+	public String getLine()
+	{
+		return new String(buf, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return	The number of bytes of the lines read so far, including their line breaks
+	 */
+	public long getBytesRead()
+	{
+		return bytesRead;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+}
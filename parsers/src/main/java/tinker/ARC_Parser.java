@@ -0,0 +1,143 @@
+package tinker;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.text.DecimalFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import calculations.AnalysisPipeline;
+import calculations.FrameAnalysis;
+import calculations.RDFAnalysis;
+import core.BulkSystem;
+import core.PackedSystem;
+import core.RunMetrics;
+
+/**
+ * Parses a Tinker .arc file and performs calculations on each configuration contained in the file. v1.1 is updated
+ * to match the changes to v1.1 of the <code>RadialDF</code> class.
+ * @see Tinker_Parser
+ * @see calculations.RadialDF
+ * @see core.BulkSystem
+ * @author Trevor Fisher
+ * @version 1.1
+ */
+public class ARC_Parser extends Tinker_Parser
+{
+	/**The number of configurations between progress reports*/
+	private static final int PROGRESS_INTERVAL = 100;
+	
+	private int numSystems=500;
+	private double interval=0.25;
+	private double cutoff=12.5;
+	/**The first configuration analyzed and the step between analyzed configurations*/
+	private int firstSystem=0;
+	private int stride=1;
+	/**Where to export the run metrics, or null to only print them*/
+	private String metricsFile;
+	
+	/**
+	 * The trajectory is only opened by <code>parseFile</code>, which reads each configuration into a
+	 * <code>PackedSystem</code> of its own, so <code>system</code> is not filled and the inherited field is left null.
+	 * @param file			The filename of the .arc file
+	 * @param system		Not used. Kept so existing callers still compile.
+	 * @param numSystems	The number of configurations to analyze
+	 * @param cutoff		The maximum distance of the RDF
+	 * @param interval		The radius of each RDF shell
+	 */
+	public ARC_Parser(String file, BulkSystem system, int numSystems, double cutoff, double interval) 
+	{
+		super(file);
+		this.numSystems = numSystems;
+		this.interval = interval;
+		this.cutoff = cutoff;
+	}
+	
+	/**
+	 * Selects which configurations are analyzed: <code>numSystems</code> configurations starting at <code>firstSystem</code>
+	 * and taking every <code>stride</code>th one. Anything other than the default of starting at 0 with a stride of 1
+	 * uses a <code>FrameIndex</code> to jump straight to each configuration, building the index on the first run.
+	 * @param firstSystem	The first configuration to analyze, starting at 0
+	 * @param stride		The step between analyzed configurations
+	 */
+	public void setFrameRange(int firstSystem, int stride)
+	{
+		this.firstSystem = Math.max(0, firstSystem);
+		this.stride = Math.max(1, stride);
+	}
+	
+	/**
+	 * @param metricsFile	A .json or .csv file to export the time and throughput of each run to, or null to only print
+	 * 						them
+	 * @see RunMetrics
+	 */
+	public void setMetricsFile(String metricsFile)
+	{
+		this.metricsFile = metricsFile;
+	}
+	
+	/**
+	 * Parses the .arc file and performs analysis on each configuration and post-analysis over the entire set of configurations.
+	 * Every analysis is a <code>FrameAnalysis</code> registered with one <code>AnalysisPipeline</code>, so all of them share
+	 * a single pass over the file.
+	 * The box is read from every configuration, so constant pressure (NPT) trajectories are analyzed with the box each
+	 * configuration actually had.
+	 * The time spent reading and in each analysis, and the work done, are printed at the end of the run.
+	 * Note the TO-DO sections where additional analysis can be implemented.
+	 */
+	public void parseFile() 
+	{
+		try {
+			RunMetrics metrics = new RunMetrics();
+			metrics.start();
+			
+			//Set up the analyses done on each configuration
+			RDFAnalysis rdf = new RDFAnalysis("OW", "OW", interval, cutoff);
+			AnalysisPipeline pipeline = new AnalysisPipeline();
+			pipeline.setMetrics(metrics);
+			pipeline.add(new ConfigurationSetup());
+			pipeline.add(rdf);
+			//TODO register additional analyses here
+			
+			try (ArcFrameSource source = ArcFrameSource.open(file.getPath(), firstSystem, numSystems, stride)) {
+				pipeline.run(source);
+			}
+			
+			//TODO add processing after all configurations have been analyzed here:
+			
+			//Print out RDF results to console
+			double[] normalizedDistances = rdf.getRDF();
+			for(int i = 0; i < normalizedDistances.length; i++)
+			{
+				DecimalFormat df = new DecimalFormat("#.##");
+				System.out.println("Layer:\t" + df.format(i*interval) + "\t\t" + normalizedDistances[i]);
+			}
+			
+			metrics.finish();
+			System.out.print(metrics);
+			if(metricsFile != null)
+				metrics.write(metricsFile);
+			
+		} catch (IOException | UncheckedIOException e) {
+			System.out.println("Error in parsing file");
+		}
+	}
+	
+	/**
+	 * Reports progress every <code>PROGRESS_INTERVAL</code> configurations, rather than for every one, which costs
+	 * noticeable time on fast runs.
+	 */
+	private class ConfigurationSetup implements FrameAnalysis
+	{
+		private AtomicInteger numSeen = new AtomicInteger();
+		
+		@Override
+		public void accept(int frame, PackedSystem currentSystem) {
+			int seen = numSeen.incrementAndGet();
+			if(seen % PROGRESS_INTERVAL == 0)
+				System.out.println("Calculated " + seen + " systems");
+		}
+		@Override
+		public void finish() {
+		}
+	}
+	
+}
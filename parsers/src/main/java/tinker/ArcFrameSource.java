@@ -0,0 +1,117 @@
+package tinker;
+
+import java.io.IOException;
+
+import core.FrameSource;
+import core.PackedSystem;
+
+/**
+ * Iterates over the configurations of a Tinker .arc file, reading them through a <code>MappedArcReader</code>.
+ * Either every configuration is read in order, or only selected configurations are read by jumping straight to
+ * each one with a <code>FrameIndex</code>.
+ * @see MappedArcReader
+ */
+public class ArcFrameSource extends FrameSource
+{
+	private MappedArcReader reader;
+
+	/**The selected configurations, or null if every configuration is read*/
+	private FrameIndex index;
+	private int[] frames;
+	private int next;
+	/**The bytes of every configuration read, counted separately since the reader may jump around the file*/
+	private long bytesRead;
+
+	/**
+	 * Reads every configuration of a trajectory in order.
+	 * @param file		The filename of the Tinker file.
+	 * @throws IOException	If the file cannot be opened
+	 */
+	public ArcFrameSource(String file) throws IOException
+	{
+		reader = new MappedArcReader(file);
+	}
+
+	/**
+	 * Reads only the selected configurations of a trajectory.
+	 * @param file		The filename of the Tinker file.
+	 * @param index		The index of the file
+	 * @param frames	The configurations to read, as returned by <code>FrameIndex.select</code>
+	 * @throws IOException	If the file cannot be opened
+	 */
+	public ArcFrameSource(String file, FrameIndex index, int[] frames) throws IOException
+	{
+		this(file);
+		this.index = index;
+		this.frames = frames;
+	}
+
+	/**
+	 * Reads up to <code>count</code> configurations of a trajectory starting at <code>first</code> and taking every
+	 * <code>stride</code>th one. Anything other than starting at 0 with a stride of 1 uses a <code>FrameIndex</code>
+	 * to jump straight to each configuration, building the index on the first run.
+	 * @param file		The filename of the Tinker file.
+	 * @param first		The first configuration, starting at 0
+	 * @param count		The most configurations to read
+	 * @param stride	The step between configurations
+	 * @return			The configurations
+	 * @throws IOException	If the file or its index cannot be read
+	 */
+	public static ArcFrameSource open(String file, int first, int count, int stride) throws IOException
+	{
+		ArcFrameSource source;
+		if(first == 0 && stride == 1)
+		{
+			source = new ArcFrameSource(file);
+		}
+		else
+		{
+			FrameIndex index = FrameIndex.open(file);
+			source = new ArcFrameSource(file, index, index.selectCount(first, count, stride));
+		}
+		source.setLimit(count);
+		return source;
+	}
+
+	@Override
+	protected int readFrame(PackedSystem ps) throws IOException
+	{
+		if(frames != null)
+		{
+			if(next >= frames.length)
+				return END;
+			//Configurations next to each other in the file are read without seeking
+			if(reader.getPosition() != index.getOffset(frames[next]))
+				index.seek(reader, frames[next]);
+			next++;
+		}
+		long start = reader.getPosition();
+		try {
+			return reader.readFrame(ps) ? GOOD : END;
+		} catch(BadAtomFormat bf) {
+			return BAD;
+		} finally {
+			bytesRead += reader.getPosition() - start;
+		}
+	}
+
+	@Override
+	protected int nextFrameIndex()
+	{
+		if(frames != null && next < frames.length)
+			return frames[next];
+		return super.nextFrameIndex();
+	}
+
+	@Override
+	public long getBytesRead()
+	{
+		return bytesRead;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		reader.close();
+	}
+}
@@ -0,0 +1,401 @@
+package tinker;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import core.PackedSystem;
+
+/**
+ * Parses Tinker atom lines straight from the bytes of a file buffer into a <code>PackedSystem</code>.
+ * Fields are found by scanning for spaces and numbers are converted in place, so a well-formed line does not
+ * create any <code>String</code> or array. Atom type names are cached by their bytes, so each distinct type is only
+ * decoded once per parser.
+ * <p>
+ * A line is rejected with <code>BadAtomFormat</code> in exactly the cases <code>Tinker_Parser.parseAtom</code>
+ * rejects it: fewer than five fields, or a coordinate that <code>Double.valueOf</code> cannot read. Coordinates are
+ * also converted to the same <code>double</code> values. Numbers that the fast conversion cannot guarantee to round
+ * identically (more than 15 digits, large exponents, or unusual syntax) are handed to
+ * <code>Double.parseDouble</code>.
+ * <p>
+ * A parser keeps a small type cache and is not thread safe. Use one parser per thread.
+ * @see Tinker_Parser#parseAtom(String, PackedSystem)
+ */
+public class ByteAtomParser
+{
+	/**Tinker_Parser only reads the first 50 space separated pieces of a line*/
+	private static final int MAX_PIECES = 50;
+	/**Powers of ten that are exactly representable as a double*/
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/**Atom type names seen so far, with the bytes they were read from*/
+	private byte[][] typeBytes = new byte[8][];
+	private String[] typeNames = new String[8];
+	private int numTypes;
+	/**The index of each cached type in the last system parsed into*/
+	private int[] typeIndexes = new int[8];
+	private PackedSystem indexedSystem;
+
+	/**The number of space separated pieces before the current field of the line*/
+	private int pieces;
+	/**The end of the last field converted by <code>parseField</code>*/
+	private int fieldEnd;
+	/**Holds a line copied out of a buffer*/
+	private byte[] line = new byte[128];
+
+	/**
+	 * Parses the atom line held in <code>buf</code> between <code>start</code> and <code>end</code> and adds the atom to
+	 * <code>ps</code>. The range should not include the line terminator. The buffer's position and limit are not changed.
+	 * <p>
+	 * The line is first copied into an array with one bulk copy. Reading a direct or mapped buffer one byte at a time
+	 * checks the buffer on every access, and cost more than the rest of the parse put together.
+	 * @param buf				The buffer holding the line
+	 * @param start				The index of the first byte of the line
+	 * @param end				The index after the last byte of the line
+	 * @param ps				The <code>PackedSystem</code> to store the coordinates.
+	 * @throws BadAtomFormat	If the line does not match the Tinker format, then this is thrown.
+	 */
+	public void parseAtom(ByteBuffer buf, int start, int end, PackedSystem ps) throws BadAtomFormat
+	{
+		int length = end - start;
+		if(line.length < length)
+			line = new byte[Math.max(length, 2*line.length)];
+		buf.get(start, line, 0, length);
+		parseAtom(line, 0, length, ps);
+	}
+
+	/**
+	 * Parses the atom line held in <code>bytes</code> between <code>start</code> and <code>end</code>.
+	 * @see #parseAtom(ByteBuffer, int, int, PackedSystem)
+	 */
+	public void parseAtom(byte[] bytes, int start, int end, PackedSystem ps) throws BadAtomFormat
+	{
+		//Fields are found and converted one at a time, in the order Tinker_Parser checks them, so the same error is
+		//reported. Each byte of the line is only looked at once.
+		pieces = 0;
+		try{
+		int typeStart = nextField(bytes, skipField(bytes, nextField(bytes, start, end), end), end);
+		int typeEnd = skipField(bytes, typeStart, end);
+		double xCord = parseField(bytes, nextField(bytes, typeEnd, end), end);
+		double yCord = parseField(bytes, nextField(bytes, fieldEnd, end), end);
+		double zCord = parseField(bytes, nextField(bytes, fieldEnd, end), end);
+		ps.add(0, typeIndex(bytes, typeStart, typeEnd, ps), xCord, yCord, zCord);
+		}catch (NullPointerException e)
+		{
+			System.err.println("Null Pointer err - Bad line:\n" + decode(bytes, start, end));
+			throw new BadAtomFormat();
+		}catch (NumberFormatException e)
+		{
+			System.err.println("Number Format err - Bad line:\n" + decode(bytes, start, end));
+			throw new BadAtomFormat();
+		}
+	}
+
+	/**
+	 * Skips the spaces before a field, counting pieces the same way <code>String.split(" ")</code> does.
+	 * @return	The start of the field
+	 * @throws NullPointerException		If the line has no more fields within the pieces Tinker_Parser reads
+	 */
+	private int nextField(byte[] bytes, int i, int end)
+	{
+		while(i < end && bytes[i] == ' ')
+		{
+			pieces++;
+			i++;
+		}
+		if(i == end || pieces >= MAX_PIECES)
+			throw new NullPointerException();
+		return i;
+	}
+
+	/**
+	 * @return	The end of the field starting at <code>i</code>
+	 */
+	private static int skipField(byte[] bytes, int i, int end)
+	{
+		while(i < end && bytes[i] != ' ')
+		{
+			i++;
+		}
+		return i;
+	}
+
+	/**
+	 * Converts the field starting at <code>start</code> and stores where it ends in <code>fieldEnd</code>. Plain
+	 * decimals such as <code>-6.191289</code> are converted as the field is scanned. Anything else is handed to
+	 * <code>parseDouble</code> once the end of the field is found.
+	 * @throws NumberFormatException	If the field is not a number
+	 */
+	private double parseField(byte[] bytes, int start, int end)
+	{
+		int i = start;
+		boolean negative = bytes[i] == '-';
+		if(negative || bytes[i] == '+')
+			i++;
+		long mantissa = 0;
+		int numDigits = 0;
+		int point = -1;
+		for(; i < end; i++)
+		{
+			byte b = bytes[i];
+			int digit = b - '0';
+			if(digit >= 0 && digit <= 9)
+			{
+				mantissa = mantissa*10 + digit;
+				numDigits++;
+			}
+			else if(b == '.' && point < 0)
+			{
+				point = numDigits;
+			}
+			else
+			{
+				break;
+			}
+		}
+		if(i < end && bytes[i] != ' ')
+		{
+			fieldEnd = skipField(bytes, i, end);
+			return parseDouble(bytes, start, fieldEnd);
+		}
+		fieldEnd = i;
+		//Rounds exactly as parseDouble does
+		if(numDigits == 0 || numDigits > 15)
+			return parseDouble(bytes, start, fieldEnd);
+		double value = mantissa;
+		if(point >= 0)
+			value /= POWERS_OF_TEN[numDigits - point];
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Converts a decimal number without creating a <code>String</code>, giving the same result as
+	 * <code>Double.parseDouble</code>.
+	 * @param bytes		The array holding the number
+	 * @param start		The index of the first character of the number
+	 * @param end		The index after the last character of the number
+	 * @return			The number
+	 * @throws NumberFormatException	If the characters are not a number
+	 */
+	public static double parseDouble(byte[] bytes, int start, int end)
+	{
+		int i = start;
+		boolean negative = false;
+		if(i < end)
+		{
+			byte sign = bytes[i];
+			if(sign == '-' || sign == '+')
+			{
+				negative = sign == '-';
+				i++;
+			}
+		}
+
+		//Read the digits on both sides of the decimal point into one integer
+		long mantissa = 0;
+		int numDigits = 0;
+		int point = -1;
+		for(; i < end; i++)
+		{
+			byte b = bytes[i];
+			int digit = b - '0';
+			if(digit >= 0 && digit <= 9)
+			{
+				mantissa = mantissa*10 + digit;
+				numDigits++;
+			}
+			else if(b == '.' && point < 0)
+			{
+				point = numDigits;
+			}
+			else
+			{
+				break;
+			}
+		}
+		int scale = point < 0 ? 0 : point - numDigits;
+
+		if(numDigits > 0 && i < end && (bytes[i] == 'e' || bytes[i] == 'E'))
+		{
+			i++;
+			boolean negativeExp = false;
+			if(i < end && (bytes[i] == '-' || bytes[i] == '+'))
+			{
+				negativeExp = bytes[i] == '-';
+				i++;
+			}
+			int exp = 0;
+			int expDigits = 0;
+			for(; i < end; i++)
+			{
+				int digit = bytes[i] - '0';
+				if(digit < 0 || digit > 9)
+					break;
+				if(exp < 10000)
+					exp = exp*10 + digit;
+				expDigits++;
+			}
+			if(expDigits == 0)
+				return slowParseDouble(bytes, start, end);
+			scale += negativeExp ? -exp : exp;
+		}
+
+		//Anything unusual, or any number that may not round exactly, takes the slow path.
+		//Up to 15 digits always fit exactly in a double, as do the powers of ten up to 1e22.
+		if(numDigits == 0 || numDigits > 15 || i != end || scale < -22 || scale > 22)
+			return slowParseDouble(bytes, start, end);
+
+		double value = mantissa;
+		if(scale < 0)
+			value /= POWERS_OF_TEN[-scale];
+		else
+			value *= POWERS_OF_TEN[scale];
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Converts a decimal number held in a buffer.
+	 * @see #parseDouble(byte[], int, int)
+	 */
+	public static double parseDouble(ByteBuffer buf, int start, int end)
+	{
+		if(buf.hasArray())
+			return parseDouble(buf.array(), buf.arrayOffset() + start, buf.arrayOffset() + end);
+		byte[] bytes = new byte[end - start];
+		buf.get(start, bytes);
+		return parseDouble(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Converts an integer without creating a <code>String</code>.
+	 * @param bytes		The array holding the number
+	 * @param start		The index of the first character of the number
+	 * @param end		The index after the last character of the number
+	 * @return			The number
+	 * @throws NumberFormatException	If the characters are not an integer
+	 */
+	public static int parseInt(byte[] bytes, int start, int end)
+	{
+		int i = start;
+		boolean negative = false;
+		if(i < end && (bytes[i] == '-' || bytes[i] == '+'))
+		{
+			negative = bytes[i] == '-';
+			i++;
+		}
+		if(i == end || end - i > 9)
+			return Integer.parseInt(decode(bytes, start, end));
+		int value = 0;
+		for(; i < end; i++)
+		{
+			int digit = bytes[i] - '0';
+			if(digit < 0 || digit > 9)
+				throw new NumberFormatException("For input string: \"" + decode(bytes, start, end) + "\"");
+			value = value*10 + digit;
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Converts an integer held in a buffer.
+	 * @see #parseInt(byte[], int, int)
+	 */
+	public static int parseInt(ByteBuffer buf, int start, int end)
+	{
+		if(buf.hasArray())
+			return parseInt(buf.array(), buf.arrayOffset() + start, buf.arrayOffset() + end);
+		byte[] bytes = new byte[end - start];
+		buf.get(start, bytes);
+		return parseInt(bytes, 0, bytes.length);
+	}
+
+	private static double slowParseDouble(byte[] bytes, int start, int end)
+	{
+		return Double.parseDouble(decode(bytes, start, end));
+	}
+
+	/**
+	 * Finds the index in <code>ps</code> of the type named by the bytes of a field. Indexes are remembered while
+	 * consecutive lines are parsed into the same system, since its types are never removed.
+	 */
+	private int typeIndex(byte[] bytes, int start, int end, PackedSystem ps)
+	{
+		if(ps != indexedSystem)
+		{
+			indexedSystem = ps;
+			Arrays.fill(typeIndexes, -1);
+		}
+		int t = findType(bytes, start, end);
+		if(t < 0)
+		{
+			t = addType(bytes, start, end);
+		}
+		if(typeIndexes[t] < 0)
+		{
+			typeIndexes[t] = ps.internType(typeNames[t]);
+		}
+		return typeIndexes[t];
+	}
+
+	/**
+	 * @return	The index of the cached type matching the bytes of a field, or -1 if it has not been seen
+	 */
+	private int findType(byte[] bytes, int start, int end)
+	{
+		int length = end - start;
+		for(int t = 0; t < numTypes; t++)
+		{
+			byte[] type = typeBytes[t];
+			if(type.length != length)
+				continue;
+			int k = 0;
+			while(k < length && type[k] == bytes[start + k])
+			{
+				k++;
+			}
+			if(k == length)
+				return t;
+		}
+		return -1;
+	}
+
+	/**
+	 * Decodes and caches a new type name.
+	 * @return	The index of the new type in the cache
+	 */
+	private int addType(byte[] bytes, int start, int end)
+	{
+		byte[] type = Arrays.copyOfRange(bytes, start, end);
+		if(numTypes == typeBytes.length)
+		{
+			typeBytes = Arrays.copyOf(typeBytes, 2*numTypes);
+			typeNames = Arrays.copyOf(typeNames, 2*numTypes);
+			typeIndexes = Arrays.copyOf(typeIndexes, 2*numTypes);
+		}
+		typeBytes[numTypes] = type;
+		typeNames[numTypes] = new String(type, StandardCharsets.UTF_8);
+		typeIndexes[numTypes] = -1;
+		return numTypes++;
+	}
+
+	/**
+	 * Decodes part of an array into a <code>String</code>. Only used for error messages and unusual numbers.
+	 */
+	static String decode(byte[] bytes, int start, int end)
+	{
+		return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Decodes part of a buffer into a <code>String</code>. Only used for error messages.
+	 */
+	static String decode(ByteBuffer buf, int start, int end)
+	{
+		byte[] bytes = new byte[end - start];
+		buf.get(start, bytes);
+		return decode(bytes, 0, bytes.length);
+	}
+}
@@ -0,0 +1,216 @@
+package tinker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Records the byte offset of every configuration in a Tinker .arc file so that configurations can be read
+ * directly, without parsing the ones before them. Building the index only counts lines, using the number of atoms
+ * in each configuration's header to find where the next one starts.
+ * <p>
+ * The index is saved next to the trajectory as a sidecar file (the trajectory name followed by <code>.idx</code>),
+ * along with the trajectory's size and modification time. <code>open</code> reuses the sidecar on later runs as long
+ * as the trajectory has not changed.
+ * @see MappedArcReader
+ */
+public class FrameIndex
+{
+	/**Identifies a sidecar index file*/
+	private static final int MAGIC = 0x53534958;
+	private static final int VERSION = 1;
+	public static final String EXTENSION = ".idx";
+	/**The bytes before the offsets: the magic number, version, trajectory size and time, and number of configurations*/
+	private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+
+	/**The offset of each configuration, followed by the offset just past the last one*/
+	private long[] offsets;
+	private int numFrames;
+
+	private FrameIndex(long[] offsets, int numFrames)
+	{
+		this.offsets = offsets;
+		this.numFrames = numFrames;
+	}
+
+	/**
+	 * Loads the sidecar index of a trajectory, or builds and saves it if there is none, it is damaged or the trajectory
+	 * has changed.
+	 * A sidecar that cannot be written is reported but does not stop the index from being used.
+	 * @param file		The filename of the Tinker file.
+	 * @return			The index of the trajectory
+	 * @throws IOException	If the trajectory cannot be read
+	 */
+	public static FrameIndex open(String file) throws IOException
+	{
+		File arc = new File(file);
+		File sidecar = new File(file + EXTENSION);
+		if(sidecar.exists())
+		{
+			FrameIndex index = load(sidecar, arc);
+			if(index != null)
+				return index;
+		}
+
+		FrameIndex index = build(file);
+		try {
+			index.save(sidecar, arc);
+		} catch(IOException e) {
+			System.err.println("Could not save frame index " + sidecar.getPath());
+		}
+		return index;
+	}
+
+	/**
+	 * Scans a trajectory for the offsets of its configurations without parsing the atoms.
+	 * @param file		The filename of the Tinker file.
+	 * @return			The index of the trajectory
+	 * @throws IOException	If the trajectory cannot be read
+	 */
+	public static FrameIndex build(String file) throws IOException
+	{
+		long[] offsets = new long[1024];
+		int numFrames = 0;
+		try (MappedArcReader reader = new MappedArcReader(file)) {
+			while(reader.nextFrame() != null)
+			{
+				if(numFrames + 1 >= offsets.length)
+				{
+					offsets = Arrays.copyOf(offsets, 2*offsets.length);
+				}
+				offsets[numFrames] = reader.getFrameOffset();
+				numFrames++;
+				offsets[numFrames] = reader.getPosition();
+			}
+		}
+		return new FrameIndex(Arrays.copyOf(offsets, numFrames + 1), numFrames);
+	}
+
+	/**
+	 * @return	The number of configurations in the trajectory
+	 */
+	public int size()
+	{
+		return numFrames;
+	}
+
+	/**
+	 * @param frame		The index of a configuration, starting at 0
+	 * @return			The byte offset of the start of the configuration
+	 */
+	public long getOffset(int frame)
+	{
+		if(frame < 0 || frame >= numFrames)
+			throw new IndexOutOfBoundsException("Frame " + frame + " of " + numFrames);
+		return offsets[frame];
+	}
+
+	/**
+	 * @param frame		The index of a configuration, starting at 0
+	 * @return			The byte offset just past the end of the configuration
+	 */
+	public long getEndOffset(int frame)
+	{
+		if(frame < 0 || frame >= numFrames)
+			throw new IndexOutOfBoundsException("Frame " + frame + " of " + numFrames);
+		return offsets[frame + 1];
+	}
+
+	/**
+	 * Finds the configurations from <code>first</code> up to but not including <code>last</code>, taking every
+	 * <code>stride</code>th one. Configurations past the end of the trajectory are left out.
+	 * @param first		The first configuration
+	 * @param last		The configuration to stop before
+	 * @param stride	The step between configurations
+	 * @return			The configuration indexes
+	 */
+	public int[] select(int first, int last, int stride)
+	{
+		if(first < 0 || stride < 1)
+			throw new IllegalArgumentException("Bad frame range " + first + ":" + last + ":" + stride);
+		last = Math.min(last, numFrames);
+		if(first >= last)
+			return new int[0];
+		int[] frames = new int[(last - first + stride - 1)/stride];
+		for(int i = 0; i < frames.length; i++)
+		{
+			frames[i] = first + i*stride;
+		}
+		return frames;
+	}
+
+	/**
+	 * Finds up to <code>count</code> configurations starting at <code>first</code> and taking every
+	 * <code>stride</code>th one.
+	 * @param first		The first configuration
+	 * @param count		The most configurations to take
+	 * @param stride	The step between configurations
+	 * @return			The configuration indexes
+	 * @see #select(int, int, int)
+	 */
+	public int[] selectCount(int first, int count, int stride)
+	{
+		long last = Math.min((long) first + (long) Math.max(0, count)*stride, Integer.MAX_VALUE);
+		return select(first, (int) last, stride);
+	}
+
+	/**
+	 * Moves a reader so the next configuration it reads is <code>frame</code>.
+	 * @param reader	A reader of the indexed trajectory
+	 * @param frame		The index of a configuration, starting at 0
+	 */
+	public void seek(MappedArcReader reader, int frame)
+	{
+		reader.seek(getOffset(frame));
+	}
+
+	/**
+	 * @return	The saved index, or null if the sidecar is unreadable, corrupt or truncated, or was made for a different
+	 * 			version of the trajectory
+	 */
+	private static FrameIndex load(File sidecar, File arc)
+	{
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sidecar)))) {
+			if(in.readInt() != MAGIC || in.readInt() != VERSION)
+				return null;
+			if(in.readLong() != arc.length() || in.readLong() != arc.lastModified())
+				return null;
+			int numFrames = in.readInt();
+			//The count must match the length of the sidecar before anything is allocated for it
+			if(numFrames < 0 || sidecar.length() != HEADER_SIZE + 8L*(numFrames + 1L))
+				return null;
+			long[] offsets = new long[numFrames + 1];
+			for(int i = 0; i <= numFrames; i++)
+			{
+				offsets[i] = in.readLong();
+				//Configurations follow each other within the trajectory
+				if(offsets[i] < (i == 0 ? 0 : offsets[i-1]) || offsets[i] > arc.length())
+					return null;
+			}
+			return new FrameIndex(offsets, numFrames);
+		} catch(IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private void save(File sidecar, File arc) throws IOException
+	{
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(sidecar)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(arc.length());
+			out.writeLong(arc.lastModified());
+			out.writeInt(numFrames);
+			for(int i = 0; i <= numFrames; i++)
+			{
+				out.writeLong(offsets[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,365 @@
+package tinker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import core.PackedSystem;
+
+/**
+ * Reads the configurations of a Tinker .arc file through memory-mapped windows of the file instead of a
+ * <code>Reader</code>, so the bytes are never decoded into characters or copied before they are parsed.
+ * A <code>MappedByteBuffer</code> can cover at most 2 GB, so large trajectories are mapped one window at a time.
+ * A new window is mapped starting at the current configuration whenever a configuration runs past the end of the
+ * current one, so every configuration is always contained in a single window.
+ * <p>
+ * Each configuration is exposed as a slice of the mapped window covering its bytes, which can be parsed in place
+ * with <code>parseFrame</code>. The layout of a configuration is the one <code>ARC_Parser</code> expects: a line with
+ * the number of atoms, a line with the box dimensions, then one line per atom.
+ * @see ARC_Parser
+ * @see ByteAtomParser
+ */
+public class MappedArcReader implements Closeable
+{
+	/**The default size of each mapped window*/
+	public static final long DEFAULT_WINDOW_SIZE = 1L << 30;
+
+	private FileChannel channel;
+	private long fileSize;
+	private long windowSize;
+
+	/**The currently mapped part of the file*/
+	private MappedByteBuffer window;
+	private long windowStart;
+
+	/**The file offset of the next configuration*/
+	private long position;
+	/**The file offset of the configuration last returned by <code>nextFrame</code>*/
+	private long frameOffset;
+
+	private ByteAtomParser atomParser;
+
+	/**
+	 * Opens a trajectory with the default window size.
+	 * @param file	The filename of the Tinker file.
+	 * @throws IOException	If the file cannot be opened
+	 */
+	public MappedArcReader(String file) throws IOException
+	{
+		this(file, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Opens a trajectory that will be mapped in windows of about <code>windowSize</code> bytes.
+	 * A window grows past this size if a single configuration does not fit.
+	 * @param file			The filename of the Tinker file.
+	 * @param windowSize	The number of bytes to map at a time
+	 * @throws IOException	If the file cannot be opened
+	 */
+	public MappedArcReader(String file, long windowSize) throws IOException
+	{
+		channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+		fileSize = channel.size();
+		this.windowSize = Math.min(Math.max(windowSize, 1), Integer.MAX_VALUE);
+		atomParser = new ByteAtomParser();
+	}
+
+	/**
+	 * Finds the bytes of the next configuration.
+	 * @return	A read-only buffer holding exactly the bytes of the next configuration, or null at the end of the file.
+	 * 			The buffer is only valid until the next call. A configuration cut short by the end of the file is
+	 * 			returned as is, and will be rejected by <code>parseFrame</code>.
+	 * @throws IOException	If the file could not be mapped, a header does not start with the number of atoms,
+	 * 						or a configuration is larger than 2 GB
+	 */
+	public ByteBuffer nextFrame() throws IOException
+	{
+		//Skip blank lines between configurations
+		while(true)
+		{
+			if(position >= fileSize)
+				return null;
+			ensureMapped(position, 1);
+			int start = (int) (position - windowStart);
+			int end = findLineEnd(start);
+			if(end < 0)
+			{
+				remap(position, lineLimit());
+				continue;
+			}
+			if(!isBlank(window, start, trimLineEnd(window, start, end)))
+				break;
+			position = windowStart + end + 1;
+		}
+
+		//The header gives the number of lines in the configuration
+		while(true)
+		{
+			int start = (int) (position - windowStart);
+			int end = findLineEnd(start);
+			int numAtoms;
+			try {
+				numAtoms = parseAtomCount(window, start, end < 0 ? window.limit() : end);
+			} catch(NumberFormatException e) {
+				throw new IOException("Expected the number of atoms at byte " + position, e);
+			}
+			int frameEnd = end;
+			for(int line = 0; line < numAtoms + 1 && frameEnd >= 0; line++)
+			{
+				frameEnd = findLineEnd(frameEnd + 1);
+			}
+
+			if(frameEnd >= 0 || windowStart + window.limit() >= fileSize)
+			{
+				//Either the whole configuration is in the window or the file ends inside it
+				int limit = frameEnd >= 0 ? Math.min(frameEnd + 1, window.limit()) : window.limit();
+				frameOffset = position;
+				position = windowStart + limit;
+				ByteBuffer frame = window.duplicate();
+				frame.limit(limit);
+				frame.position(start);
+				return frame.slice().asReadOnlyBuffer();
+			}
+			remap(position, lineLimit());
+		}
+	}
+
+	/**
+	 * Reads the next configuration into <code>ps</code>. The configuration is skipped entirely if it is badly formatted,
+	 * so the next call always starts at the following configuration.
+	 * @param ps		The <code>PackedSystem</code> to store the atoms and box in. It is cleared first.
+	 * @return			False at the end of the file
+	 * @throws IOException		If the file could not be mapped
+	 * @throws BadAtomFormat	If a line of the configuration does not match the Tinker format
+	 */
+	public boolean readFrame(PackedSystem ps) throws IOException, BadAtomFormat
+	{
+		ByteBuffer frame = nextFrame();
+		if(frame == null)
+			return false;
+		parseFrame(frame, ps);
+		return true;
+	}
+
+	/**
+	 * Parses the configuration held in <code>frame</code> between its position and limit into <code>ps</code>.
+	 * @param frame		The bytes of one configuration
+	 * @param ps		The <code>PackedSystem</code> to store the atoms and box in. It is cleared first.
+	 * @throws BadAtomFormat	If a line of the configuration does not match the Tinker format, or atoms are missing
+	 */
+	public void parseFrame(ByteBuffer frame, PackedSystem ps) throws BadAtomFormat
+	{
+		ps.clear();
+		int limit = frame.limit();
+		int start = frame.position();
+		int end = findLineEnd(frame, start, limit);
+		int numAtoms;
+		try {
+			numAtoms = parseAtomCount(frame, start, end);
+		} catch(NumberFormatException e) {
+			System.err.println("Number Format err - Bad header:\n" + ByteAtomParser.decode(frame, start, end));
+			throw new BadAtomFormat();
+		}
+
+		start = end + 1;
+		if(start >= limit)
+		{
+			System.err.println("Configuration ended before the box line");
+			throw new BadAtomFormat();
+		}
+		end = findLineEnd(frame, start, limit);
+		parseBox(frame, start, trimLineEnd(frame, start, end), ps);
+
+		for(int i = 0; i < numAtoms; i++)
+		{
+			start = end + 1;
+			if(start >= limit)
+			{
+				System.err.println("Configuration ended after " + i + " of " + numAtoms + " atoms");
+				throw new BadAtomFormat();
+			}
+			end = findLineEnd(frame, start, limit);
+			atomParser.parseAtom(frame, start, trimLineEnd(frame, start, end), ps);
+		}
+	}
+
+	/**
+	 * @return	The file offset of the configuration last returned by <code>nextFrame</code> or <code>readFrame</code>
+	 */
+	public long getFrameOffset()
+	{
+		return frameOffset;
+	}
+
+	/**
+	 * @return	The file offset the next configuration will be read from
+	 */
+	public long getPosition()
+	{
+		return position;
+	}
+
+	/**
+	 * Moves the reader so the next configuration is read from <code>offset</code>.
+	 * @param offset	The file offset of the start of a configuration
+	 */
+	public void seek(long offset)
+	{
+		position = offset;
+	}
+
+	public long getFileSize()
+	{
+		return fileSize;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		window = null;
+		channel.close();
+	}
+
+	/**
+	 * Stores the box dimensions from the first three numbers of a line, and the angles of a triclinic box from the next
+	 * three. As in <code>Tinker_Parser</code>, the angles are only read when the line has all three of them, and the box
+	 * is orthorhombic otherwise.
+	 */
+	static void parseBox(ByteBuffer buf, int start, int end, PackedSystem ps) throws BadAtomFormat
+	{
+		double[] box = {0, 0, 0, 90, 90, 90};
+		int[] fieldStarts = new int[6];
+		int[] fieldEnds = new int[6];
+		int numFields = 0;
+		int i = start;
+		while(numFields < 6)
+		{
+			while(i < end && buf.get(i) == ' ')
+			{
+				i++;
+			}
+			if(i >= end)
+				break;
+			fieldStarts[numFields] = i;
+			while(i < end && buf.get(i) != ' ')
+			{
+				i++;
+			}
+			fieldEnds[numFields] = i;
+			numFields++;
+		}
+		try {
+			if(numFields < 3)
+				throw new NumberFormatException("Missing box lengths");
+			for(int k = 0; k < ((numFields == 6) ? 6 : 3); k++)
+			{
+				box[k] = ByteAtomParser.parseDouble(buf, fieldStarts[k], fieldEnds[k]);
+			}
+		} catch(NumberFormatException e) {
+			System.err.println("Number Format err - Bad box line:\n" + ByteAtomParser.decode(buf, start, end));
+			throw new BadAtomFormat();
+		}
+		ps.setXBox(box[0]);
+		ps.setYBox(box[1]);
+		ps.setZBox(box[2]);
+		ps.setAngles(box[3], box[4], box[5]);
+	}
+
+	/**
+	 * Reads the number of atoms from the first field of a header line. Anything after it, such as a title, is ignored.
+	 */
+	static int parseAtomCount(ByteBuffer buf, int start, int end)
+	{
+		int i = start;
+		while(i < end && (buf.get(i) == ' ' || buf.get(i) == '\t'))
+		{
+			i++;
+		}
+		int fieldStart = i;
+		while(i < end && buf.get(i) > ' ')
+		{
+			i++;
+		}
+		return ByteAtomParser.parseInt(buf, fieldStart, i);
+	}
+
+	/**
+	 * @return	The index of the next newline in <code>buf</code> at or after <code>from</code>, or <code>limit</code> if there is none
+	 */
+	static int findLineEnd(ByteBuffer buf, int from, int limit)
+	{
+		for(int i = from; i < limit; i++)
+		{
+			if(buf.get(i) == '\n')
+				return i;
+		}
+		return limit;
+	}
+
+	/**
+	 * @return	The end of a line without a trailing carriage return
+	 */
+	static int trimLineEnd(ByteBuffer buf, int start, int end)
+	{
+		if(end > start && buf.get(end - 1) == '\r')
+			return end - 1;
+		return end;
+	}
+
+	private static boolean isBlank(ByteBuffer buf, int start, int end)
+	{
+		for(int i = start; i < end; i++)
+		{
+			if(buf.get(i) > ' ')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return	The index of the next newline in the window at or after <code>from</code>, or -1 if the window ends first.
+	 * 			The end of the file counts as a newline.
+	 */
+	private int findLineEnd(int from)
+	{
+		int limit = window.limit();
+		int end = findLineEnd(window, from, limit);
+		if(end < limit)
+			return end;
+		if(windowStart + limit >= fileSize && from < limit)
+			return limit;
+		return -1;
+	}
+
+	/**
+	 * @return	A window size that doubles the current one, used when a configuration does not fit
+	 */
+	private long lineLimit()
+	{
+		return Math.max(windowSize, 2L * window.limit());
+	}
+
+	/**
+	 * Maps a window holding at least <code>length</code> bytes from <code>offset</code>, if the current one does not.
+	 */
+	private void ensureMapped(long offset, long length) throws IOException
+	{
+		if(window == null || offset < windowStart || offset + length > windowStart + window.limit())
+		{
+			remap(offset, windowSize);
+		}
+	}
+
+	private void remap(long offset, long size) throws IOException
+	{
+		if(window != null && offset == windowStart && size > Integer.MAX_VALUE)
+			throw new IOException("Configuration at byte " + offset + " is larger than 2 GB");
+		size = Math.min(Math.min(size, Integer.MAX_VALUE), fileSize - offset);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+		windowStart = offset;
+	}
+}
@@ -0,0 +1,136 @@
+package tinker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import core.PackedSystem;
+
+/**
+ * Parses the configurations of one Tinker .arc file on several threads at once. The selected configurations are split
+ * into one contiguous byte range per thread, with every range starting and ending on a configuration boundary taken
+ * from the trajectory's <code>FrameIndex</code>. Each thread maps and parses its own range with its own
+ * <code>MappedArcReader</code>, so the threads share nothing but the file.
+ * <p>
+ * Configurations are handed to a <code>FrameHandler</code> on the thread that parsed them. Within one thread they arrive
+ * in file order, but configurations from different ranges arrive in no particular order.
+ * @see FrameIndex
+ * @see MappedArcReader
+ */
+public class ParallelArcReader
+{
+	/**
+	 * Receives configurations from the parsing threads. Both methods may be called from several threads at once.
+	 */
+	public interface FrameHandler
+	{
+		/**
+		 * @param frame		The index of the configuration in the trajectory, starting at 0
+		 * @param ps		The parsed configuration. Each configuration gets a new <code>PackedSystem</code> that may be kept.
+		 */
+		void accept(int frame, PackedSystem ps);
+
+		/**
+		 * @param frame		The index of a configuration that was badly formatted and was skipped
+		 */
+		void reject(int frame);
+	}
+
+	private String file;
+	private FrameIndex index;
+	private int numThreads;
+
+	/**
+	 * @param file			The filename of the Tinker file.
+	 * @param index			The index of the file
+	 * @param numThreads	The number of parsing threads
+	 */
+	public ParallelArcReader(String file, FrameIndex index, int numThreads)
+	{
+		this.file = file;
+		this.index = index;
+		this.numThreads = Math.max(1, numThreads);
+	}
+
+	/**
+	 * Parses the given configurations and hands each one to <code>handler</code>. Returns once every configuration has been
+	 * handled.
+	 * @param frames	The configurations to parse, in increasing order, as returned by <code>FrameIndex.select</code>
+	 * @param handler	Receives the parsed configurations
+	 * @throws IOException	If the file could not be read
+	 */
+	public void read(final int[] frames, final FrameHandler handler) throws IOException
+	{
+		int numRanges = Math.min(numThreads, frames.length);
+		if(numRanges == 0)
+			return;
+
+		ExecutorService parsers = Executors.newFixedThreadPool(numRanges);
+		List<Future<?>> ranges = new ArrayList<Future<?>>();
+		for(int r = 0; r < numRanges; r++)
+		{
+			//Split the configurations evenly, so every range starts and ends on a configuration boundary
+			final int first = (int) ((long) frames.length * r / numRanges);
+			final int last = (int) ((long) frames.length * (r + 1) / numRanges);
+			ranges.add(parsers.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					readRange(frames, first, last, handler);
+					return null;
+				}
+			}));
+		}
+		parsers.shutdown();
+
+		try {
+			for(Future<?> range : ranges)
+			{
+				range.get();
+			}
+		} catch(InterruptedException e) {
+			parsers.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while parsing " + file, e);
+		} catch(ExecutionException e) {
+			parsers.shutdownNow();
+			if(e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IOException("Error while parsing " + file, e.getCause());
+		}
+	}
+
+	/**
+	 * Parses <code>frames[first]</code> up to but not including <code>frames[last]</code> on the current thread.
+	 */
+	private void readRange(int[] frames, int first, int last, FrameHandler handler) throws IOException
+	{
+		//Map no more than this thread's share of the file at a time
+		long rangeBytes = index.getEndOffset(frames[last - 1]) - index.getOffset(frames[first]);
+		try (MappedArcReader reader = new MappedArcReader(file, Math.min(rangeBytes, MappedArcReader.DEFAULT_WINDOW_SIZE))) {
+			int capacity = 16;
+			for(int i = first; i < last; i++)
+			{
+				int frame = frames[i];
+				//Configurations next to each other in the file are read without seeking
+				if(reader.getPosition() != index.getOffset(frame))
+					index.seek(reader, frame);
+
+				PackedSystem ps = new PackedSystem(capacity);
+				try {
+					reader.readFrame(ps);
+					capacity = ps.size();
+					handler.accept(frame, ps);
+				} catch(BadAtomFormat e) {
+					handler.reject(frame);
+				}
+			}
+		}
+	}
+}
@@ -6,6 +6,7 @@ import java.io.FileReader;
 
 import core.Atom;
 import core.BulkSystem;
+import core.PackedSystem;
 
 /**
  * A class for defining the structure of Tinker formatted files. Tinker is a MD software created by
@@ -47,17 +48,57 @@ public abstract class Tinker_Parser
 		this.system = system;
 	}
 	
+	/**
+	 * Only keeps the name of the file, for parsers that open it themselves when they parse it. No reader is opened and
+	 * <code>system</code> is left null.
+	 * @param file		The filename of the Tinker file.
+	 */
+	protected Tinker_Parser(String file)
+	{
+		this.file = new File(file);
+		if(!this.file.isFile())
+			System.err.println("File not found");
+	}
+	
 	/**
 	 * Handles the specific file extension's format for parsing out coordinates and atoms.
 	 */
 	public abstract void parseFile();
 	
 	/**
-	 * Stores the simulation box dimensions in <code>bs</code>.
+	 * Stores the simulation box dimensions and angles in <code>bs</code>.
 	 * @param nextLine		The line containing the box dimensions.
 	 * @param bs			The <code>BulkSystem</code> to store the coordinates.
 	 */
 	public static void parseCoords(String nextLine, BulkSystem bs)
+	{
+		double[] box = parseBox(nextLine);
+		bs.setXBox(box[0]);
+		bs.setYBox(box[1]);
+		bs.setZBox(box[2]);
+		bs.setAngles(box[3], box[4], box[5]);
+	}
+	
+	/**
+	 * Stores the simulation box dimensions and angles in <code>ps</code>.
+	 * @param nextLine		The line containing the box dimensions.
+	 * @param ps			The <code>PackedSystem</code> to store the coordinates.
+	 */
+	public static void parseCoords(String nextLine, PackedSystem ps)
+	{
+		double[] box = parseBox(nextLine);
+		ps.setXBox(box[0]);
+		ps.setYBox(box[1]);
+		ps.setZBox(box[2]);
+		ps.setAngles(box[3], box[4], box[5]);
+	}
+	
+	/**
+	 * @param nextLine		The line containing the box dimensions.
+	 * @return				The x, y and z lengths of the box, followed by its angles, which are 90 degrees if the line
+	 * 						does not give them
+	 */
+	private static double[] parseBox(String nextLine)
 	{
 		String[] cutLine = nextLine.split(" ");
 		String[] parts = new String[20];
@@ -71,9 +112,14 @@ public abstract class Tinker_Parser
 			}
 		}
 		
-		bs.setXBox(Double.valueOf(parts[0]));
-		bs.setYBox(Double.valueOf(parts[1]));
-		bs.setZBox(Double.valueOf(parts[2]));
+		double[] box = {Double.valueOf(parts[0]), Double.valueOf(parts[1]), Double.valueOf(parts[2]), 90, 90, 90};
+		if(j >= 6)
+		{
+			box[3] = Double.valueOf(parts[3]);
+			box[4] = Double.valueOf(parts[4]);
+			box[5] = Double.valueOf(parts[5]);
+		}
+		return box;
 	}
 	
 	/**
@@ -84,17 +130,7 @@ public abstract class Tinker_Parser
 	 */
 	public static void parseAtom(String nextLine, BulkSystem bs) throws BadAtomFormat
 	{
-		String[] cutLine = nextLine.split(" ");
-		String[] parts = new String[50];
-		int j = 0;
-		for(int i = 0; i < cutLine.length & i < 50; i++)
-		{
-			if(!cutLine[i].isEmpty())
-			{
-				parts[j] = cutLine[i];
-				j++;
-			}
-		}
+		String[] parts = splitAtom(nextLine);
 		try{
 		String type = parts[1];
 		double xCord = Double.valueOf(parts[2]);
@@ -112,4 +148,48 @@ public abstract class Tinker_Parser
 			throw new BadAtomFormat();
 		}
 	}
+	
+	/**
+	 * Parses all the containing atom information from a line and appends it to <code>ps</code>.
+	 * @param nextLine			The line containing the atom information.
+	 * @param ps				The <code>PackedSystem</code> to store the coordinates.
+	 * @throws BadAtomFormat	If the line does not match the Tinker format, then this is thrown.
+	 */
+	public static void parseAtom(String nextLine, PackedSystem ps) throws BadAtomFormat
+	{
+		String[] parts = splitAtom(nextLine);
+		try{
+		double xCord = Double.valueOf(parts[2]);
+		double yCord = Double.valueOf(parts[3]);
+		double zCord = Double.valueOf(parts[4]);
+		ps.add(0, parts[1], xCord, yCord, zCord);
+		}catch (NullPointerException e)
+		{
+			System.err.println("Null Pointer err - Bad line:\n" + nextLine);
+			throw new BadAtomFormat();
+		}catch (NumberFormatException e)
+		{
+			System.err.println("Number Format err - Bad line:\n" + nextLine);
+			throw new BadAtomFormat();
+		}
+	}
+	
+	/**
+	 * Splits an atom line on spaces, dropping empty fields.
+	 */
+	private static String[] splitAtom(String nextLine)
+	{
+		String[] cutLine = nextLine.split(" ");
+		String[] parts = new String[50];
+		int j = 0;
+		for(int i = 0; i < cutLine.length & i < 50; i++)
+		{
+			if(!cutLine[i].isEmpty())
+			{
+				parts[j] = cutLine[i];
+				j++;
+			}
+		}
+		return parts;
+	}
 }
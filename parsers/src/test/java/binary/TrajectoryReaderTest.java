@@ -0,0 +1,99 @@
+package binary;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import core.PackedSystem;
+import tinker.BadAtomFormat;
+import tinker.MappedArcReader;
+
+public class TrajectoryReaderTest {
+
+	private static File writeArc() throws IOException
+	{
+		File file = File.createTempFile("test", ".arc");
+		file.deleteOnExit();
+		FileWriter fw = new FileWriter(file);
+		for(int config = 0; config < 6; config++)
+		{
+			fw.write("     3\n");
+			fw.write("    20.000000   21.000000   2" + config + ".000000   90.000000   90.000000   90.000000\n");
+			fw.write("     1  OW    " + config + ".123456   -2.188269    4.647389     1     2\n");
+			fw.write("     2  HW    -6.191289   " + config + ".250000    4.647389     1\n");
+			fw.write("     7  HW    -6.191289    1.000000   -" + config + ".333333     1\n");
+			if(config == 3)
+				fw.write("\n");
+		}
+		fw.close();
+		return file;
+	}
+
+	@Test
+	public void testConvertArc() throws IOException, BadAtomFormat {
+		File arc = writeArc();
+		for(boolean single : new boolean[] {false, true})
+		{
+			File bin = File.createTempFile("test", TrajectoryWriter.EXTENSION);
+			bin.deleteOnExit();
+			assertEquals(6, TrajectoryWriter.convertArc(arc.getPath(), bin.getPath(), single));
+
+			//Windows of one configuration force a remap for every configuration
+			MappedArcReader text = new MappedArcReader(arc.getPath());
+			TrajectoryReader reader = new TrajectoryReader(bin.getPath(), 1);
+			assertEquals(6, reader.size());
+			assertEquals(3, reader.getNumAtoms());
+			assertEquals(single, reader.isSinglePrecision());
+			double delta = single ? 1e-5 : 0.0;
+			PackedSystem expected = new PackedSystem();
+			PackedSystem actual = new PackedSystem();
+			int frames = 0;
+			while(text.readFrame(expected))
+			{
+				assertTrue(reader.readFrame(actual));
+				assertEquals(expected.getZBox(), actual.getZBox(), 0.0);
+				for(int i = 0; i < 3; i++)
+				{
+					assertEquals(expected.getIDs()[i], actual.getIDs()[i]);
+					assertEquals(expected.getType(i), actual.getType(i));
+					assertEquals(expected.getXCords()[i], actual.getXCords()[i], delta);
+					assertEquals(expected.getYCords()[i], actual.getYCords()[i], delta);
+					assertEquals(expected.getZCords()[i], actual.getZCords()[i], delta);
+				}
+				frames++;
+			}
+			assertFalse(reader.readFrame(actual));
+			assertEquals(6, frames);
+
+			reader.seek(4);
+			assertTrue(reader.readFrame(actual));
+			assertEquals(24.0, actual.getZBox(), 0.0);
+			assertEquals(4.123456, actual.getXCords()[0], delta);
+			text.close();
+			reader.close();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDifferentAtoms() throws IOException {
+		File bin = File.createTempFile("test", TrajectoryWriter.EXTENSION);
+		bin.deleteOnExit();
+		TrajectoryWriter writer = new TrajectoryWriter(bin.getPath(), false);
+		try {
+			PackedSystem ps = new PackedSystem();
+			ps.add(1, "OW", 0, 0, 0);
+			ps.add(2, "HW", 0, 0, 0);
+			writer.writeFrame(ps);
+			ps.clear();
+			ps.add(1, "HW", 0, 0, 0);
+			ps.add(2, "HW", 0, 0, 0);
+			writer.writeFrame(ps);
+		} finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package pdb;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import core.PackedSystem;
+
+public class PdbFrameSourceTest {
+
+	@Test
+	public void testModels() throws IOException {
+		File file = File.createTempFile("test", ".pdb");
+		file.deleteOnExit();
+		FileWriter fw = new FileWriter(file);
+		fw.write("CRYST1   30.000   31.000   32.000  90.00  90.00  90.00 P 1           1\n");
+		fw.write("HETATM    1  OW  WAT A   1       1.000   2.000   3.000\n");
+		fw.write("HETATM    2  HW  WAT A   1       1.500   2.500   3.500\n");
+		fw.write("ENDMDL\n");
+		//The molecule number is joined to the chain, and the next model has a bad coordinate
+		fw.write("HETATM    1  OW  WAT A1       4.000   5.000   6.000\n");
+		fw.write("HETATM    2  HW  WAT A1       4.500   5.x00   6.500\n");
+		fw.write("ENDMDL\n");
+		fw.write("HETATM12345  OW  WAT A1       7.000   8.000   9.000\n");
+		fw.write("END\n");
+		fw.close();
+
+		PdbFrameSource source = new PdbFrameSource(file.getPath());
+		PackedSystem first = source.next();
+		assertEquals(0, source.getFrameIndex());
+		assertEquals(2, first.size());
+		assertEquals("HW", first.getType(1));
+		assertEquals(3.5, first.getZCords()[1], 0.0);
+		assertEquals(31.0, first.getYBox(), 0.0);
+
+		PackedSystem last = source.next();
+		assertEquals(2, source.getFrameIndex());
+		assertEquals(1, source.getNumRejected());
+		assertEquals(12345, last.getIDs()[0]);
+		assertEquals(9.0, last.getZCords()[0], 0.0);
+		assertEquals(32.0, last.getZBox(), 0.0);
+		assertFalse(source.hasNext());
+		source.close();
+	}
+}
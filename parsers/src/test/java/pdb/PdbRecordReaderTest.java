@@ -0,0 +1,186 @@
+package pdb;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import core.Atom;
+import core.MolBlueprint;
+import core.Molecule;
+import core.MoleculeSource;
+import core.MoleculeSource.MoleculeHandler;
+
+public class PdbRecordReaderTest {
+
+	private static PdbRecordReader reader(String text)
+	{
+		return new PdbRecordReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testMergedFields() throws IOException {
+		String[] lines = {
+			//Packmol columns
+			"HETATM    1  OW  WAT A   1      -6.191   2.188 -14.647",
+			//Serial number joined to the record name, residue number joined to the chain
+			"HETATM12345  HW  WAT A1234       1.500   2.500   3.500",
+			//A serial number above 99999 pushes every field to the right
+			"HETATM123456  HW  WAT A1234       1.500   2.500   3.500",
+			//A short line that does not fill the columns
+			"HETATM    4  OW  WAT A1       4.000   5.000   6.000",
+			//A standard line with occupancy and element columns, and a Windows line break
+			"ATOM      5  CA  ALA A  12      11.104   6.134  -6.504  1.00  0.00           C\r",
+		};
+		StringBuilder sb = new StringBuilder();
+		for(String line : lines)
+		{
+			sb.append(line).append('\n');
+		}
+		sb.append("END");
+
+		PdbRecordReader reader = reader(sb.toString());
+		int[] serials = {1, 12345, 123456, 4, 5};
+		String[] types = {"OW", "HW", "HW", "OW", "CA"};
+		double[] zs = {-14.647, 3.5, 3.5, 6.0, -6.504};
+		boolean[] newResidues = {true, true, false, true, true};
+		for(int i = 0; i < lines.length; i++)
+		{
+			assertTrue(reader.nextLine());
+			assertTrue(reader.isAtom());
+			reader.parseAtom();
+			assertEquals(serials[i], reader.getSerial());
+			assertEquals(types[i], reader.getType());
+			assertEquals(zs[i], reader.getZ(), 0.0);
+			assertEquals(newResidues[i], reader.isNewResidue());
+		}
+		assertEquals(-6.191, parseFirst(lines[0]).getX(), 0.0);
+		assertEquals(2.5, parseFirst(lines[2]).getY(), 0.0);
+		//Types are decoded once
+		PdbRecordReader twice = parseFirst(lines[0] + "\n" + lines[0]);
+		String type = twice.getType();
+		twice.nextLine();
+		twice.parseAtom();
+		assertSame(type, twice.getType());
+		assertFalse(twice.isNewResidue());
+
+		assertTrue(reader.nextLine());
+		assertFalse(reader.isAtom());
+		assertTrue(reader.isRecord("END"));
+		assertFalse(reader.isRecord("ENDMDL"));
+		assertFalse(reader.nextLine());
+		assertEquals(sb.length(), reader.getBytesRead());
+	}
+
+	private static PdbRecordReader parseFirst(String line) throws IOException
+	{
+		PdbRecordReader reader = reader(line);
+		reader.nextLine();
+		reader.parseAtom();
+		return reader;
+	}
+
+	@Test
+	public void testBadLines() throws IOException {
+		String[] lines = {
+			"HETATM    1  OW  WAT A   1      -6.191   2.x88 -14.647",
+			"HETATM    1  OW  WAT A   1",
+			"HETATM",
+		};
+		for(String line : lines)
+		{
+			try {
+				parseFirst(line);
+				fail(line);
+			} catch(NumberFormatException e) {
+				//Expected
+			}
+		}
+	}
+
+	@Test
+	public void testSystemFile() throws IOException {
+		File blueprint = File.createTempFile("water", ".pdb");
+		blueprint.deleteOnExit();
+		FileWriter fw = new FileWriter(blueprint);
+		fw.write("HETATM    1  OW  WAT A   1       0.000   0.000   0.000\n");
+		fw.write("HETATM    2  HW  WAT A   1       0.957   0.000   0.000\n");
+		fw.write("HETATM    3  HW  WAT A   1      -0.240   0.927   0.000\n");
+		fw.write("CONECT    2    1\n");
+		fw.write("CONECT    3    1\n");
+		fw.write("CONECT    2    1    3\n");
+		fw.write("END\n");
+		fw.close();
+
+		//More than the read buffer holds, with residue numbers joined to the chain from molecule 1000
+		File system = File.createTempFile("system", ".pdb");
+		system.deleteOnExit();
+		fw = new FileWriter(system);
+		String[] types = {"OW", "HW", "HW"};
+		for(int i = 0; i < 3000; i++)
+		{
+			fw.write(String.format("HETATM%5d  %-3s WAT A%4d    %8.3f%8.3f%8.3f\n", i + 1, types[i % 3], i/3 + 1,
+					0.001*i, 1.0, -2.0));
+		}
+		fw.write("END\n");
+		fw.close();
+
+		PDB_Parser parser = new PDB_Parser();
+		parser.parseBlueprintFile(blueprint.getPath());
+		parser.parseSystemFile(system.getPath());
+		ArrayList<Molecule> mols = parser.getMolecules();
+		assertEquals(1000, mols.size());
+		Molecule last = mols.get(999);
+		assertEquals(3, last.getAtoms().size());
+		assertEquals(2, last.getBonds().size());
+		assertEquals(3000, last.getAtoms().get(2).getID());
+		assertEquals(2.999, last.getAtoms().get(2).getXCord(), 0.0);
+	}
+
+	@Test
+	public void testBadLinesReportedOnce() throws IOException {
+		File system = File.createTempFile("system", ".pdb");
+		system.deleteOnExit();
+		FileWriter fw = new FileWriter(system);
+		fw.write("HETATM    1  OW  WAT A   1       0.000   0.000   0.000\n");
+		fw.write("HETATM    2  HW  WAT A   1       0.9x7   0.000   0.000\n");
+		fw.write("HETATM    3  HW  WAT A   1      -0.240   0.927   0.000\n");
+		fw.write("END\n");
+		fw.close();
+
+		MoleculeSource source = new PDB_Parser().getSystemSource(system.getPath());
+		final int[] numAtoms = new int[1];
+		MoleculeHandler counter = new MoleculeHandler() {
+			@Override
+			public void molecule(List<Atom> atoms, MolBlueprint blueprint)
+			{
+				numAtoms[0] += atoms.size();
+			}
+		};
+		PrintStream err = System.err;
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		System.setErr(new PrintStream(captured, true));
+		try {
+			//Writing a file reads the system several times
+			for(int pass = 0; pass < 3; pass++)
+			{
+				source.readMolecules(counter);
+			}
+		} finally {
+			System.setErr(err);
+		}
+		assertEquals(6, numAtoms[0]);
+		String report = captured.toString();
+		assertEquals(report.indexOf("Bad line"), report.lastIndexOf("Bad line"));
+		assertTrue(report.contains("0.9x7"));
+	}
+}
@@ -0,0 +1,68 @@
+package tinker;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import core.PackedSystem;
+
+public class ByteAtomParserTest {
+
+	private static void parse(ByteAtomParser parser, String line, PackedSystem ps) throws BadAtomFormat
+	{
+		byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+		parser.parseAtom(bytes, 0, bytes.length, ps);
+	}
+
+	@Test
+	public void testMatchesStringParser() throws BadAtomFormat {
+		String[] lines = {
+			"     1  OW    -6.191289   -2.188269    4.647389   164     2     3",
+			"     2  HW     0.000000    1e-3    -0.5   1",
+			"     3  HW     +12.5    .25    7.   1",
+			"     4  OW     1.23456789012345678    -0.0    1E5",
+			"     5  OW     NaN    Infinity    0x1p3"
+		};
+		ByteAtomParser parser = new ByteAtomParser();
+		PackedSystem fast = new PackedSystem();
+		PackedSystem slow = new PackedSystem();
+		for(String line : lines)
+		{
+			parse(parser, line, fast);
+			Tinker_Parser.parseAtom(line, slow);
+		}
+		assertEquals(slow.size(), fast.size());
+		for(int i = 0; i < slow.size(); i++)
+		{
+			assertEquals(slow.getType(i), fast.getType(i));
+			assertEquals(Double.doubleToRawLongBits(slow.getXCords()[i]), Double.doubleToRawLongBits(fast.getXCords()[i]));
+			assertEquals(Double.doubleToRawLongBits(slow.getYCords()[i]), Double.doubleToRawLongBits(fast.getYCords()[i]));
+			assertEquals(Double.doubleToRawLongBits(slow.getZCords()[i]), Double.doubleToRawLongBits(fast.getZCords()[i]));
+		}
+	}
+
+	@Test
+	public void testBadLines() {
+		String[] lines = {
+			"",
+			"     1  OW    -6.191289   -2.188269",
+			"     1  OW    -6.191289   -2.1882x9    4.647389",
+			"     1  OW    -6.191289   -   4.647389",
+			"     1  OW    1e    2.0    3.0",
+			//Tinker_Parser only reads the first 50 pieces of a line
+			"     1  OW" + " ".repeat(50) + "1.0 2.0 3.0"
+		};
+		ByteAtomParser parser = new ByteAtomParser();
+		for(String line : lines)
+		{
+			try {
+				parse(parser, line, new PackedSystem());
+				fail("Accepted bad line: " + line);
+			} catch(BadAtomFormat e) {
+				//Expected
+			}
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package tinker;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Test;
+
+import core.PackedSystem;
+
+public class FrameIndexTest {
+
+	@Test
+	public void testSeekAndSidecar() throws IOException, BadAtomFormat {
+		File file = File.createTempFile("test", ".arc");
+		File sidecar = new File(file.getPath() + FrameIndex.EXTENSION);
+		file.deleteOnExit();
+		sidecar.deleteOnExit();
+		FileWriter fw = new FileWriter(file);
+		for(int config = 0; config < 10; config++)
+		{
+			//Configurations of different sizes so offsets are not evenly spaced
+			int numAtoms = 1 + config % 3;
+			fw.write("  " + numAtoms + "\n");
+			fw.write("    20.000000   20.000000   20.000000   90.000000   90.000000   90.000000\n");
+			for(int i = 1; i <= numAtoms; i++)
+			{
+				fw.write("     " + i + "  OW    " + config + ".000000   -2.188269    4.647389     1\n");
+			}
+		}
+		fw.close();
+
+		FrameIndex index = FrameIndex.open(file.getPath());
+		assertEquals(10, index.size());
+		assertTrue(sidecar.exists());
+		assertEquals(file.length(), index.getEndOffset(9));
+
+		FrameIndex cached = FrameIndex.open(file.getPath());
+		for(int config = 0; config < 10; config++)
+		{
+			assertEquals(index.getOffset(config), cached.getOffset(config));
+		}
+
+		assertArrayEquals(new int[] {2, 5, 8}, index.select(2, 100, 3));
+		assertArrayEquals(new int[] {9}, index.select(9, 10, 1));
+		assertEquals(0, index.select(10, 20, 1).length);
+
+		//A damaged sidecar that still matches the trajectory is rebuilt
+		for(int numFrames : new int[] {-5, Integer.MAX_VALUE, 11})
+		{
+			RandomAccessFile raf = new RandomAccessFile(sidecar, "rw");
+			raf.seek(24);
+			raf.writeInt(numFrames);
+			raf.close();
+			assertEquals(10, FrameIndex.open(file.getPath()).size());
+		}
+		RandomAccessFile raf = new RandomAccessFile(sidecar, "rw");
+		raf.setLength(raf.length() - 8);
+		raf.close();
+		assertEquals(10, FrameIndex.open(file.getPath()).size());
+		raf = new RandomAccessFile(sidecar, "rw");
+		raf.seek(28 + 8*3);
+		raf.writeLong(-1);
+		raf.close();
+		FrameIndex rebuilt = FrameIndex.open(file.getPath());
+		assertEquals(index.getOffset(3), rebuilt.getOffset(3));
+
+		MappedArcReader reader = new MappedArcReader(file.getPath());
+		PackedSystem ps = new PackedSystem();
+		index.seek(reader, 7);
+		assertTrue(reader.readFrame(ps));
+		assertEquals(2, ps.size());
+		assertEquals(7.0, ps.getXCords()[0], 0.0);
+		index.seek(reader, 3);
+		assertTrue(reader.readFrame(ps));
+		assertEquals(3.0, ps.getXCords()[0], 0.0);
+		reader.close();
+	}
+}
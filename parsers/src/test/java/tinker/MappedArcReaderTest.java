@@ -0,0 +1,107 @@
+package tinker;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import core.PackedSystem;
+
+public class MappedArcReaderTest {
+
+	private static File writeArc(String text) throws IOException
+	{
+		File file = File.createTempFile("test", ".arc");
+		file.deleteOnExit();
+		FileWriter fw = new FileWriter(file);
+		fw.write(text);
+		fw.close();
+		return file;
+	}
+
+	private static String frame(int config, String newline)
+	{
+		return "     2" + newline
+				+ "    20.000000   21.000000   22.000000   90.000000   90.000000   90.000000" + newline
+				+ "     1  OW    " + config + ".500000   -2.188269    4.647389     1     2" + newline
+				+ "     2  HW    -6.191289   " + config + ".250000    4.647389     1" + newline;
+	}
+
+	@Test
+	public void testSmallWindows() throws IOException, BadAtomFormat {
+		StringBuilder text = new StringBuilder();
+		for(int config = 0; config < 20; config++)
+		{
+			text.append(frame(config, config % 2 == 0 ? "\n" : "\r\n"));
+		}
+		File file = writeArc(text.toString());
+
+		//Windows much smaller than a configuration force it to be remapped as it grows
+		MappedArcReader reader = new MappedArcReader(file.getPath(), 16);
+		PackedSystem ps = new PackedSystem();
+		int config = 0;
+		while(reader.readFrame(ps))
+		{
+			assertEquals(2, ps.size());
+			assertEquals(21.0, ps.getYBox(), 0.0);
+			assertEquals(config + 0.5, ps.getXCords()[0], 0.0);
+			assertEquals(config + 0.25, ps.getYCords()[1], 0.0);
+			assertEquals("HW", ps.getType(1));
+			config++;
+		}
+		reader.close();
+		assertEquals(20, config);
+	}
+
+	@Test
+	public void testBoxAngles() throws IOException, BadAtomFormat {
+		File file = writeArc("     1\n    20.0   21.0   22.0   80.0   95.0  100.0\n     1  OW    1.0   2.0   3.0     1\n"
+				+ "     1\n    20.0   21.0   22.0\n     1  OW    1.0   2.0   3.0     1\n"
+				+ "     1\n    20.0   21.0   22.0   80.0   95.0\n     1  OW    1.0   2.0   3.0     1\n");
+		MappedArcReader reader = new MappedArcReader(file.getPath());
+		PackedSystem ps = new PackedSystem();
+		assertTrue(reader.readFrame(ps));
+		assertTrue(ps.isTriclinic());
+		assertEquals(95.0, ps.getBeta(), 0.0);
+		assertEquals(100.0, ps.getGamma(), 0.0);
+		assertTrue(reader.readFrame(ps));
+		assertFalse(ps.isTriclinic());
+		assertEquals(22.0, ps.getZBox(), 0.0);
+		//Angles are only read from a line that has all three, as Tinker_Parser does
+		assertTrue(reader.readFrame(ps));
+		assertFalse(ps.isTriclinic());
+		assertEquals(90.0, ps.getAlpha(), 0.0);
+		PackedSystem parsed = new PackedSystem();
+		Tinker_Parser.parseCoords("    20.0   21.0   22.0   80.0   95.0", parsed);
+		assertFalse(parsed.isTriclinic());
+		reader.close();
+	}
+
+	@Test
+	public void testBadAndTruncatedConfigurations() throws IOException {
+		String bad = frame(1, "\n").replace("-2.188269", "-2.1x8269");
+		String truncated = frame(3, "\n");
+		truncated = truncated.substring(0, truncated.lastIndexOf("     2  HW"));
+		File file = writeArc(frame(0, "\n") + bad + frame(2, "\n") + truncated);
+
+		MappedArcReader reader = new MappedArcReader(file.getPath());
+		PackedSystem ps = new PackedSystem();
+		int good = 0, rejected = 0;
+		while(true)
+		{
+			try {
+				if(!reader.readFrame(ps))
+					break;
+				good++;
+			} catch(BadAtomFormat e) {
+				rejected++;
+			}
+		}
+		reader.close();
+		assertEquals(2, good);
+		assertEquals(2, rejected);
+	}
+}
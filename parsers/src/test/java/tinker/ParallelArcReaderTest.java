@@ -0,0 +1,62 @@
+package tinker;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import core.PackedSystem;
+
+public class ParallelArcReaderTest {
+
+	@Test
+	public void testRangesCoverSelection() throws IOException {
+		File file = File.createTempFile("test", ".arc");
+		file.deleteOnExit();
+		new File(file.getPath() + FrameIndex.EXTENSION).deleteOnExit();
+		FileWriter fw = new FileWriter(file);
+		for(int config = 0; config < 25; config++)
+		{
+			int numAtoms = 1 + config % 4;
+			fw.write("  " + numAtoms + "\n");
+			fw.write("    20.000000   20.000000   20.000000   90.000000   90.000000   90.000000\n");
+			for(int i = 1; i <= numAtoms; i++)
+			{
+				//Configuration 11 has a bad coordinate
+				String x = (config == 11) ? "1.0x0000" : config + ".000000";
+				fw.write("     " + i + "  OW    " + x + "   -2.188269    4.647389     1\n");
+			}
+		}
+		fw.close();
+
+		FrameIndex index = FrameIndex.open(file.getPath());
+		int[] frames = index.select(1, 25, 2);
+		final ConcurrentHashMap<Integer, PackedSystem> accepted = new ConcurrentHashMap<Integer, PackedSystem>();
+		final ConcurrentHashMap<Integer, Boolean> rejected = new ConcurrentHashMap<Integer, Boolean>();
+		new ParallelArcReader(file.getPath(), index, 3).read(frames, new ParallelArcReader.FrameHandler() {
+			@Override
+			public void accept(int frame, PackedSystem ps) {
+				assertNull(accepted.put(frame, ps));
+			}
+			@Override
+			public void reject(int frame) {
+				rejected.put(frame, true);
+			}
+		});
+
+		assertEquals(frames.length - 1, accepted.size());
+		assertTrue(rejected.containsKey(11));
+		for(int frame : frames)
+		{
+			if(frame == 11)
+				continue;
+			PackedSystem ps = accepted.get(frame);
+			assertEquals(1 + frame % 4, ps.size());
+			assertEquals(frame, ps.getXCords()[0], 0.0);
+		}
+	}
+}
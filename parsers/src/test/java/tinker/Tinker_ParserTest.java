@@ -1,6 +1,9 @@
 package tinker;
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.IOException;
+
 import org.junit.Test;
 
 import core.Atom;
@@ -47,5 +50,16 @@ public class Tinker_ParserTest {
 		BulkSystem bs = new BulkSystem();
 		Tinker_Parser.parseAtom(numberLine, bs);
 	}
+	
+	@Test
+	public void testArcParserOpensNoReader() throws IOException
+	{
+		File arc = File.createTempFile("test", ".arc");
+		arc.deleteOnExit();
+		ARC_Parser parser = new ARC_Parser(arc.getPath(), new BulkSystem(), 1, 12.5, 0.25);
+		//The trajectory is only opened while it is parsed
+		assertNull(parser.br);
+		assertNull(parser.system);
+	}
 
 }
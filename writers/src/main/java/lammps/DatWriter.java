@@ -0,0 +1,434 @@
+package lammps;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+import core.AngleIndex;
+import core.Atom;
+import core.BondIndex;
+//import core.BulkSystem;
+import core.MolBlueprint;
+import core.Molecule;
+import core.MoleculeSource;
+import core.MoleculeSource.MoleculeHandler;
+
+public class DatWriter 
+{
+	/**An offset to ensure that molecules do not intersect with each other over periodic boundaries*/
+	private static final int SIMULATION_MARGIN = 2;
+	
+	/*
+	/**
+	 * <code>writeFile</code> called on a <code>BulkSystem</code> will generate just atomic coordinates
+	 * for a .dat file for lammps input.
+	 * @param bs	The system containing all the atoms in a system
+	 *
+	public writeFile(BulkSystem bs)
+	{
+		System.out.println("Please provide a name for the Lammps input file.");
+	}*/
+	
+	/**
+	 * <code>writeFile</code> called on an <code>ArrayList</code> of type <code>Molecule</code> will generate atomic
+	 * coordinates and any additional properties for a lammps .dat input file
+	 * such as bonds and angles between atoms.
+	 * @param mols	The array of molecules in the system
+	 */
+	public static void writeFile(ArrayList<Molecule> mols)
+	{
+		writeFile(MoleculeSource.of(mols));
+	}
+	
+	/**
+	 * <code>writeFile</code> called on a <code>MoleculeSource</code> will generate the same lammps .dat input file
+	 * while only holding one molecule in memory at a time.
+	 * @param source	The molecules in the system
+	 * @see #writeFile(MoleculeSource, BufferedWriter, Map, Map)
+	 */
+	public static void writeFile(MoleculeSource source)
+	{
+		//Initialize the file.
+		@SuppressWarnings("resource")
+		Scanner sc = new Scanner(System.in);
+		System.out.println("Please provide a name for the Lammps input file.");
+		String name = sc.nextLine();
+		try{
+		//The mass and charge of each atom type are asked for while writing the header
+		writeFile(source, name, new HashMap<String, Double>(), new HashMap<String, Double>());
+		
+		System.out.println("Finished!");
+		} catch(IOException io)
+		{
+			System.err.println("Error writing .dat file.");
+		}
+	}
+	
+	/**
+	 * Writes a lammps .dat file for an <code>ArrayList</code> of type <code>Molecule</code> to <code>br</code>, taking the
+	 * mass and charge of each atom type from the given maps. The user is only asked for the mass and charge of atom types
+	 * missing from the maps, which are then added to them.
+	 * @param mols		The array of molecules in the system
+	 * @param br		Receives the file. It is not closed.
+	 * @param masses	The mass of each atom type
+	 * @param charges	The charge of each atom type
+	 */
+	public static void writeFile(ArrayList<Molecule> mols, BufferedWriter br, Map<String, Double> masses,
+			Map<String, Double> charges)
+	{
+		try {
+			writeFile(MoleculeSource.of(mols), br, masses, charges);
+		} catch (IOException io) {
+			System.err.println("Error writing .dat file.");
+		}
+	}
+	
+	/**
+	 * Writes a lammps .dat file for the molecules of <code>source</code> to <code>br</code>, taking the mass and charge of
+	 * each atom type from the given maps. The source is read twice: once to count the atoms and how many molecules
+	 * use each blueprint, from which the number of bonds and angles follows, then once for the Atoms, Bonds and Angles
+	 * sections together. The Bonds and Angles sections are collected in temporary files and appended after the Atoms,
+	 * so only one molecule is held in memory however large the system is.
+	 * @param source	The molecules in the system
+	 * @param br		Receives the file. It is not closed.
+	 * @param masses	The mass of each atom type. The user is asked for any that are missing.
+	 * @param charges	The charge of each atom type. The user is asked for any that are missing.
+	 * @throws IOException	If the molecules could not be read or the file could not be written
+	 */
+	public static void writeFile(MoleculeSource source, BufferedWriter br, Map<String, Double> masses,
+			Map<String, Double> charges) throws IOException
+	{
+		writeFile(source, new TextBuffer(br), masses, charges);
+		br.flush();
+	}
+	
+	/**
+	 * Writes a lammps .dat file for the molecules of <code>source</code> to a channel, formatting the text into a large
+	 * buffer that is written whenever it fills.
+	 * @param channel	Receives the file. It is not closed.
+	 * @see #writeFile(MoleculeSource, BufferedWriter, Map, Map)
+	 */
+	public static void writeFile(MoleculeSource source, WritableByteChannel channel, Map<String, Double> masses,
+			Map<String, Double> charges) throws IOException
+	{
+		writeFile(source, new TextBuffer(channel, TextBuffer.DEFAULT_SIZE), masses, charges);
+	}
+	
+	/**
+	 * Writes a lammps .dat file for the molecules of <code>source</code>, replacing the file if it exists.
+	 * @param file		The filename of the .dat file
+	 * @see #writeFile(MoleculeSource, BufferedWriter, Map, Map)
+	 */
+	public static void writeFile(MoleculeSource source, String file, Map<String, Double> masses,
+			Map<String, Double> charges) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			writeFile(source, channel, masses, charges);
+		}
+	}
+	
+	/**
+	 * Writes a lammps .dat file for the molecules of <code>source</code>, replacing the file if it exists. With more
+	 * than one thread the sections are rendered in parallel.
+	 * @param file			The filename of the .dat file
+	 * @param numThreads	The number of threads rendering the sections
+	 * @see #writeFile(MoleculeSource, FileChannel, Map, Map, int)
+	 */
+	public static void writeFile(MoleculeSource source, String file, Map<String, Double> masses,
+			Map<String, Double> charges, int numThreads) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			writeFile(source, channel, masses, charges, numThreads);
+		}
+	}
+	
+	/**
+	 * Writes a lammps .dat file for the molecules of <code>source</code> to a file channel, rendering the Atoms, Bonds
+	 * and Angles sections on several threads. The source is read twice: once to count the atoms and write the header,
+	 * then once more in runs of molecules. The number of lines of each section before each run is summed up as the
+	 * molecules are read, so every run can render its lines of all three sections on its own. Each buffer is written at
+	 * its place as soon as the length of the buffers before it is known. The file is identical to the one written on a
+	 * single thread.
+	 * @param channel		Receives the file, starting at its current position. It is left at the end of the file
+	 * 						but not closed.
+	 * @param numThreads	The number of threads rendering the sections
+	 * @see #writeFile(MoleculeSource, BufferedWriter, Map, Map)
+	 */
+	public static void writeFile(MoleculeSource source, FileChannel channel, Map<String, Double> masses,
+			Map<String, Double> charges, int numThreads) throws IOException
+	{
+		writeFile(source, channel, masses, charges, numThreads, ParallelSectionWriter.LINES_PER_BATCH);
+	}
+	
+	/**
+	 * @param linesPerBatch	The number of lines rendered by each task
+	 */
+	static void writeFile(MoleculeSource source, FileChannel channel, Map<String, Double> masses,
+			Map<String, Double> charges, int numThreads, int linesPerBatch) throws IOException
+	{
+		if(numThreads <= 1)
+		{
+			writeFile(source, channel, masses, charges);
+			return;
+		}
+		
+		TextBuffer header = new TextBuffer();
+		HashMap<String, Integer> atomTypeToNumType = new HashMap<String, Integer>();
+		writeHeader(source, header, atomTypeToNumType, masses, charges);
+		long position = channel.position();
+		header.writeTo(channel, position);
+		ParallelSectionWriter writer = new ParallelSectionWriter(channel, numThreads, linesPerBatch);
+		position = writer.write(source, sections(atomTypeToNumType, charges), position + header.size());
+		channel.position(position);
+	}
+	
+	private static void writeFile(MoleculeSource source, TextBuffer out, Map<String, Double> masses,
+			Map<String, Double> charges) throws IOException
+	{
+		try {
+			HashMap<String, Integer> atomTypeToNumType = new HashMap<String, Integer>();
+			writeHeader(source, out, atomTypeToNumType, masses, charges);
+			
+			//Write out Atoms, Bonds and Angles
+			Section.writeAll(out, source, sections(atomTypeToNumType, charges));
+			
+			out.flush();
+		} catch (UncheckedIOException e) {
+			//The buffer could not be written while it was filled
+			throw e.getCause();
+		}
+	}
+	
+	/**
+	 * Reads through the molecules to see how many atoms, bonds, and angles there are, and writes the header.
+	 */
+	private static void writeHeader(MoleculeSource source, TextBuffer out, HashMap<String, Integer> atomTypeToNumType,
+			Map<String, Double> masses, Map<String, Double> charges) throws IOException
+	{
+		SystemCounts counts = new SystemCounts();
+		source.readMolecules(counts);
+		writeCBA(out, counts, atomTypeToNumType, masses, charges);
+		if(counts.numMissing > 0)
+		{
+			System.err.println(counts.numMissing + " molecules have no blueprint. Their bonds and angles are left out.");
+		}
+	}
+	
+	/**
+	 * Counts the atoms of a system and the molecules using each blueprint, and finds the atom types and the extent of
+	 * the system.
+	 */
+	private static class SystemCounts implements MoleculeHandler
+	{
+		long numAtoms;
+		double maxX, maxY, maxZ;
+		/**The atom types. Their order in the set, not the order they are seen in, decides the number of each type.*/
+		HashSet<String> atomTypes = new HashSet<String>();
+		/**The number of molecules using each blueprint*/
+		HashMap<MolBlueprint, long[]> multiplicities = new HashMap<MolBlueprint, long[]>();
+		/**The number of molecules with no blueprint*/
+		long numMissing;
+		
+		@Override
+		public void molecule(List<Atom> atoms, MolBlueprint blueprint)
+		{
+			for(Atom atom : atoms)
+			{
+				numAtoms++;
+				atomTypes.add(atom.getType());
+				if(atom.getXCord() > maxX)
+				{
+					maxX = atom.getXCord();
+				}
+				if(atom.getYCord() > maxY)
+				{
+					maxY = atom.getYCord();
+				}
+				if(atom.getZCord() > maxZ)
+				{
+					maxZ = atom.getZCord();
+				}
+			}
+			if(blueprint == null)
+			{
+				numMissing++;
+				return;
+			}
+			long[] count = multiplicities.get(blueprint);
+			if(count == null)
+			{
+				count = new long[1];
+				multiplicities.put(blueprint, count);
+			}
+			count[0]++;
+		}
+	}
+	
+	/**
+	 * Writes the coordinates, bonds, and angles (CBA) to the file linked to the <code>BufferedWriter</code>.
+	 */
+	private static void writeCBA(TextBuffer out, SystemCounts counts, HashMap<String, Integer> atomTypeToNumType,
+			Map<String, Double> atomTypeToMass, Map<String, Double> atomTypeToCharge)
+	{
+		long numBonds = 0, numAngles = 0;
+		HashSet<Integer> bondTypes = new HashSet<Integer>();
+		HashSet<Integer> angleTypes = new HashSet<Integer>();
+		
+		for(Map.Entry<MolBlueprint, long[]> entry : counts.multiplicities.entrySet())
+		{
+			MolBlueprint blueprint = entry.getKey();
+			numBonds += entry.getValue()[0]*blueprint.getBondIndexes().size();
+			numAngles += entry.getValue()[0]*blueprint.getAngleIndexes().size();
+			for(BondIndex bondIndex : blueprint.getBondIndexes())
+			{
+				bondTypes.add(bondIndex.getBondID());
+			}
+			for(AngleIndex angleIndex : blueprint.getAngleIndexes())
+			{
+				angleTypes.add(angleIndex.getAngleID());
+			}
+		}
+		double maxX = counts.maxX, maxY = counts.maxY, maxZ = counts.maxZ;
+		HashSet<String> atomTypes = counts.atomTypes;
+		
+		//Write info to header of file
+		out.newLine(); out.newLine();
+		out.append("\t\t" + counts.numAtoms + " atoms"); out.newLine();
+		out.append("\t\t" + numBonds + " bonds"); out.newLine();
+		out.append("\t\t" + numAngles + " angles"); out.newLine();
+		out.newLine();
+		out.append("\t\t\t" + atomTypes.size() + " atom types"); out.newLine();
+		out.append("\t\t\t" + bondTypes.size() + " bond types"); out.newLine();
+		out.append("\t\t\t" + angleTypes.size() + " angle types"); out.newLine(); out.newLine();
+		
+		//Write max and min simulation coordinates
+		out.append(" 0.0000000E+00   " + String.format("%-15.12f", maxX + SIMULATION_MARGIN) + "      xlo xhi"); out.newLine();
+		out.append(" 0.0000000E+00   " + String.format("%-15.12f", maxY + SIMULATION_MARGIN) + "      ylo yhi"); out.newLine();
+		out.append(" 0.0000000E+00   " + String.format("%-15.12f", maxZ + SIMULATION_MARGIN) + "      zlo zhi"); out.newLine(); out.newLine(); out.newLine();
+		
+		//Write masses and charge of each atom type
+		out.append(" Masses"); out.newLine(); out.newLine();
+		
+		int atomNum = 1;
+		@SuppressWarnings("resource")
+		Scanner sc = new Scanner(System.in);
+		sc.reset();
+		for(String atomType : atomTypes)
+		{
+			//Link Atom type to a number
+			atomTypeToNumType.put(atomType, atomNum);
+			atomNum++;
+			
+			//Link Atom type to a mass
+			if(!atomTypeToMass.containsKey(atomType))
+			{
+				System.out.println("Provide the mass of the atom type " + atomType);
+				Double mass = Double.valueOf(sc.nextLine());
+				atomTypeToMass.put(atomType, mass);
+			}
+			
+			//Link Atom type to a charge
+			if(!atomTypeToCharge.containsKey(atomType))
+			{
+				System.out.println("Provide the charge of the atom type " + atomType);
+				Double charge = Double.valueOf(sc.nextLine());
+				atomTypeToCharge.put(atomType, charge);
+			}
+			
+			out.append(" " + atomTypeToNumType.get(atomType) + "   " + atomTypeToMass.get(atomType)); out.newLine();
+		}
+		
+		out.newLine(); out.newLine();
+	}
+	
+	/**
+	 * @return	The Atoms, Bonds and Angles sections, in the order they are written
+	 */
+	private static Section[] sections(final HashMap<String, Integer> atomTypeToNumType,
+			final Map<String, Double> atomTypeToCharge)
+	{
+		Section atomSection = new Section(" Atoms", false) {
+			@Override
+			long count(List<Atom> atoms, MolBlueprint blueprint)
+			{
+				return atoms.size();
+			}
+			
+			@Override
+			void render(TextBuffer out, List<Atom> atoms, MolBlueprint blueprint, long atomNum, long molNum)
+			{
+				for(Atom atom : atoms)
+				{
+					//The same text as "%10d %6d %6d %12f %12f %12f %12f"
+					out.append(atomNum, 10).append(' ').append(molNum, 6).append(' ')
+							.append(atomTypeToNumType.get(atom.getType()), 6).append(' ')
+							.appendFixed(atomTypeToCharge.get(atom.getType()), 12).append(' ')
+							.appendFixed(atom.getXCord(), 12).append(' ').appendFixed(atom.getYCord(), 12).append(' ')
+							.appendFixed(atom.getZCord(), 12).newLine();
+					atomNum++;
+				}
+			}
+		};
+		
+		Section bondSection = new Section(" Bonds", true) {
+			@Override
+			long count(List<Atom> atoms, MolBlueprint blueprint)
+			{
+				return (blueprint == null) ? 0 : blueprint.getBondIndexes().size();
+			}
+			
+			@Override
+			void render(TextBuffer out, List<Atom> atoms, MolBlueprint blueprint, long bondNum, long molNum)
+			{
+				if(blueprint == null)
+					return;
+				for(BondIndex bondIndex : blueprint.getBondIndexes())
+				{
+					//The same text as "%12d %12d %12d %12d"
+					out.append(bondNum, 12).append(' ').append(bondIndex.getBondID(), 12).append(' ')
+							.append(atoms.get(bondIndex.getAtom(0)).getID(), 12).append(' ')
+							.append(atoms.get(bondIndex.getAtom(1)).getID(), 12).newLine();
+					bondNum++;
+				}
+			}
+		};
+		
+		Section angleSection = new Section(" Angles", true) {
+			@Override
+			long count(List<Atom> atoms, MolBlueprint blueprint)
+			{
+				return (blueprint == null) ? 0 : blueprint.getAngleIndexes().size();
+			}
+			
+			@Override
+			void render(TextBuffer out, List<Atom> atoms, MolBlueprint blueprint, long angleNum, long molNum)
+			{
+				if(blueprint == null)
+					return;
+				for(AngleIndex angleIndex : blueprint.getAngleIndexes())
+				{
+					//The same text as "%12d %12d %12d %12d %12d"
+					out.append(angleNum, 12).append(' ').append(angleIndex.getAngleID(), 12).append(' ')
+							.append(atoms.get(angleIndex.getAtom(0)).getID(), 12).append(' ')
+							.append(atoms.get(angleIndex.getAtom(1)).getID(), 12).append(' ')
+							.append(atoms.get(angleIndex.getAtom(2)).getID(), 12).newLine();
+					angleNum++;
+				}
+			}
+		};
+		
+		return new Section[] {atomSection, bondSection, angleSection};
+	}
+}
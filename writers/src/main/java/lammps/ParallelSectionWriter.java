@@ -0,0 +1,311 @@
+package lammps;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import core.Atom;
+import core.MolBlueprint;
+import core.MoleculeSource;
+import core.MoleculeSource.MoleculeHandler;
+
+/**
+ * Writes the sections of a lammps .dat file with several threads, reading the molecules only once. The molecules are
+ * read on the calling thread and cut into batches of about <code>linesPerBatch</code> lines, keeping a running count
+ * of the lines of each section before each batch. Each batch renders its lines of every section into buffers of its
+ * own on a worker, then waits for the ends of the batch before it and writes each buffer at its place with a
+ * positional write.
+ * <p>
+ * The first section is written straight into the file. Where the later sections start is only known once the sections
+ * before them are complete, so each of them is collected in a temporary file and appended to the file at the end.
+ * <p>
+ * Batches are handed out in order, so a worker only ever waits for a batch that is already being rendered. At most
+ * twice as many batches as threads are held at once, so memory use does not grow with the size of the system. Once a
+ * batch fails, no more molecules are read and batches not yet rendered are skipped.
+ * @see Section
+ */
+class ParallelSectionWriter
+{
+	/**The number of lines rendered by each task*/
+	static final int LINES_PER_BATCH = 1 << 15;
+
+	private FileChannel channel;
+	private int numThreads;
+	private int linesPerBatch;
+	/**The first failure of a batch*/
+	private AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+	/**
+	 * @param channel		Receives the file
+	 * @param numThreads	The number of threads rendering the sections
+	 * @param linesPerBatch	The number of lines rendered by each task
+	 */
+	ParallelSectionWriter(FileChannel channel, int numThreads, int linesPerBatch)
+	{
+		this.channel = channel;
+		this.numThreads = numThreads;
+		this.linesPerBatch = linesPerBatch;
+	}
+
+	/**
+	 * Writes every section, each starting with its title.
+	 * @param source		The molecules of the system, read once
+	 * @param sections		The sections in the order they are written
+	 * @param position		The position in the file to start the first section at
+	 * @return				The position after the last section
+	 * @throws IOException	If the molecules could not be read or the file could not be written
+	 */
+	long write(MoleculeSource source, Section[] sections, long position) throws IOException
+	{
+		FileChannel[] targets = new FileChannel[sections.length];
+		long[] starts = new long[sections.length];
+		ExecutorService workers = Executors.newFixedThreadPool(numThreads);
+		try {
+			TextBuffer title = new TextBuffer();
+			sections[0].renderTitle(title);
+			title.writeTo(channel, position);
+			targets[0] = channel;
+			starts[0] = position + title.size();
+			for(int s = 1; s < sections.length; s++)
+			{
+				targets[s] = FileChannel.open(Files.createTempFile("section", ".dat"), StandardOpenOption.READ,
+						StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+			}
+
+			Batcher batcher = new Batcher(sections, targets, starts, workers, new Semaphore(2*numThreads));
+			try {
+				source.readMolecules(batcher);
+				batcher.submit();
+			} finally {
+				workers.shutdown();
+				awaitTermination(workers);
+			}
+			checkFailure();
+			//Every batch is done, so its ends are known
+			long[] ends = (batcher.last == null) ? starts : batcher.last.end.join();
+
+			position = ends[0];
+			for(int s = 1; s < sections.length; s++)
+			{
+				title = new TextBuffer();
+				sections[s].renderTitle(title);
+				title.writeTo(channel, position);
+				position += title.size();
+				position = append(targets[s], ends[s], position);
+			}
+			return position;
+		} finally {
+			workers.shutdownNow();
+			for(int s = 1; s < targets.length; s++)
+			{
+				//Also deletes the temporary file
+				if(targets[s] != null)
+					targets[s].close();
+			}
+		}
+	}
+
+	private static void awaitTermination(ExecutorService workers) throws IOException
+	{
+		try {
+			while(!workers.awaitTermination(1, TimeUnit.MINUTES))
+			{
+				//Large batches can take a while to write
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while writing the file", e);
+		}
+	}
+
+	/**
+	 * Copies the first <code>size</code> bytes of a temporary file into the file at <code>position</code>.
+	 * @return	The position after the copied bytes
+	 */
+	private long append(FileChannel temp, long size, long position) throws IOException
+	{
+		long copied = 0;
+		while(copied < size)
+		{
+			copied += channel.transferFrom(temp.position(copied), position + copied, size - copied);
+		}
+		return position + size;
+	}
+
+	/**
+	 * Throws the first failure of a batch, if any.
+	 */
+	private void checkFailure() throws IOException
+	{
+		Throwable e = failure.get();
+		if(e instanceof IOException)
+			throw (IOException) e;
+		if(e instanceof RuntimeException)
+			throw (RuntimeException) e;
+		if(e instanceof Error)
+			throw (Error) e;
+	}
+
+	/**
+	 * Cuts the molecules into batches as they are read, keeping a running count of the lines of each section and of
+	 * the molecules before each batch.
+	 */
+	private class Batcher implements MoleculeHandler
+	{
+		private Section[] sections;
+		private FileChannel[] targets;
+		private long[] starts;
+		private ExecutorService workers;
+		/**Limits the number of batches held at once*/
+		private Semaphore queued;
+		private Batch batch;
+		/**The last batch handed to the workers*/
+		Batch last;
+		/**The number of the next line of each section*/
+		private long[] nextLines;
+		private long molNum = 1;
+
+		Batcher(Section[] sections, FileChannel[] targets, long[] starts, ExecutorService workers, Semaphore queued)
+		{
+			this.sections = sections;
+			this.targets = targets;
+			this.starts = starts;
+			this.workers = workers;
+			this.queued = queued;
+			nextLines = new long[sections.length];
+			Arrays.fill(nextLines, 1);
+		}
+
+		@Override
+		public void molecule(List<Atom> atoms, MolBlueprint blueprint) throws IOException
+		{
+			//Reading the rest of the system is pointless once a batch has failed
+			checkFailure();
+			if(batch == null)
+				batch = new Batch(sections, targets, nextLines.clone(), molNum, last, starts);
+			//The source may reuse its list once this returns
+			batch.add(new ArrayList<Atom>(atoms), blueprint);
+			for(int s = 0; s < sections.length; s++)
+			{
+				long count = sections[s].count(atoms, blueprint);
+				batch.numLines += count;
+				nextLines[s] += count;
+			}
+			molNum++;
+			if(batch.numLines >= linesPerBatch)
+				submit();
+		}
+
+		/**
+		 * Hands the current batch to the workers, if there is one.
+		 */
+		void submit()
+		{
+			if(batch == null)
+				return;
+			final Batch next = batch;
+			batch = null;
+			last = next;
+			queued.acquireUninterruptibly();
+			workers.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						next.run();
+					} finally {
+						queued.release();
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * A run of molecules whose lines of every section are rendered and written by one task.
+	 */
+	private class Batch
+	{
+		private Section[] sections;
+		private FileChannel[] targets;
+		private List<List<Atom>> molecules = new ArrayList<List<Atom>>();
+		private List<MolBlueprint> blueprints = new ArrayList<MolBlueprint>();
+		/**The number of the first line of each section*/
+		private long[] firstLines;
+		private long firstMol;
+		long numLines;
+		/**The batch written just before this one, or null if this is the first*/
+		private Batch previous;
+		/**Where each section starts, for the first batch*/
+		private long[] starts;
+		/**Completed with the position after this batch in each section once its length is known*/
+		final CompletableFuture<long[]> end = new CompletableFuture<long[]>();
+
+		Batch(Section[] sections, FileChannel[] targets, long[] firstLines, long firstMol, Batch previous, long[] starts)
+		{
+			this.sections = sections;
+			this.targets = targets;
+			this.firstLines = firstLines;
+			this.firstMol = firstMol;
+			this.previous = previous;
+			this.starts = starts;
+		}
+
+		void add(List<Atom> atoms, MolBlueprint blueprint)
+		{
+			molecules.add(atoms);
+			blueprints.add(blueprint);
+		}
+
+		void run()
+		{
+			try {
+				if(failure.get() != null)
+					throw new CompletionException(failure.get());
+				TextBuffer[] out = new TextBuffer[sections.length];
+				for(int s = 0; s < sections.length; s++)
+				{
+					out[s] = new TextBuffer();
+					long line = firstLines[s];
+					for(int i = 0; i < molecules.size(); i++)
+					{
+						sections[s].render(out[s], molecules.get(i), blueprints.get(i), line, firstMol + i);
+						line += sections[s].count(molecules.get(i), blueprints.get(i));
+					}
+				}
+				molecules = null;
+				blueprints = null;
+
+				//The buffers before this one decide where it goes
+				long[] positions = (previous == null) ? starts : previous.end.join();
+				previous = null;
+				long[] ends = new long[sections.length];
+				for(int s = 0; s < sections.length; s++)
+				{
+					ends[s] = positions[s] + out[s].size();
+				}
+				end.complete(ends);
+				for(int s = 0; s < sections.length; s++)
+				{
+					out[s].writeTo(targets[s], positions[s]);
+				}
+			} catch(CompletionException e) {
+				//A batch before this one failed, and so does every batch after it
+				end.completeExceptionally(e);
+			} catch(Throwable e) {
+				failure.compareAndSet(null, e);
+				end.completeExceptionally(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package lammps;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import core.Atom;
+import core.MolBlueprint;
+import core.MoleculeSource;
+import core.MoleculeSource.MoleculeHandler;
+
+/**
+ * One numbered section of a lammps .dat file, such as Atoms or Bonds. Each molecule adds a number of lines that only
+ * depends on the molecule, and each line is numbered by its position in the section, so the lines of any run of
+ * molecules can be rendered on their own once the number of lines before them is known.
+ * @see DatWriter
+ */
+abstract class Section
+{
+	/**The size of the buffer of each temporary file*/
+	private static final int SPOOL_SIZE = 1 << 20;
+
+	private String title;
+	private boolean blankLineBefore;
+
+	/**
+	 * @param title				The title line of the section, such as <code> Atoms</code>
+	 * @param blankLineBefore	True if the title follows a blank line
+	 */
+	Section(String title, boolean blankLineBefore)
+	{
+		this.title = title;
+		this.blankLineBefore = blankLineBefore;
+	}
+
+	/**
+	 * @return	The number of lines the molecule adds to the section
+	 */
+	abstract long count(List<Atom> atoms, MolBlueprint blueprint);
+
+	/**
+	 * Appends the lines of one molecule.
+	 * @param firstLine		The number of the first line of the molecule, counting from 1
+	 * @param molNum		The number of the molecule, counting from 1
+	 */
+	abstract void render(TextBuffer out, List<Atom> atoms, MolBlueprint blueprint, long firstLine, long molNum);
+
+	/**
+	 * Appends the title of the section and the blank lines around it.
+	 */
+	void renderTitle(TextBuffer out)
+	{
+		if(blankLineBefore)
+			out.newLine();
+		out.append(title).newLine().newLine();
+	}
+
+	/**
+	 * Appends whole sections, reading the molecules from <code>source</code> only once on the current thread. The first
+	 * section is appended as its molecules are read. Where the later sections start is only known once the sections
+	 * before them are complete, so each of them is collected in a temporary file and appended at the end.
+	 * @param sections	The sections in the order they are written
+	 */
+	static void writeAll(final TextBuffer out, MoleculeSource source, final Section... sections) throws IOException
+	{
+		FileChannel[] spools = new FileChannel[sections.length];
+		try {
+			final TextBuffer[] targets = new TextBuffer[sections.length];
+			targets[0] = out;
+			for(int s = 1; s < sections.length; s++)
+			{
+				spools[s] = FileChannel.open(Files.createTempFile("section", ".dat"), StandardOpenOption.READ,
+						StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+				targets[s] = new TextBuffer(spools[s], SPOOL_SIZE);
+			}
+
+			sections[0].renderTitle(out);
+			source.readMolecules(new MoleculeHandler() {
+				private long[] nextLines = new long[sections.length];
+				private long molNum = 1;
+
+				@Override
+				public void molecule(List<Atom> atoms, MolBlueprint blueprint)
+				{
+					for(int s = 0; s < sections.length; s++)
+					{
+						sections[s].render(targets[s], atoms, blueprint, nextLines[s] + 1, molNum);
+						nextLines[s] += sections[s].count(atoms, blueprint);
+					}
+					molNum++;
+				}
+			});
+
+			for(int s = 1; s < sections.length; s++)
+			{
+				targets[s].flush();
+				sections[s].renderTitle(out);
+				out.append(spools[s]);
+			}
+		} finally {
+			for(int s = 1; s < spools.length; s++)
+			{
+				//Also deletes the temporary file
+				if(spools[s] != null)
+					spools[s].close();
+			}
+		}
+	}
+}
@@ -0,0 +1,274 @@
+package lammps;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Collects lines of ASCII text in a large reusable byte buffer, formatting numbers straight into it, and passes the
+ * buffer on to a channel or a <code>Writer</code> whenever it fills. Numbers are written with exactly the characters
+ * <code>String.format</code> gives for <code>%Nd</code> and <code>%Nf</code>, without creating a <code>String</code>.
+ * <p>
+ * <code>%f</code> rounds the shortest decimal form of a number half up to six places. The fast conversion rounds the
+ * number itself, which only differs from that when the number lies right next to a halfway point, so such numbers,
+ * numbers of a million or more, and any number when the default locale does not write plain ASCII digits are handed to
+ * <code>String.format</code>.
+ * <p>
+ * A buffer without a target keeps all of its text until it is written with <code>writeTo</code>. When a target
+ * cannot be written while the buffer fills, an <code>UncheckedIOException</code> is thrown. A buffer is not thread
+ * safe.
+ */
+public class TextBuffer
+{
+	/**The default size of a buffer passed on to a target when it fills*/
+	public static final int DEFAULT_SIZE = 1 << 22;
+	/**True if the default locale formats numbers the same way as the fast conversions*/
+	private static final boolean PLAIN_LOCALE = String.format("%f %d", -1234.5, 6789).equals("-1234.500000 6789");
+	private static final double SCALE = 1e6;
+	/**How close to a halfway point a number can be before the fast conversion may round it differently*/
+	private static final double MARGIN = 1e-3;
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+
+	private byte[] buf;
+	private int pos;
+	private WritableByteChannel channel;
+	private Writer writer;
+	private char[] chars;
+
+	/**
+	 * Creates a buffer that keeps all of its text, growing as needed.
+	 */
+	public TextBuffer()
+	{
+		buf = new byte[1 << 16];
+	}
+
+	/**
+	 * @param channel	Receives the text each time the buffer fills, and when it is flushed
+	 * @param size		The size of the buffer in bytes
+	 */
+	public TextBuffer(WritableByteChannel channel, int size)
+	{
+		buf = new byte[size];
+		this.channel = channel;
+	}
+
+	/**
+	 * @param writer	Receives the text each time the buffer fills, and when it is flushed. It is not flushed itself.
+	 */
+	public TextBuffer(Writer writer)
+	{
+		buf = new byte[1 << 16];
+		chars = new char[buf.length];
+		this.writer = writer;
+	}
+
+	/**
+	 * Appends text. Characters outside ASCII are written as <code>?</code>.
+	 */
+	public TextBuffer append(String text)
+	{
+		for(int i = 0; i < text.length(); i++)
+		{
+			append(text.charAt(i));
+		}
+		return this;
+	}
+
+	public TextBuffer append(char c)
+	{
+		ensure(1);
+		buf[pos++] = (byte) (c < 128 ? c : '?');
+		return this;
+	}
+
+	/**
+	 * Appends the whole content of a file, which must be ASCII text. The position of the channel is not used.
+	 */
+	public TextBuffer append(FileChannel in) throws IOException
+	{
+		long size = in.size();
+		for(long read = 0; read < size;)
+		{
+			ensure(1);
+			int n = in.read(ByteBuffer.wrap(buf, pos, (int) Math.min(buf.length - pos, size - read)), read);
+			if(n < 0)
+				throw new IOException("The file ended early");
+			pos += n;
+			read += n;
+		}
+		return this;
+	}
+
+	/**
+	 * Appends a line separator, the same one <code>BufferedWriter.newLine</code> writes.
+	 */
+	public TextBuffer newLine()
+	{
+		return append(LINE_SEPARATOR);
+	}
+
+	/**
+	 * Appends an integer right justified in <code>width</code> characters, as <code>%<i>width</i>d</code> does.
+	 */
+	public TextBuffer append(long value, int width)
+	{
+		if(!PLAIN_LOCALE || value == Long.MIN_VALUE)
+			return append(String.format("%" + width + "d", value));
+
+		boolean negative = value < 0;
+		long v = negative ? -value : value;
+		int length = numDigits(v) + (negative ? 1 : 0);
+		ensure(Math.max(width, length));
+		for(int k = length; k < width; k++)
+		{
+			buf[pos++] = ' ';
+		}
+		if(negative)
+			buf[pos++] = '-';
+		writeDigits(v, numDigits(v));
+		return this;
+	}
+
+	/**
+	 * Appends a number with six decimal places right justified in <code>width</code> characters, as
+	 * <code>%<i>width</i>f</code> does.
+	 */
+	public TextBuffer appendFixed(double value, int width)
+	{
+		double v = Math.abs(value);
+		//Also false for NaN
+		if(!PLAIN_LOCALE || !(v < SCALE))
+			return append(String.format("%" + width + "f", value));
+		double scaled = v*SCALE;
+		double whole = Math.floor(scaled);
+		double fraction = scaled - whole;
+		if(Math.abs(fraction - 0.5) < MARGIN)
+			return append(String.format("%" + width + "f", value));
+
+		long digits = (long) whole + (fraction > 0.5 ? 1 : 0);
+		long integer = digits/1000000;
+		int decimals = (int) (digits - integer*1000000);
+		//The sign is kept even when the number rounds to zero
+		boolean negative = Double.doubleToRawLongBits(value) < 0;
+		int integerDigits = numDigits(integer);
+		int length = integerDigits + 7 + (negative ? 1 : 0);
+		ensure(Math.max(width, length));
+		for(int k = length; k < width; k++)
+		{
+			buf[pos++] = ' ';
+		}
+		if(negative)
+			buf[pos++] = '-';
+		writeDigits(integer, integerDigits);
+		buf[pos++] = '.';
+		writeDigits(decimals, 6);
+		return this;
+	}
+
+	/**
+	 * Writes the last <code>count</code> digits of <code>value</code>, padded with zeros.
+	 */
+	private void writeDigits(long value, int count)
+	{
+		for(int k = pos + count - 1; k >= pos; k--)
+		{
+			buf[k] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+		pos += count;
+	}
+
+	private static int numDigits(long value)
+	{
+		int digits = 1;
+		while(value >= 10)
+		{
+			value /= 10;
+			digits++;
+		}
+		return digits;
+	}
+
+	/**
+	 * Makes room for <code>n</code> more bytes, passing the buffer on to the target or growing it.
+	 */
+	private void ensure(int n)
+	{
+		if(pos + n <= buf.length)
+			return;
+		if(channel == null && writer == null)
+		{
+			buf = Arrays.copyOf(buf, Math.max(2*buf.length, pos + n));
+			return;
+		}
+		try {
+			flush();
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Passes the text collected so far on to the target.
+	 * @throws IOException	If the target could not be written
+	 */
+	public void flush() throws IOException
+	{
+		if(channel != null)
+		{
+			writeTo(channel);
+		}
+		else if(writer != null)
+		{
+			for(int i = 0; i < pos; i++)
+			{
+				chars[i] = (char) buf[i];
+			}
+			writer.write(chars, 0, pos);
+		}
+		else
+		{
+			return;
+		}
+		pos = 0;
+	}
+
+	/**
+	 * Writes the text held by the buffer to a channel, without clearing it.
+	 */
+	public void writeTo(WritableByteChannel out) throws IOException
+	{
+		ByteBuffer bb = ByteBuffer.wrap(buf, 0, pos);
+		while(bb.hasRemaining())
+		{
+			out.write(bb);
+		}
+	}
+
+	/**
+	 * Writes the text held by the buffer to a file at the given position, without clearing it or moving the position of
+	 * the channel. Several threads may write different parts of the same file this way at once.
+	 * @param position	The offset in the file of the first byte
+	 */
+	public void writeTo(FileChannel out, long position) throws IOException
+	{
+		ByteBuffer bb = ByteBuffer.wrap(buf, 0, pos);
+		while(bb.hasRemaining())
+		{
+			position += out.write(bb, position);
+		}
+	}
+
+	/**
+	 * @return	The number of bytes held by the buffer
+	 */
+	public int size()
+	{
+		return pos;
+	}
+}
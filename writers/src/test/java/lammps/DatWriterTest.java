@@ -0,0 +1,137 @@
+package lammps;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import core.Atom;
+import core.MolBlueprint;
+import core.Molecule;
+import core.MoleculeSource;
+import core.MoleculeSource.MoleculeHandler;
+
+public class DatWriterTest {
+
+	private static byte[] write(MoleculeSource source, Map<String, Double> masses, Map<String, Double> charges,
+			int numThreads, int linesPerBatch) throws IOException
+	{
+		File file = File.createTempFile("test", ".dat");
+		file.deleteOnExit();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+			DatWriter.writeFile(source, channel, masses, charges, numThreads, linesPerBatch);
+			assertEquals(channel.size(), channel.position());
+		}
+		return Files.readAllBytes(file.toPath());
+	}
+
+	@Test
+	public void testParallelMatchesSequential() throws IOException {
+		MolBlueprint water = new MolBlueprint();
+		water.addToKey("OW");
+		water.addToKey("HW");
+		water.addToKey("HW");
+		water.addBondIndex("1", "2");
+		water.addBondIndex("1", "3");
+		water.addAngleIndex("2", "1", "3");
+
+		//Waters, with some lone ions that have no blueprint
+		Random rand = new Random(5);
+		ArrayList<Molecule> mols = new ArrayList<Molecule>();
+		int id = 1;
+		for(int i = 0; i < 2000; i++)
+		{
+			boolean ion = rand.nextInt(10) == 0;
+			Molecule mol = new Molecule(ion ? null : water);
+			for(String type : ion ? new String[] {"NA"} : new String[] {"OW", "HW", "HW"})
+			{
+				mol.addAtom(new Atom(id++, type, rand.nextDouble()*40, rand.nextDouble()*40, rand.nextDouble()*40));
+			}
+			mols.add(mol);
+		}
+		Map<String, Double> masses = new HashMap<String, Double>();
+		masses.put("OW", 15.9994);
+		masses.put("HW", 1.008);
+		masses.put("NA", 22.99);
+		Map<String, Double> charges = new HashMap<String, Double>();
+		charges.put("OW", -0.8476);
+		charges.put("HW", 0.4238);
+		charges.put("NA", 1.0);
+
+		MoleculeSource source = MoleculeSource.of(mols);
+		byte[] expected = write(source, masses, charges, 1, ParallelSectionWriter.LINES_PER_BATCH);
+		//Small batches give each section many buffers to place, and a large one holds a whole section
+		for(int linesPerBatch : new int[] {1, 7, 100000})
+		{
+			assertArrayEquals(expected, write(source, masses, charges, 4, linesPerBatch));
+		}
+
+		//A writer gets the same text, and the molecules are only read twice
+		final MoleculeSource molecules = source;
+		final int[] numReads = new int[1];
+		MoleculeSource counted = new MoleculeSource() {
+			@Override
+			public void readMolecules(MoleculeHandler handler) throws IOException
+			{
+				numReads[0]++;
+				molecules.readMolecules(handler);
+			}
+		};
+		StringWriter text = new StringWriter();
+		DatWriter.writeFile(counted, new BufferedWriter(text), masses, charges);
+		assertEquals(new String(expected, StandardCharsets.US_ASCII), text.toString());
+		assertEquals(2, numReads[0]);
+	}
+
+	@Test
+	public void testParallelFailure() throws IOException {
+		//The bond of this blueprint points past the end of its molecule, so rendering the Bonds section fails
+		MolBlueprint broken = new MolBlueprint();
+		broken.addToKey("OW");
+		broken.addBondIndex("1", "2");
+		final ArrayList<Molecule> mols = new ArrayList<Molecule>();
+		for(int i = 0; i < 5000; i++)
+		{
+			Molecule mol = new Molecule((i == 10) ? broken : null);
+			mol.addAtom(new Atom(i + 1, "OW", i % 40, i % 30, i % 20));
+			mols.add(mol);
+		}
+		Map<String, Double> masses = new HashMap<String, Double>();
+		masses.put("OW", 15.9994);
+		Map<String, Double> charges = new HashMap<String, Double>();
+		charges.put("OW", -0.8476);
+
+		final int[] numRead = new int[1];
+		MoleculeSource source = new MoleculeSource() {
+			@Override
+			public void readMolecules(MoleculeHandler handler) throws IOException
+			{
+				for(Molecule mol : mols)
+				{
+					numRead[0]++;
+					handler.molecule(mol.getAtoms(), mol.getBlueprint());
+				}
+			}
+		};
+		try {
+			write(source, masses, charges, 4, 2);
+			fail();
+		} catch(IndexOutOfBoundsException e) {
+			//Expected
+		}
+		//The system is counted once, then reading stops soon after the failed batch
+		assertTrue(numRead[0] < mols.size() + 100);
+	}
+}
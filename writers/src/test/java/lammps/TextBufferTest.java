@@ -0,0 +1,90 @@
+package lammps;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TextBufferTest {
+
+	private static String text(TextBuffer buffer) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		buffer.writeTo(Channels.newChannel(bytes));
+		return new String(bytes.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	public void testMatchesFormat() throws IOException {
+		double[] values = {
+			0, -0.0, 1e-7, -1e-7, 5e-7, 2.5e-7, 1.0000005, 0.1234565, -0.8476, 0.4238, 999999.9999995, 999999.4,
+			1e6, -1e6, 123456789.123, 1e300, Double.MIN_VALUE, Double.NaN, Double.POSITIVE_INFINITY,
+			Double.NEGATIVE_INFINITY, 0.0000015, 2.0000025, 12.3456785
+		};
+		TextBuffer buffer = new TextBuffer();
+		StringBuilder expected = new StringBuilder();
+		for(double value : values)
+		{
+			buffer.appendFixed(value, 12).newLine();
+			expected.append(String.format("%12f", value)).append(System.lineSeparator());
+		}
+
+		//Coordinates, charges and very small numbers, including many close to a halfway point
+		Random rand = new Random(7);
+		for(int i = 0; i < 200000; i++)
+		{
+			double value;
+			switch(i % 4)
+			{
+			case 0:
+				value = (rand.nextDouble() - 0.5)*200;
+				break;
+			case 1:
+				value = (rand.nextInt(2000000) - 1000000 + 0.5)*1e-6;
+				break;
+			case 2:
+				value = (rand.nextDouble() - 0.5)*Math.pow(10, rand.nextInt(14) - 8);
+				break;
+			default:
+				value = Math.round(rand.nextGaussian()*1e9)*1e-6;
+			}
+			buffer.appendFixed(value, 12).append(' ');
+			expected.append(String.format("%12f", value)).append(' ');
+		}
+
+		long[] integers = {0, 1, -1, 9, 10, 99999, 100000, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE};
+		for(long value : integers)
+		{
+			buffer.append(value, 10).append(value, 6).append(value, 1);
+			expected.append(String.format("%10d%6d%1d", value, value, value));
+		}
+		assertEquals(expected.toString(), text(buffer));
+	}
+
+	@Test
+	public void testTargets() throws IOException {
+		//A small buffer is passed on many times
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		TextBuffer toChannel = new TextBuffer(Channels.newChannel(bytes), 16);
+		StringWriter writer = new StringWriter();
+		TextBuffer toWriter = new TextBuffer(writer);
+		StringBuilder expected = new StringBuilder();
+		for(int i = 0; i < 50000; i++)
+		{
+			toChannel.append(i, 12).append(" atoms").newLine();
+			toWriter.append(i, 12).append(" atoms").newLine();
+			expected.append(String.format("%12d atoms", i)).append(System.lineSeparator());
+		}
+		toChannel.flush();
+		toWriter.flush();
+		assertEquals(expected.toString(), new String(bytes.toByteArray(), StandardCharsets.US_ASCII));
+		assertEquals(expected.toString(), writer.toString());
+		assertEquals(0, toWriter.size());
+	}
+}